@@ -1,7 +1,6 @@
 const shell = require('shelljs');
 const glob = require('glob');
 const fs = require('fs');
-const fse = require("fs-extra");
 const childProcess = require('child_process');
 const path = require('path');
 
@@ -16,9 +15,11 @@ const argv = require('optimist')
     .default('dataConfigGlob', '**/data-config*.json')
     .describe('dataConfigGlob', 'Glob search for data-config files below \'dataConfigRoot\'')
     .default('appsDataCopyStr', 'apps-data-copy')
-    .describe('appsDataCopyStr', 'Search for data-copy files or folders below \'dataConfigRoot\'')
+    .describe('appsDataCopyStr', 'Name of the folders below \'dataConfigRoot\' copied into the components')
     .default('createBundleTarget', false)
     .describe('createBundleTarget', '[true|false] for creating missing target')
+    .default('jobs', 1)
+    .describe('jobs', 'Number of components generated in parallel, 0 uses all processors')
     .argv
 ;
 
@@ -30,6 +31,7 @@ const generatorJarSource = path.relative(workdir + '/', path.normalize(workdir +
 const dataConfigGlob = argv.dataConfigGlob;
 const appsDataCopyStr = argv.appsDataCopyStr;
 const isCreateBundleTarget = (argv.createBundleTarget === 'true' || argv.createBundleTarget === true);
+const jobs = String(argv.jobs);
 
 console.log(`workdir: ${workdir}`);
 console.log(`dataConfigRoot dir: ${dataConfigRoot}`);
@@ -67,9 +69,8 @@ async function execGenerator() {
                 throw err;
             }
             // files is an array of filenames.
-            for (const file of files) {
-                console.log('------');
-                if (isCreateBundleTarget) {
+            if (isCreateBundleTarget) {
+                for (const file of files) {
                     try {
                         let dataConfigJson = JSON.parse(fs.readFileSync(path.join(dataConfigRoot, file), 'utf8'));
                         let bundleTargetPath = dataConfigJson['project-settings']['bundle-path'];
@@ -84,52 +85,18 @@ async function execGenerator() {
                         throw err;
                     }
                 }
-                let dataConfigFile = path.join(dataConfigRoot, file);
-                let dataConfigDir = path.dirname(dataConfigFile);
-                try {
-                    console.log(`Run generation for ${generatorJarSource} ${dataConfigFile}`);
-                    let out = childProcess.execSync(`java -jar ${generatorJarSource} ${dataConfigFile}`);
-                    console.log(out.toString());
-                } catch (err) {
-                    throw err;
-                }
-                let appsDataCopyGlob = `**/${appsDataCopyStr}/*`;
-                console.log(`\n## Copy configs at ${dataConfigDir} with glob ${appsDataCopyGlob}`);
-                if (!fs.existsSync(dataConfigDir)) {
-                    throw `dataConfigDir not exists at ${dataConfigDir}`;
-                }
-                let filesToCopy = glob.sync(appsDataCopyGlob, {cwd: dataConfigDir});
-                for (const fileToCopy of filesToCopy) {
-                    console.log('------');
-                    //read target folder for copy
-                    let appsTargetPathFromWorkdir;
-                    try {
-                        let dataConfigJson = JSON.parse(fs.readFileSync(dataConfigFile, 'utf8'));
-                        let appsTargetPath = dataConfigJson['project-settings']['apps-path'] + "/" +
-                            dataConfigJson['project-settings']['component-path'] + "/" +
-                            dataConfigJson['type'] + "/" +
-                            dataConfigJson['name'];
-                        appsTargetPathFromWorkdir = path.join(workdir, appsTargetPath);
-                    } catch (err) {
-                        console.log(`Error: Missing target path from data-json ['project-settings']['apps-path']`);
-                        throw err;
-                    }
-                    try {
-                        // copy appsTargetPathFromWorkdir
-                        let fileToCopyWithoutMarker = fileToCopy.substring(fileToCopy.lastIndexOf(appsDataCopyStr + "/") + appsDataCopyStr.length);
-                        let fileToCopyWithoutMarkerWithDir = path.join(appsTargetPathFromWorkdir, fileToCopyWithoutMarker);
-                        try {
-                            fse.copySync(path.join(dataConfigDir, fileToCopy), fileToCopyWithoutMarkerWithDir);
-                            console.log(`${fileToCopy} was copied to ${fileToCopyWithoutMarkerWithDir}`);
-                        } catch (err) {
-                            throw err;
-                        }
-                        //let out = childProcess.execSync(`java -jar ${generatorJarSource} ${dataConfigFile}`);
-                        //console.log(out.toString());
-                    } catch (err) {
-                        throw err;
-                    }
-                }
+            }
+            // one generator run for all configs, the generator copies the apps-data-copy folders,
+            // prints a summary and exits with 1 on failures
+            console.log(`Run generation for ${generatorJarSource} ${dataConfigRoot} --glob ${dataConfigGlob} --jobs ${jobs} --apps-data-copy ${appsDataCopyStr}`);
+            try {
+                childProcess.execFileSync('java',
+                    ['-jar', generatorJarSource, '--glob', dataConfigGlob, '--jobs', jobs,
+                        '--apps-data-copy', appsDataCopyStr, dataConfigRoot],
+                    {stdio: 'inherit'});
+            } catch (err) {
+                console.log(`Error: Generation failed for at least one data-config (exit status ${err.status})`);
+                process.exitCode = 1;
             }
         });
     })
@@ -21,16 +21,32 @@ package com.adobe.aem.compgenerator;
 
 import com.adobe.aem.compgenerator.exceptions.GeneratorException;
 import com.adobe.aem.compgenerator.javacodemodel.JavaCodeModel;
+import com.adobe.aem.compgenerator.javacodemodel.SharedCodeModel;
 import com.adobe.aem.compgenerator.models.GenerationConfig;
+import com.adobe.aem.compgenerator.utils.AppsDataCopyUtils;
+import com.adobe.aem.compgenerator.utils.BackupStore;
 import com.adobe.aem.compgenerator.utils.CommonUtils;
 import com.adobe.aem.compgenerator.utils.ComponentUtils;
 import com.adobe.aem.compgenerator.utils.TemplateUtils;
+import com.jayway.jsonpath.DocumentContext;
 import org.apache.commons.io.FileUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.File;
+import java.io.IOException;
+import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Root of the AEM Component generator.
@@ -38,57 +54,199 @@ import java.nio.charset.StandardCharsets;
  * AemCompGenerator reads the json data file input and creates folder, file
  * structure of an AEM component and sling model interface with member values
  * and getters.
+ * <p>
+ * Several data-configs can be generated in one run by passing several files, directories,
+ * glob patterns or list files (see {@link GeneratorArguments}), optionally in parallel
+ * (see {@link BatchGenerator}). The process exits with status 1 when at least one component failed.
+ * With <code>--daemon</code> the generator stays resident and serves requests (see {@link GeneratorDaemon}),
+ * with <code>--watch</code> it regenerates components whenever their data-config changes (see {@link ConfigWatcher}).
  */
 public class AemCompGenerator {
     private static final Logger LOG = LogManager.getLogger(AemCompGenerator.class);
 
     public static void main(String[] args) {
+        int exitCode = 0;
         try {
-            String configPath = "data-config.json";
-            if (args.length > 0) {
-                configPath = args[0];
+            GeneratorArguments arguments = GeneratorArguments.parse(args);
+            if (arguments.getRestoreGeneration() != null) {
+                int restored = BackupStore.restore(BackupStore.DEFAULT_ROOT, arguments.getRestoreGeneration());
+                LOG.info("Restored backup generation {}: {} files", arguments.getRestoreGeneration(), restored);
+            } else if (arguments.isDaemon()) {
+                new GeneratorDaemon(arguments).run();
+            } else if (arguments.isWatch()) {
+                new ConfigWatcher(arguments).run();
+            } else {
+                List<File> configFiles = arguments.resolveConfigFiles();
+                if (configFiles.isEmpty()) {
+                    throw new GeneratorException("No data-config found for " + arguments.getConfigSources());
+                }
+                List<GenerationResult> results;
+                FileSystem outputFileSystem = openOutputFileSystem(arguments.getOutputZip());
+                try {
+                    results = new BatchGenerator(arguments, outputFileSystem).generate(configFiles);
+                } finally {
+                    // the default filesystem can not be closed
+                    if (outputFileSystem != FileSystems.getDefault()) {
+                        outputFileSystem.close();
+                    }
+                }
+                logSummary(results);
+                if (results.stream().anyMatch(GenerationResult::isFailed)) {
+                    exitCode = 1;
+                }
             }
+        } catch (Exception e) {
+            LOG.error("Failed to generate aem components.", e);
+            exitCode = 1;
+        }
+        System.exit(exitCode);
+    }
 
-            File configFile = new File(configPath);
+    /**
+     * @param outputZip the zip to write the output folders into, may be null
+     * @return a zip filesystem of the given zip, created if missing, or the default filesystem without zip
+     * @throws IOException exception while opening the zip
+     */
+    static FileSystem openOutputFileSystem(Path outputZip) throws IOException {
+        if (outputZip == null) {
+            return FileSystems.getDefault();
+        }
+        if (outputZip.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(outputZip.toAbsolutePath().getParent());
+        }
+        URI uri = URI.create("jar:" + outputZip.toAbsolutePath().toUri());
+        return FileSystems.newFileSystem(uri, Collections.singletonMap("create", "true"));
+    }
 
-            if (CommonUtils.isFileBlank(configFile)) {
-                throw new GeneratorException("Config file missing / empty.");
-            }
+    /**
+     * Generates the component of a single data-config file. Errors are logged and reported
+     * as failed result.
+     *
+     * @param configFile the data-config file
+     * @return GenerationResult
+     */
+    public static GenerationResult generateComponent(File configFile) {
+        GeneratorArguments arguments = GeneratorArguments.parse(new String[]{configFile.getPath()});
+        return new BatchGenerator(arguments, FileSystems.getDefault())
+                .generate(Collections.singletonList(configFile)).get(0);
+    }
 
-            //creates template structure
-            String configAfterTemplateInit = TemplateUtils
-                    .initConfigTemplates(FileUtils.readFileToString(new File(configPath), StandardCharsets.UTF_8));
-
-            if (configAfterTemplateInit != null) {
-                //updates replacer value map from Templates
-                String configUpdateReplacerMap = TemplateUtils
-                        .updateReplaceValueMap(createGenerationConfig(configFile), configAfterTemplateInit);
-                FileUtils.writeStringToFile(new File("target/" + configPath), configUpdateReplacerMap,
-                        StandardCharsets.UTF_8);
-                configFile = new File("target/" + configPath);
-            }
+    /**
+     * Reads the data-config file, resolves its templates and creates the {@link GenerationConfig}.
+     *
+     * @param configFile the data-config file
+     * @return GenerationConfig of the resolved data-config
+     * @throws IOException exception while reading the data-config
+     */
+    static GenerationConfig prepareGenerationConfig(File configFile) throws IOException {
+        return prepareGenerationConfig(configFile, false);
+    }
 
-            GenerationConfig config = createGenerationConfig(configFile);
+    /**
+     * Reads the data-config file, resolves its templates and creates the {@link GenerationConfig}. The
+     * data-config is parsed once, resolved and bound in memory.
+     *
+     * @param configFile   the data-config file
+     * @param dumpResolved true to write the resolved data-config to <code>target/&lt;configPath&gt;</code>
+     * @return GenerationConfig of the resolved data-config
+     * @throws IOException exception while reading or writing the data-config
+     */
+    static GenerationConfig prepareGenerationConfig(File configFile, boolean dumpResolved) throws IOException {
+        if (CommonUtils.isFileBlank(configFile)) {
+            throw new GeneratorException("Config file missing / empty.");
+        }
+        String configPath = configFile.getPath();
+        String dataConfigDir = configFile.getAbsoluteFile().getParent();
 
-            //builds component folder and file structure.
-            if (config.getOptions().isHasDialog()) {
-                ComponentUtils generatorUtils = new ComponentUtils(config);
-                generatorUtils.buildComponent(configFile.getPath());
-            }
+        //creates template structure, the data-config tree is parsed once and bound after all template steps
+        DocumentContext dataConfig =
+                TemplateUtils.parseDataConfig(FileUtils.readFileToString(configFile, StandardCharsets.UTF_8));
 
-            //builds sling model based on config.
-            if (config.getOptions() != null && config.getOptions().isHasSlingModel()) {
-                JavaCodeModel javaCodeModel = new JavaCodeModel();
-                javaCodeModel.buildSlingModel(config);
-            }
-        } catch (Exception e) {
-            LOG.error("Failed to generate aem component.", e);
+        if (TemplateUtils.initConfigTemplates(dataConfig)) {
+            //updates replacer value map from Templates, the template steps do not change the bound values used
+            TemplateUtils.updateReplaceValueMap(createGenerationConfig(dataConfig), dataConfig);
+        }
+        String resolvedConfig = dataConfig.jsonString();
+        if (dumpResolved) {
+            File resolvedFile = new File("target/" + configPath);
+            FileUtils.writeStringToFile(resolvedFile, resolvedConfig, StandardCharsets.UTF_8);
+            LOG.info("Resolved data-config written to {}", resolvedFile.getPath());
+        }
+
+        GenerationConfig config = createGenerationConfig(dataConfig);
+        config.setConfigFilePath(configPath);
+        config.setDataConfigDir(dataConfigDir);
+        // the fingerprint of the content the component is generated from, not of the file read again later
+        config.setFingerprint(GenerationState.fingerprint(resolvedConfig));
+        return config;
+    }
+
+    /**
+     * Builds the component folder structure, copies the apps-data-copy files and builds the sling model
+     * of a prepared config. The files are staged in the output transaction of the config, if it has one.
+     *
+     * @param config the resolved {@link GenerationConfig}
+     * @throws Exception exception while generating
+     */
+    static void buildComponent(GenerationConfig config) throws Exception {
+        buildComponent(config, null);
+    }
+
+    /**
+     * Builds the component of a prepared config, the sling model is built into the shared model of the batch
+     * and only written when the shared model is emitted.
+     *
+     * @param config      the resolved {@link GenerationConfig}
+     * @param sharedModel the model of the batch, null to write the sling model right away
+     * @throws Exception exception while generating
+     */
+    static void buildComponent(GenerationConfig config, SharedCodeModel sharedModel) throws Exception {
+        //builds component folder and file structure.
+        if (config.getOptions().isHasDialog()) {
+            ComponentUtils generatorUtils = new ComponentUtils(config);
+            generatorUtils.buildComponent(config.getConfigFilePath());
+        }
+
+        //copies apps-data-copy files into the component folder.
+        AppsDataCopyUtils.copyAppsData(config);
+
+        //builds sling model based on config.
+        if (config.getOptions() != null && config.getOptions().isHasSlingModel()) {
+            JavaCodeModel javaCodeModel = sharedModel != null ? new JavaCodeModel(sharedModel) : new JavaCodeModel();
+            javaCodeModel.buildSlingModel(config);
+        }
+    }
+
+    /**
+     * @param config the resolved {@link GenerationConfig}
+     * @return all files of the component folder except the backups of replaced files
+     * @throws IOException exception while walking the component folder
+     */
+    static List<Path> getComponentFiles(GenerationConfig config) throws IOException {
+        Path compDir = CommonUtils.getOutputPath(config.getCompDir(), config);
+        if (!Files.isDirectory(compDir)) {
+            return Collections.emptyList();
+        }
+        try (Stream<Path> paths = Files.walk(compDir)) {
+            return paths.filter(Files::isRegularFile)
+                    .filter(path -> !path.getFileName().toString().contains(CommonUtils.BACKUP_FILE_INFIX))
+                    .collect(Collectors.toList());
         }
     }
 
     public static GenerationConfig createGenerationConfig(File configFile) {
-        GenerationConfig config = CommonUtils.getComponentData(configFile);
+        return validateGenerationConfig(CommonUtils.getComponentData(configFile));
+    }
+
+    /**
+     * @param dataConfig parsed data-config tree
+     * @return GenerationConfig bound from the tree
+     */
+    static GenerationConfig createGenerationConfig(DocumentContext dataConfig) {
+        return validateGenerationConfig(CommonUtils.getComponentDataFromTree(dataConfig.json()));
+    }
 
+    private static GenerationConfig validateGenerationConfig(GenerationConfig config) {
         if (config == null) {
             throw new GeneratorException("Config file is empty / null !!");
         }
@@ -100,4 +258,26 @@ public class AemCompGenerator {
         CommonUtils.updateCompDirFromConfig(config);
         return config;
     }
+
+    /**
+     * Logs one line per generated data-config and the aggregated counts.
+     *
+     * @param results the results of the run
+     */
+    static void logSummary(List<GenerationResult> results) {
+        LOG.info("--------------* Generation summary *--------------");
+        for (GenerationResult result : results) {
+            if (result.isFailed()) {
+                LOG.error(result);
+            } else {
+                LOG.info(result);
+            }
+        }
+        Map<GenerationResult.Status, Long> statusCounts = results.stream()
+                .collect(Collectors.groupingBy(GenerationResult::getStatus, TreeMap::new, Collectors.counting()));
+        LOG.info("{} data-config(s) processed: {}", results.size(), statusCounts);
+        LOG.info("Incremental generation: {} hit(s), {} miss(es)",
+                statusCounts.getOrDefault(GenerationResult.Status.UNCHANGED, 0L),
+                statusCounts.getOrDefault(GenerationResult.Status.GENERATED, 0L));
+    }
 }
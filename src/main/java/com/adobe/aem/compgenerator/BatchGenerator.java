@@ -0,0 +1,509 @@
+/*
+ * #%L
+ * AEM Component Generator
+ * %%
+ * Copyright (C) 2019 Adobe
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.adobe.aem.compgenerator;
+
+import com.adobe.aem.compgenerator.exceptions.GeneratorException;
+import com.adobe.aem.compgenerator.javacodemodel.JavaCodeModel;
+import com.adobe.aem.compgenerator.javacodemodel.SharedCodeModel;
+import com.adobe.aem.compgenerator.models.GenerationConfig;
+import com.adobe.aem.compgenerator.models.ProjectSettings;
+import com.adobe.aem.compgenerator.utils.AppsDataCopyUtils;
+import com.adobe.aem.compgenerator.utils.BackupStore;
+import com.adobe.aem.compgenerator.utils.ContentPackage;
+import com.adobe.aem.compgenerator.utils.JsonPathCache;
+import com.adobe.aem.compgenerator.utils.OutputTransaction;
+import com.adobe.aem.compgenerator.utils.PackageOutputTransaction;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Generates the components of many data-configs within one JVM using a bounded worker pool.
+ * <p>
+ * A run has two phases, both executed on the worker pool:
+ * <ol>
+ *     <li>prepare: every data-config is read, its templates are resolved and the {@link GenerationConfig} is created,</li>
+ *     <li>build: the component folder structure and the sling model of every prepared config are generated.</li>
+ * </ol>
+ * The sling models of all components are built into one {@link SharedCodeModel} and written in a single pass
+ * after the build phase, a class defined by two configs fails the second one before anything is written.
+ * Between the phases the prepared configs are checked for output conflicts. Configs targeting the same
+ * component directory or the same sling model class are not generated, as their output would depend on
+ * the execution order.
+ * <p>
+ * The files of a component are staged in an {@link OutputTransaction} while it is built. A component failing
+ * halfway is rolled back, a built component is committed on a single I/O thread, so the filesystem work of
+ * one component overlaps with the generation of the next ones. Components with a sling model are committed as
+ * soon as the sources of their classes are written, a component failing to write its sources is rolled back alone.
+ * <p>
+ * Components whose fingerprint and outputs are unchanged since the last run are not built again unless
+ * forced (see {@link GenerationState}), only their apps-data-copy folders are synchronized.
+ * <p>
+ * With a package file all components are written into one {@link ContentPackage} instead of the output folders,
+ * see {@link PackageOutputTransaction}. With an output filesystem other than the default one, e.g. an in-memory or
+ * a zip filesystem, the output folders are resolved in that filesystem. In both cases every component is built and
+ * the generator state is not updated.
+ * <p>
+ * Otherwise every run is a generation of the {@link BackupStore}, which keeps the previous content of the replaced
+ * files and the list of created files, so the run can be rolled back.
+ */
+public class BatchGenerator {
+    private static final Logger LOG = LogManager.getLogger(BatchGenerator.class);
+
+    private final int jobs;
+    private final boolean force;
+    private final boolean dumpResolved;
+    private final String appsDataCopyFolder;
+    private final Path packageFile;
+    private final FileSystem outputFileSystem;
+    private final boolean incremental;
+    private final boolean compressBackups;
+    private final int backupRetention;
+    // loaded by the first run and kept for the following runs of this generator
+    private GenerationState state;
+
+    /**
+     * @param arguments        the jobs, force, dump-resolved, package and backup arguments of the run
+     * @param outputFileSystem the filesystem to resolve the output folders in
+     */
+    public BatchGenerator(GeneratorArguments arguments, FileSystem outputFileSystem) {
+        this.jobs = Math.max(1, arguments.getJobs());
+        this.compressBackups = arguments.isCompressBackups();
+        this.backupRetention = arguments.getBackupRetention();
+        this.packageFile = arguments.getPackageFile();
+        this.incremental = packageFile == null && outputFileSystem == FileSystems.getDefault();
+        this.force = arguments.isForce() || !incremental;
+        this.dumpResolved = arguments.isDumpResolved();
+        this.appsDataCopyFolder = arguments.getAppsDataCopyFolder();
+        this.outputFileSystem = outputFileSystem;
+    }
+
+    /**
+     * Generates the components of all given data-config files. Runs of the same generator must not overlap.
+     *
+     * @param configFiles the data-config files
+     * @return the results in the order of the config files
+     */
+    public List<GenerationResult> generate(List<File> configFiles) {
+        if (state == null) {
+            state = GenerationState.load(GenerationState.DEFAULT_STATE_FILE);
+        }
+        ContentPackage contentPackage = createContentPackage();
+        BackupStore backupStore = incremental ? openBackupStore() : null;
+        SharedCodeModel sharedModel = new SharedCodeModel();
+        ExecutorService committer = Executors.newSingleThreadExecutor(new WorkerThreadFactory("generator-io-"));
+        List<ComponentTask> tasks = configFiles.stream()
+                .map(configFile -> new ComponentTask(configFile, incremental ? state : null, force, dumpResolved,
+                        appsDataCopyFolder, committer, contentPackage, backupStore, sharedModel, outputFileSystem))
+                .collect(Collectors.toList());
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(jobs, Math.max(1, tasks.size())),
+                new WorkerThreadFactory("generator-worker-"));
+        try {
+            runAll(executor, tasks, ComponentTask::prepare);
+            markConflicts(tasks);
+            runAll(executor, tasks, ComponentTask::build);
+            emitSharedModel(sharedModel, tasks);
+            awaitCommits(tasks);
+        } finally {
+            executor.shutdownNow();
+            // queued commits are completed, a component is never committed halfway
+            committer.shutdown();
+            awaitTermination(committer);
+            if (contentPackage != null) {
+                closeContentPackage(contentPackage);
+            }
+            if (backupStore != null) {
+                closeBackupStore(backupStore);
+            }
+            if (incremental) {
+                saveState(state);
+            }
+        }
+        LOG.info("Compiled JsonPath cache: {}", JsonPathCache.getInstance());
+        return tasks.stream().map(ComponentTask::toResult).collect(Collectors.toList());
+    }
+
+    private ContentPackage createContentPackage() {
+        if (packageFile == null) {
+            return null;
+        }
+        try {
+            return ContentPackage.create(packageFile);
+        } catch (IOException e) {
+            throw new GeneratorException("Failed to create content package " + packageFile, e);
+        }
+    }
+
+    private static void closeContentPackage(ContentPackage contentPackage) {
+        try {
+            contentPackage.close();
+        } catch (IOException e) {
+            throw new GeneratorException("Failed to write content package", e);
+        }
+    }
+
+    private BackupStore openBackupStore() {
+        try {
+            return BackupStore.open(BackupStore.DEFAULT_ROOT, compressBackups, backupRetention);
+        } catch (IOException e) {
+            throw new GeneratorException("Failed to open backup store " + BackupStore.DEFAULT_ROOT, e);
+        }
+    }
+
+    private static void closeBackupStore(BackupStore backupStore) {
+        try {
+            backupStore.close();
+        } catch (IOException e) {
+            LOG.warn("Failed to write backup generation " + backupStore.getGeneration(), e);
+        }
+    }
+
+    private static void awaitTermination(ExecutorService committer) {
+        try {
+            committer.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void saveState(GenerationState state) {
+        try {
+            state.save();
+        } catch (IOException e) {
+            LOG.warn("Failed to save generator state, the next run generates all components.", e);
+        }
+    }
+
+    private static void runAll(ExecutorService executor, List<ComponentTask> tasks, TaskStep step) {
+        List<Future<Void>> futures = new ArrayList<>();
+        for (ComponentTask task : tasks) {
+            if (task.error == null) {
+                futures.add(executor.submit((Callable<Void>) () -> {
+                    task.run(step);
+                    return null;
+                }));
+            }
+        }
+        for (Future<Void> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new GeneratorException("Generation interrupted", e);
+            } catch (ExecutionException e) {
+                throw new GeneratorException("Unexpected error in generator worker", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Writes the sling models of all built components, every component waiting for its sling model is committed
+     * as soon as its sources are written. A component failing to write its sources is rolled back.
+     *
+     * @param sharedModel the model of the batch
+     * @param tasks       the built tasks
+     */
+    private static void emitSharedModel(SharedCodeModel sharedModel, List<ComponentTask> tasks) {
+        Map<GenerationConfig, ComponentTask> pendingTasks = new HashMap<>();
+        for (ComponentTask task : tasks) {
+            if (task.error == null && task.transaction != null) {
+                pendingTasks.put(task.config, task);
+            }
+        }
+        long start = System.currentTimeMillis();
+        sharedModel.emit((config, error) -> {
+            ComponentTask task = pendingTasks.get(config);
+            if (task != null) {
+                task.emitted(error);
+            }
+        });
+        long emitMillis = (System.currentTimeMillis() - start) / Math.max(1, pendingTasks.size());
+        for (ComponentTask task : pendingTasks.values()) {
+            task.durationMillis += emitMillis;
+            // commits a component which defined no class in the shared model
+            task.emitted(null);
+        }
+    }
+
+    private static void awaitCommits(List<ComponentTask> tasks) {
+        for (ComponentTask task : tasks) {
+            if (task.commit == null) {
+                continue;
+            }
+            try {
+                task.commit.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new GeneratorException("Generation interrupted", e);
+            } catch (ExecutionException e) {
+                throw new GeneratorException("Unexpected error in generator I/O thread", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Marks all prepared tasks as failed which share their component directory or a sling model
+     * class with another task.
+     *
+     * @param tasks the prepared tasks
+     */
+    static void markConflicts(List<ComponentTask> tasks) {
+        Map<String, List<ComponentTask>> tasksByOutput = new HashMap<>();
+        for (ComponentTask task : tasks) {
+            if (task.error == null) {
+                for (String output : getOutputKeys(task.config)) {
+                    tasksByOutput.computeIfAbsent(output, key -> new ArrayList<>()).add(task);
+                }
+            }
+        }
+        for (Map.Entry<String, List<ComponentTask>> entry : tasksByOutput.entrySet()) {
+            List<ComponentTask> conflictingTasks = entry.getValue();
+            if (conflictingTasks.size() > 1) {
+                String configPaths = conflictingTasks.stream().map(task -> task.configFile.getPath())
+                        .collect(Collectors.joining(", "));
+                for (ComponentTask task : conflictingTasks) {
+                    if (task.error == null) {
+                        task.error = new GeneratorException(
+                                "Output conflict on " + entry.getKey() + " between " + configPaths);
+                        LOG.error(task.error.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @param config prepared config
+     * @return the component directory and the sling model classes the config generates
+     */
+    private static List<String> getOutputKeys(GenerationConfig config) {
+        List<String> outputKeys = new ArrayList<>();
+        if (config.getOptions().isHasDialog()) {
+            outputKeys.add("compDir " + Paths.get(config.getCompDir()).toAbsolutePath().normalize());
+        }
+        if (config.getOptions().isHasSlingModel()) {
+            ProjectSettings projectSettings = config.getProjectSettings();
+            outputKeys.add("model class " + JavaCodeModel
+                    .getFullyQualifiedModelClassName(projectSettings, config.getJavaFormatedName()));
+            outputKeys.add("model class " + projectSettings.getModelImplPackage() + "." +
+                    config.getJavaFormatedName() + "Impl");
+        }
+        return outputKeys;
+    }
+
+    @FunctionalInterface
+    private interface TaskStep {
+        void run(ComponentTask task) throws Exception;
+    }
+
+    /**
+     * State of one data-config passing through the phases.
+     */
+    static class ComponentTask {
+        private final File configFile;
+        // null when the generator state is not recorded
+        private final GenerationState state;
+        private final boolean force;
+        private final boolean dumpResolved;
+        private final String appsDataCopyFolder;
+        private final ExecutorService committer;
+        private final ContentPackage contentPackage;
+        private final BackupStore backupStore;
+        private final SharedCodeModel sharedModel;
+        private final FileSystem outputFileSystem;
+        private GenerationConfig config;
+        private String key;
+        private String fingerprint;
+        private List<Path> outputs;
+        // set while the component waits for the shared model to be written
+        private OutputTransaction transaction;
+        private Future<Void> commit;
+        private volatile Exception error;
+        private boolean unchanged;
+        private long durationMillis;
+        private volatile long commitMillis;
+
+        ComponentTask(File configFile, GenerationState state, boolean force, boolean dumpResolved,
+                String appsDataCopyFolder, ExecutorService committer, ContentPackage contentPackage, BackupStore backupStore,
+                SharedCodeModel sharedModel, FileSystem outputFileSystem) {
+            this.configFile = configFile;
+            this.state = state;
+            this.force = force;
+            this.dumpResolved = dumpResolved;
+            this.appsDataCopyFolder = appsDataCopyFolder;
+            this.committer = committer;
+            this.contentPackage = contentPackage;
+            this.backupStore = backupStore;
+            this.sharedModel = sharedModel;
+            this.outputFileSystem = outputFileSystem;
+        }
+
+        private void prepare() throws Exception {
+            config = AemCompGenerator.prepareGenerationConfig(configFile, dumpResolved);
+            config.setOutputFileSystem(outputFileSystem);
+            config.setAppsDataCopyFolder(appsDataCopyFolder);
+        }
+
+        private void build() throws Exception {
+            key = configFile.getAbsoluteFile().toPath().normalize().toString();
+            fingerprint = config.getFingerprint();
+            outputs = new ArrayList<>();
+            transaction = contentPackage != null ?
+                    new PackageOutputTransaction(config, contentPackage) :
+                    OutputTransaction.forConfig(config, backupStore);
+            config.setOutputTransaction(transaction);
+            try {
+                if (!force && state.isUpToDate(key, fingerprint)) {
+                    LOG.info("Unchanged: {} ({})", config.getName(), configFile.getPath());
+                    AppsDataCopyUtils.copyAppsData(config);
+                    state.getOutputs(key).stream().map(Paths::get).forEach(outputs::add);
+                    unchanged = true;
+                } else {
+                    AemCompGenerator.buildComponent(config, sharedModel);
+                }
+            } catch (Exception e) {
+                sharedModel.discard(config);
+                transaction.rollback();
+                transaction = null;
+                config.setOutputTransaction(null);
+                throw e;
+            }
+            if (unchanged || !config.getOptions().isHasSlingModel()) {
+                submitCommit();
+                config.setOutputTransaction(null);
+            }
+        }
+
+        /**
+         * Commits the component once its sling model is written, or rolls it back. Only the first call counts.
+         *
+         * @param emitError the error writing the sources of the component, null on success
+         */
+        private synchronized void emitted(Exception emitError) {
+            if (transaction == null) {
+                return;
+            }
+            if (emitError != null) {
+                LOG.error("Failed to write the sling model of " + configFile.getPath(), emitError);
+                error = emitError;
+                transaction.rollback();
+                transaction = null;
+            } else {
+                submitCommit();
+            }
+            config.setOutputTransaction(null);
+        }
+
+        /**
+         * Hands the staged files to the I/O thread, once all files of the component are staged.
+         */
+        private void submitCommit() {
+            OutputTransaction stagedTransaction = transaction;
+            transaction = null;
+            outputs.addAll(stagedTransaction.getTargets());
+            commit = committer.submit((Callable<Void>) () -> {
+                commit(stagedTransaction);
+                return null;
+            });
+        }
+
+        /**
+         * Commits the staged files and records the outputs, runs on the I/O thread.
+         */
+        private void commit(OutputTransaction transaction) {
+            long start = System.currentTimeMillis();
+            try {
+                transaction.commit();
+                if (state == null) {
+                    return;
+                }
+                Set<Path> committedOutputs = new LinkedHashSet<>(outputs);
+                committedOutputs.addAll(AemCompGenerator.getComponentFiles(config));
+                state.update(key, fingerprint, committedOutputs);
+            } catch (Exception e) {
+                LOG.error("Failed to commit aem component of " + configFile.getPath(), e);
+                error = e;
+            } finally {
+                commitMillis = System.currentTimeMillis() - start;
+            }
+        }
+
+        private void run(TaskStep step) {
+            long start = System.currentTimeMillis();
+            try {
+                step.run(this);
+            } catch (Exception e) {
+                LOG.error("Failed to generate aem component of " + configFile.getPath(), e);
+                error = e;
+            } finally {
+                durationMillis += System.currentTimeMillis() - start;
+            }
+        }
+
+        private GenerationResult toResult() {
+            String componentName = config != null ? config.getName() : null;
+            long totalMillis = durationMillis + commitMillis;
+            if (error != null) {
+                return GenerationResult.failed(configFile.getPath(), componentName, totalMillis, error);
+            }
+            if (unchanged) {
+                return GenerationResult.unchanged(configFile.getPath(), componentName, totalMillis);
+            }
+            return GenerationResult.generated(configFile.getPath(), componentName, totalMillis);
+        }
+    }
+
+    private static class WorkerThreadFactory implements ThreadFactory {
+        private final String namePrefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        WorkerThreadFactory(String namePrefix) {
+            this.namePrefix = namePrefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, namePrefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * #%L
+ * AEM Component Generator
+ * %%
+ * Copyright (C) 2019 Adobe
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.adobe.aem.compgenerator;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Watches the data-config directories and regenerates the components whose data-config changed.
+ * <p>
+ * All data-configs are generated once on start. Afterwards a change of a data-config file regenerates
+ * that component, a change within an <code>apps-data-copy</code> folder regenerates the data-configs of
+ * the directories containing the folder. Events are collected until no further event arrived for
+ * {@link #DEBOUNCE_MILLIS}, so the save storm of an editor results in a single generation.
+ * <p>
+ * One {@link BatchGenerator} and with it the generator state is kept for all events. The data-config files are
+ * resolved on start and only resolved again when files or directories were created or deleted.
+ * <p>
+ * The generator output below <code>target</code> and hidden directories are not watched.
+ */
+public class ConfigWatcher {
+    private static final Logger LOG = LogManager.getLogger(ConfigWatcher.class);
+
+    static final long DEBOUNCE_MILLIS = 300;
+
+    private final GeneratorArguments arguments;
+    private final Path outputRoot = Paths.get("target").toAbsolutePath().normalize();
+    private final Map<WatchKey, Path> watchedDirs = new HashMap<>();
+    private final BatchGenerator batchGenerator;
+    private List<File> configFiles;
+
+    public ConfigWatcher(GeneratorArguments arguments) {
+        this.arguments = arguments;
+        this.batchGenerator = new BatchGenerator(arguments, FileSystems.getDefault());
+    }
+
+    /**
+     * Generates all data-configs and watches for changes until the thread is interrupted.
+     *
+     * @throws IOException          exception while registering the directories
+     * @throws InterruptedException when the watcher got interrupted
+     */
+    public void run() throws IOException, InterruptedException {
+        try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+            for (Path watchRoot : arguments.resolveWatchRoots()) {
+                registerTree(watchService, watchRoot);
+            }
+            configFiles = arguments.resolveConfigFiles();
+            generate(configFiles);
+            LOG.info("Watching {} directories for data-config changes.", watchedDirs.size());
+
+            Set<Path> changedPaths = new LinkedHashSet<>();
+            Set<Path> changedTrees = new LinkedHashSet<>();
+            boolean filesCreatedOrDeleted = false;
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = changedPaths.isEmpty() && changedTrees.isEmpty() ?
+                        watchService.take() :
+                        watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+                if (key == null) {
+                    if (filesCreatedOrDeleted) {
+                        configFiles = arguments.resolveConfigFiles();
+                    }
+                    regenerate(changedPaths, changedTrees);
+                    changedPaths.clear();
+                    changedTrees.clear();
+                    filesCreatedOrDeleted = false;
+                    continue;
+                }
+                Path dir = watchedDirs.get(key);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (dir == null) {
+                        continue;
+                    }
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        // the lost events may have changed any file below the directory
+                        changedTrees.add(dir);
+                        filesCreatedOrDeleted = true;
+                        continue;
+                    }
+                    Path path = dir.resolve((Path) event.context());
+                    if (path.startsWith(outputRoot)) {
+                        continue;
+                    }
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_MODIFY) {
+                        changedPaths.add(path);
+                        continue;
+                    }
+                    filesCreatedOrDeleted = true;
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE ||
+                            Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                        // a created or deleted directory adds or removes all files below it, a deleted path
+                        // can not be told apart from a deleted file any more
+                        changedTrees.add(path);
+                        if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                            registerTree(watchService, path);
+                        }
+                    } else {
+                        changedPaths.add(path);
+                    }
+                }
+                if (!key.reset()) {
+                    watchedDirs.remove(key);
+                }
+            }
+        }
+    }
+
+    private void registerTree(WatchService watchService, Path root) throws IOException {
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Path absoluteDir = dir.toAbsolutePath().normalize();
+                if (absoluteDir.startsWith(outputRoot) ||
+                        (!dir.equals(root) && dir.getFileName().toString().startsWith("."))) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                WatchKey key = absoluteDir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+                watchedDirs.put(key, absoluteDir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void regenerate(Collection<Path> changedPaths, Collection<Path> changedTrees) {
+        try {
+            List<File> affectedConfigFiles = configFiles.stream()
+                    .filter(configFile -> isAffected(configFile.toPath().toAbsolutePath().normalize(), changedPaths,
+                            changedTrees, arguments.getAppsDataCopyFolder()))
+                    .collect(Collectors.toList());
+            if (affectedConfigFiles.isEmpty()) {
+                LOG.debug("No data-config affected by {} {}", changedPaths, changedTrees);
+                return;
+            }
+            generate(affectedConfigFiles);
+        } catch (Exception e) {
+            LOG.error("Failed to regenerate aem components.", e);
+        }
+    }
+
+    private void generate(List<File> configFiles) {
+        if (!configFiles.isEmpty()) {
+            AemCompGenerator.logSummary(batchGenerator.generate(configFiles));
+        }
+    }
+
+    /**
+     * @param configPath         absolute path of a data-config
+     * @param changedPaths       absolute paths of the modified, created or deleted files
+     * @param changedTrees       absolute paths of the created directories, the deleted files or directories and
+     *                           the directories with an overflow, all files below them may have changed
+     * @param appsDataCopyFolder name of the apps-data-copy folders
+     * @return true when the data-config itself, a file of its apps-data-copy folders or one of the changed
+     * trees containing it changed
+     */
+    static boolean isAffected(Path configPath, Collection<Path> changedPaths, Collection<Path> changedTrees,
+            String appsDataCopyFolder) {
+        Path configDir = configPath.getParent();
+        for (Path changedPath : changedPaths) {
+            if (changedPath.equals(configPath) || isInAppsDataCopy(configDir, changedPath, appsDataCopyFolder)) {
+                return true;
+            }
+        }
+        for (Path changedTree : changedTrees) {
+            if (configPath.startsWith(changedTree) || isInAppsDataCopy(configDir, changedTree, appsDataCopyFolder)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isInAppsDataCopy(Path configDir, Path changedPath, String appsDataCopyFolder) {
+        if (!changedPath.startsWith(configDir)) {
+            return false;
+        }
+        for (Path segment : configDir.relativize(changedPath)) {
+            if (appsDataCopyFolder.equals(segment.toString())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
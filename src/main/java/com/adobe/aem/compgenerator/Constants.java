@@ -50,6 +50,7 @@ public class Constants {
     public static final String DIALOG_TYPE_GLOBAL = "dialogglobal";
     public static final String DIALOG_TYPE_SHARED = "dialogshared";
     public static final String FILENAME_CONTENT_XML = ".content.xml";
+    public static final String FOLDER_APPS_DATA_COPY = "apps-data-copy";
 
     public static final String PROPERTY_JCR_TITLE = "jcr:title";
     public static final String PROPERTY_SLING_RESOURCETYPE = "sling:resourceType";
@@ -0,0 +1,88 @@
+/*
+ * #%L
+ * AEM Component Generator
+ * %%
+ * Copyright (C) 2019 Adobe
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.adobe.aem.compgenerator;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+
+/**
+ * Outcome of the generation of a single data-config, used for the run summary.
+ */
+public class GenerationResult {
+    public enum Status {GENERATED, UNCHANGED, FAILED}
+
+    private final String configPath;
+    private final String componentName;
+    private final Status status;
+    private final long durationMillis;
+    private final String message;
+
+    private GenerationResult(String configPath, String componentName, Status status, long durationMillis,
+            String message) {
+        this.configPath = configPath;
+        this.componentName = componentName;
+        this.status = status;
+        this.durationMillis = durationMillis;
+        this.message = message;
+    }
+
+    static GenerationResult generated(String configPath, String componentName, long durationMillis) {
+        return new GenerationResult(configPath, componentName, Status.GENERATED, durationMillis, null);
+    }
+
+    static GenerationResult unchanged(String configPath, String componentName, long durationMillis) {
+        return new GenerationResult(configPath, componentName, Status.UNCHANGED, durationMillis, null);
+    }
+
+    static GenerationResult failed(String configPath, String componentName, long durationMillis, Throwable cause) {
+        return new GenerationResult(configPath, componentName, Status.FAILED, durationMillis,
+                ExceptionUtils.getRootCauseMessage(cause));
+    }
+
+    public String getConfigPath() {
+        return configPath;
+    }
+
+    public String getComponentName() {
+        return componentName;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public boolean isFailed() {
+        return status == Status.FAILED;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-9s %-40s %6d ms  %s%s", status, StringUtils.defaultString(componentName, "-"),
+                durationMillis, configPath, message != null ? " (" + message + ")" : "");
+    }
+}
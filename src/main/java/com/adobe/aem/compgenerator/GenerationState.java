@@ -0,0 +1,231 @@
+/*
+ * #%L
+ * AEM Component Generator
+ * %%
+ * Copyright (C) 2019 Adobe
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.adobe.aem.compgenerator;
+
+import com.adobe.aem.compgenerator.exceptions.GeneratorException;
+import com.adobe.aem.compgenerator.models.OptionTemplateTxt;
+import com.adobe.aem.compgenerator.utils.CommonUtils;
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Per project state of the incremental generation, stored in <code>target/.generator-state.json</code>.
+ * <p>
+ * For every data-config the state keeps a fingerprint of the inputs of its generation, i.e. the data-config with
+ * its resolved templates, the classpath templates and the generator version and code, and the size and
+ * modification time of every output file. A component is up to date, and not generated again, when its fingerprint
+ * is unchanged and none of its outputs was modified or deleted since the last generation.
+ */
+public class GenerationState {
+    private static final Logger LOG = LogManager.getLogger(GenerationState.class);
+
+    static final Path DEFAULT_STATE_FILE = Paths.get("target", ".generator-state.json");
+
+    private static final String GENERATOR_FINGERPRINT = computeGeneratorFingerprint();
+
+    private final Path stateFile;
+    private final Map<String, ComponentState> components = new ConcurrentHashMap<>();
+
+    private GenerationState(Path stateFile) {
+        this.stateFile = stateFile;
+    }
+
+    /**
+     * Reads the state file, a missing or unreadable state file results in an empty state.
+     *
+     * @param stateFile path of the state file
+     * @return GenerationState
+     */
+    public static GenerationState load(Path stateFile) {
+        GenerationState state = new GenerationState(stateFile);
+        if (Files.isRegularFile(stateFile)) {
+            try {
+                Map<String, ComponentState> components = CommonUtils.OBJECT_MAPPER
+                        .readValue(stateFile.toFile(), new TypeReference<Map<String, ComponentState>>() {});
+                state.components.putAll(components);
+            } catch (IOException e) {
+                LOG.warn("Ignoring unreadable generator state " + stateFile, e);
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Writes the state file.
+     *
+     * @throws IOException exception while writing
+     */
+    public void save() throws IOException {
+        if (stateFile.getParent() != null) {
+            Files.createDirectories(stateFile.getParent());
+        }
+        CommonUtils.OBJECT_MAPPER.writeValue(stateFile.toFile(), new TreeMap<>(components));
+    }
+
+    /**
+     * @param resolvedConfig the data-config with resolved templates, as it was parsed for the generation
+     * @return fingerprint of the resolved data-config, the templates and the generator version
+     */
+    public static String fingerprint(String resolvedConfig) {
+        MessageDigest digest = CommonUtils.newSha256Digest();
+        digest.update(GENERATOR_FINGERPRINT.getBytes(StandardCharsets.UTF_8));
+        digest.update(resolvedConfig.getBytes(StandardCharsets.UTF_8));
+        return CommonUtils.toHex(digest.digest());
+    }
+
+    /**
+     * @param key         key of the data-config
+     * @param fingerprint current fingerprint of the data-config
+     * @return true when the fingerprint is unchanged and all outputs are unmodified
+     */
+    public boolean isUpToDate(String key, String fingerprint) {
+        ComponentState componentState = components.get(key);
+        if (componentState == null || !StringUtils.equals(componentState.fingerprint, fingerprint) ||
+                componentState.outputs == null || componentState.outputs.isEmpty()) {
+            return false;
+        }
+        for (Map.Entry<String, String> output : componentState.outputs.entrySet()) {
+            if (!output.getValue().equals(getFileStamp(Paths.get(output.getKey())))) {
+                LOG.debug("Output {} of {} changed", output.getKey(), key);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stores the fingerprint and the current size and modification time of the outputs.
+     *
+     * @param key         key of the data-config
+     * @param fingerprint fingerprint of the data-config
+     * @param outputs     files generated for the data-config
+     */
+    public void update(String key, String fingerprint, Collection<Path> outputs) {
+        ComponentState componentState = new ComponentState();
+        componentState.fingerprint = fingerprint;
+        componentState.outputs = new TreeMap<>();
+        for (Path output : outputs) {
+            String fileStamp = getFileStamp(output);
+            if (fileStamp != null) {
+                componentState.outputs.put(output.toString(), fileStamp);
+            }
+        }
+        components.put(key, componentState);
+    }
+
+    /**
+     * @param key key of the data-config
+     * @return the recorded outputs of the data-config
+     */
+    public Collection<String> getOutputs(String key) {
+        ComponentState componentState = components.get(key);
+        return componentState != null && componentState.outputs != null ?
+                componentState.outputs.keySet() : Collections.emptySet();
+    }
+
+    private static String getFileStamp(Path path) {
+        try {
+            return Files.size(path) + ":" + Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Combines the generator version, the generator code and the content of the classpath templates.
+     */
+    private static String computeGeneratorFingerprint() {
+        MessageDigest digest = CommonUtils.newSha256Digest();
+        digest.update(StringUtils.defaultString(GenerationState.class.getPackage().getImplementationVersion(), "dev")
+                .getBytes(StandardCharsets.UTF_8));
+        try {
+            digestCodeSource(digest,
+                    Paths.get(GenerationState.class.getProtectionDomain().getCodeSource().getLocation().toURI()));
+        } catch (Exception e) {
+            LOG.debug("Generator location unknown", e);
+        }
+        for (OptionTemplateTxt.TemplateType templateType : OptionTemplateTxt.TemplateType.values()) {
+            if (StringUtils.isNotEmpty(templateType.getTemplateType())) {
+                try (InputStream inputStream = GenerationState.class.getClassLoader()
+                        .getResourceAsStream(templateType.getTemplateType())) {
+                    if (inputStream != null) {
+                        digest.update(IOUtils.toByteArray(inputStream));
+                    }
+                } catch (IOException e) {
+                    throw new GeneratorException("Failed to read template " + templateType, e);
+                }
+            }
+        }
+        return CommonUtils.toHex(digest.digest());
+    }
+
+    /**
+     * Adds the size and modification time of the generator jar, or the path and content of every class file when
+     * the generator runs from a classes folder, e.g. in the IDE or with <code>mvn exec</code>, where the version
+     * does not change with the code.
+     *
+     * @param digest     the digest of the generator fingerprint
+     * @param codeSource the generator jar or classes folder
+     * @throws IOException exception while reading the class files
+     */
+    static void digestCodeSource(MessageDigest digest, Path codeSource) throws IOException {
+        if (Files.isRegularFile(codeSource)) {
+            digest.update(StringUtils.defaultString(getFileStamp(codeSource)).getBytes(StandardCharsets.UTF_8));
+        } else if (Files.isDirectory(codeSource)) {
+            List<Path> classFiles;
+            try (Stream<Path> files = Files.walk(codeSource)) {
+                classFiles = files.filter(file -> Files.isRegularFile(file) && file.toString().endsWith(".class"))
+                        .sorted()
+                        .collect(Collectors.toList());
+            }
+            for (Path classFile : classFiles) {
+                digest.update(codeSource.relativize(classFile).toString().getBytes(StandardCharsets.UTF_8));
+                digest.update(Files.readAllBytes(classFile));
+            }
+        }
+    }
+
+    /**
+     * State of a single data-config.
+     */
+    static class ComponentState {
+        public String fingerprint;
+        public Map<String, String> outputs;
+    }
+}
@@ -0,0 +1,376 @@
+/*
+ * #%L
+ * AEM Component Generator
+ * %%
+ * Copyright (C) 2019 Adobe
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.adobe.aem.compgenerator;
+
+import com.adobe.aem.compgenerator.exceptions.GeneratorException;
+import com.adobe.aem.compgenerator.utils.BackupStore;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Command line arguments of the {@link AemCompGenerator}.
+ * <p>
+ * Every positional argument is a data-config source, which can be
+ * <ul>
+ *     <li>a data-config file,</li>
+ *     <li>a directory, searched recursively with the <code>--glob</code> pattern,</li>
+ *     <li>a glob pattern e.g. <code>src/main/resources/**&#47;data-config*.json</code>,</li>
+ *     <li>a list file prefixed with <code>@</code>, containing one source per line.</li>
+ * </ul>
+ * Without any source the <code>data-config.json</code> of the working directory is used.
+ * <p>
+ * <code>--jobs N</code> generates up to N components in parallel, <code>0</code> uses all available processors.
+ * <p>
+ * <code>--daemon</code> starts a {@link GeneratorDaemon} on the loopback <code>--port</code> instead of generating,
+ * it stops after <code>--idle-timeout</code> seconds without requests (<code>0</code> never).
+ * <p>
+ * <code>--force</code> generates all components, also the ones unchanged since the last run
+ * (see {@link GenerationState}).
+ * <p>
+ * <code>--watch</code> generates all data-configs once and then regenerates the ones changing (see {@link ConfigWatcher}).
+ * <p>
+ * <code>--dump-resolved</code> writes the data-configs with resolved templates to <code>target/&lt;configPath&gt;</code>.
+ * <p>
+ * <code>--package &lt;zip&gt;</code> writes the components into a FileVault content package and the java sources
+ * into a sources jar next to it, instead of the <code>ui.apps</code> and bundle folders.
+ * <p>
+ * <code>--output-zip &lt;zip&gt;</code> writes the output folders into a zip filesystem instead of the working
+ * directory.
+ * <p>
+ * <code>--restore &lt;generation&gt;</code> rolls back the files changed by a generation of the {@link BackupStore}
+ * instead of generating. <code>--backup-retention N</code> keeps the last N generations (<code>0</code> all),
+ * <code>--compress-backups</code> stores the replaced files gzip compressed.
+ * <p>
+ * <code>--apps-data-copy &lt;name&gt;</code> is the name of the folders copied into the component folders,
+ * <code>apps-data-copy</code> by default.
+ */
+public class GeneratorArguments {
+    static final String DEFAULT_CONFIG_PATH = "data-config.json";
+    static final String DEFAULT_CONFIG_GLOB = "**/data-config*.json";
+    static final int DEFAULT_DAEMON_PORT = 9810;
+    static final int DEFAULT_IDLE_TIMEOUT_SECONDS = 1800;
+
+    private static final String OPTION_GLOB = "--glob";
+    private static final String OPTION_JOBS = "--jobs";
+    private static final String OPTION_DAEMON = "--daemon";
+    private static final String OPTION_PORT = "--port";
+    private static final String OPTION_IDLE_TIMEOUT = "--idle-timeout";
+    private static final String OPTION_WATCH = "--watch";
+    private static final String OPTION_FORCE = "--force";
+    private static final String OPTION_DUMP_RESOLVED = "--dump-resolved";
+    private static final String OPTION_PACKAGE = "--package";
+    private static final String OPTION_OUTPUT_ZIP = "--output-zip";
+    private static final String OPTION_RESTORE = "--restore";
+    private static final String OPTION_BACKUP_RETENTION = "--backup-retention";
+    private static final String OPTION_COMPRESS_BACKUPS = "--compress-backups";
+    private static final String OPTION_APPS_DATA_COPY = "--apps-data-copy";
+    private static final String LIST_FILE_PREFIX = "@";
+    private static final String LIST_FILE_COMMENT = "#";
+    private static final String RECURSIVE_GLOB_PREFIX = "**/";
+
+    private final List<String> configSources = new ArrayList<>();
+    private String configGlob = DEFAULT_CONFIG_GLOB;
+    private int jobs = 1;
+    private boolean daemon;
+    private int port = DEFAULT_DAEMON_PORT;
+    private int idleTimeoutSeconds = DEFAULT_IDLE_TIMEOUT_SECONDS;
+    private boolean watch;
+    private boolean force;
+    private boolean dumpResolved;
+    private Path packageFile;
+    private Path outputZip;
+    private String restoreGeneration;
+    private int backupRetention = BackupStore.DEFAULT_RETENTION;
+    private boolean compressBackups;
+    private String appsDataCopyFolder = Constants.FOLDER_APPS_DATA_COPY;
+
+    /**
+     * Parses the command line arguments.
+     *
+     * @param args the arguments passed to the main method
+     * @return GeneratorArguments
+     */
+    public static GeneratorArguments parse(String[] args) {
+        GeneratorArguments arguments = new GeneratorArguments();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (OPTION_GLOB.equals(arg)) {
+                arguments.configGlob = getOptionValue(args, ++i, arg);
+            } else if (OPTION_JOBS.equals(arg)) {
+                arguments.jobs = getIntOptionValue(args, ++i, arg);
+            } else if (OPTION_DAEMON.equals(arg)) {
+                arguments.daemon = true;
+            } else if (OPTION_PORT.equals(arg)) {
+                arguments.port = getIntOptionValue(args, ++i, arg);
+            } else if (OPTION_IDLE_TIMEOUT.equals(arg)) {
+                arguments.idleTimeoutSeconds = getIntOptionValue(args, ++i, arg);
+            } else if (OPTION_WATCH.equals(arg)) {
+                arguments.watch = true;
+            } else if (OPTION_FORCE.equals(arg)) {
+                arguments.force = true;
+            } else if (OPTION_DUMP_RESOLVED.equals(arg)) {
+                arguments.dumpResolved = true;
+            } else if (OPTION_PACKAGE.equals(arg)) {
+                arguments.packageFile = Paths.get(getOptionValue(args, ++i, arg));
+            } else if (OPTION_OUTPUT_ZIP.equals(arg)) {
+                arguments.outputZip = Paths.get(getOptionValue(args, ++i, arg));
+            } else if (OPTION_RESTORE.equals(arg)) {
+                arguments.restoreGeneration = getOptionValue(args, ++i, arg);
+            } else if (OPTION_BACKUP_RETENTION.equals(arg)) {
+                arguments.backupRetention = getIntOptionValue(args, ++i, arg);
+            } else if (OPTION_COMPRESS_BACKUPS.equals(arg)) {
+                arguments.compressBackups = true;
+            } else if (OPTION_APPS_DATA_COPY.equals(arg)) {
+                arguments.appsDataCopyFolder = getOptionValue(args, ++i, arg);
+            } else if (StringUtils.startsWith(arg, "--")) {
+                throw new GeneratorException("Unknown option " + arg);
+            } else {
+                arguments.configSources.add(arg);
+            }
+        }
+        if (arguments.packageFile != null && (arguments.daemon || arguments.watch)) {
+            throw new GeneratorException("Option " + OPTION_PACKAGE + " can not be combined with " + OPTION_DAEMON
+                    + " or " + OPTION_WATCH);
+        }
+        if (arguments.outputZip != null && (arguments.daemon || arguments.watch || arguments.packageFile != null)) {
+            throw new GeneratorException("Option " + OPTION_OUTPUT_ZIP + " can not be combined with " + OPTION_DAEMON
+                    + ", " + OPTION_WATCH + " or " + OPTION_PACKAGE);
+        }
+        if (arguments.configSources.isEmpty()) {
+            arguments.configSources.add(DEFAULT_CONFIG_PATH);
+        }
+        return arguments;
+    }
+
+    /**
+     * Resolves all data-config sources to the list of data-config files in the order given,
+     * matches of a directory or glob are sorted by path. Files found several times are only
+     * returned once.
+     *
+     * @return List of data-config files
+     * @throws IOException exception while reading a list file or walking a directory
+     */
+    public List<File> resolveConfigFiles() throws IOException {
+        Set<File> configFiles = new LinkedHashSet<>();
+        for (String configSource : configSources) {
+            addConfigFiles(configSource, configFiles);
+        }
+        return new ArrayList<>(configFiles);
+    }
+
+    public List<String> getConfigSources() {
+        return configSources;
+    }
+
+    public String getConfigGlob() {
+        return configGlob;
+    }
+
+    /**
+     * @return number of parallel workers, at least 1
+     */
+    public int getJobs() {
+        return jobs > 0 ? jobs : Runtime.getRuntime().availableProcessors();
+    }
+
+    public boolean isDaemon() {
+        return daemon;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public int getIdleTimeoutSeconds() {
+        return idleTimeoutSeconds;
+    }
+
+    public boolean isWatch() {
+        return watch;
+    }
+
+    public boolean isForce() {
+        return force;
+    }
+
+    public boolean isDumpResolved() {
+        return dumpResolved;
+    }
+
+    /**
+     * @return the content package zip to generate, null to write the output folders
+     */
+    public Path getPackageFile() {
+        return packageFile;
+    }
+
+    /**
+     * @return the zip to write the output folders into, null to write them to the working directory
+     */
+    public Path getOutputZip() {
+        return outputZip;
+    }
+
+    /**
+     * @return the backup generation to restore, null to generate
+     */
+    public String getRestoreGeneration() {
+        return restoreGeneration;
+    }
+
+    public int getBackupRetention() {
+        return backupRetention;
+    }
+
+    public boolean isCompressBackups() {
+        return compressBackups;
+    }
+
+    /**
+     * @return the name of the folders copied into the component folders
+     */
+    public String getAppsDataCopyFolder() {
+        return appsDataCopyFolder;
+    }
+
+    /**
+     * Resolves the data-config sources to the directories containing them: a directory source itself,
+     * the root of a glob and the parent directory of a data-config file.
+     *
+     * @return absolute directories to watch for changes
+     * @throws IOException exception while reading a list file
+     */
+    public Set<Path> resolveWatchRoots() throws IOException {
+        Set<Path> watchRoots = new LinkedHashSet<>();
+        for (String configSource : configSources) {
+            addWatchRoots(configSource, watchRoots);
+        }
+        return watchRoots;
+    }
+
+    private void addConfigFiles(String configSource, Set<File> configFiles) throws IOException {
+        if (StringUtils.startsWith(configSource, LIST_FILE_PREFIX)) {
+            Path listFile = Paths.get(StringUtils.substringAfter(configSource, LIST_FILE_PREFIX));
+            for (String line : Files.readAllLines(listFile, StandardCharsets.UTF_8)) {
+                String listedSource = line.trim();
+                if (StringUtils.isNotEmpty(listedSource) && !listedSource.startsWith(LIST_FILE_COMMENT)) {
+                    addConfigFiles(listedSource, configFiles);
+                }
+            }
+        } else if (isGlob(configSource)) {
+            String globRoot = getGlobRoot(configSource);
+            String glob = StringUtils.removeStart(StringUtils.removeStart(configSource, globRoot), "/");
+            configFiles.addAll(findConfigFiles(Paths.get(StringUtils.defaultIfEmpty(globRoot, ".")), glob));
+        } else if (Files.isDirectory(Paths.get(configSource))) {
+            configFiles.addAll(findConfigFiles(Paths.get(configSource), configGlob));
+        } else {
+            configFiles.add(new File(configSource));
+        }
+    }
+
+    private void addWatchRoots(String configSource, Set<Path> watchRoots) throws IOException {
+        Path watchRoot;
+        if (StringUtils.startsWith(configSource, LIST_FILE_PREFIX)) {
+            Path listFile = Paths.get(StringUtils.substringAfter(configSource, LIST_FILE_PREFIX));
+            for (String line : Files.readAllLines(listFile, StandardCharsets.UTF_8)) {
+                String listedSource = line.trim();
+                if (StringUtils.isNotEmpty(listedSource) && !listedSource.startsWith(LIST_FILE_COMMENT)) {
+                    addWatchRoots(listedSource, watchRoots);
+                }
+            }
+            return;
+        } else if (isGlob(configSource)) {
+            watchRoot = Paths.get(StringUtils.defaultIfEmpty(getGlobRoot(configSource), "."));
+        } else if (Files.isDirectory(Paths.get(configSource))) {
+            watchRoot = Paths.get(configSource);
+        } else {
+            watchRoot = Paths.get(configSource).toAbsolutePath().getParent();
+        }
+        watchRoots.add(watchRoot.toAbsolutePath().normalize());
+    }
+
+    /**
+     * Walks the root directory and returns all files with a path relative to root matching the glob.
+     * Like node-glob a leading "**&#47;" also matches files directly below root.
+     *
+     * @param root directory to search in
+     * @param glob glob relative to root
+     * @return sorted list of matching files
+     * @throws IOException exception while walking the directory
+     */
+    static List<File> findConfigFiles(Path root, String glob) throws IOException {
+        PathMatcher matcher = root.getFileSystem().getPathMatcher("glob:" + glob);
+        PathMatcher rootLevelMatcher = StringUtils.startsWith(glob, RECURSIVE_GLOB_PREFIX) ?
+                root.getFileSystem().getPathMatcher("glob:" + glob.substring(RECURSIVE_GLOB_PREFIX.length())) :
+                matcher;
+        try (Stream<Path> paths = Files.walk(root)) {
+            return paths.filter(Files::isRegularFile)
+                    .filter(path -> matcher.matches(root.relativize(path)) ||
+                            rootLevelMatcher.matches(root.relativize(path)))
+                    .sorted()
+                    .map(Path::toFile)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static boolean isGlob(String configSource) {
+        return StringUtils.containsAny(configSource, '*', '?', '[', '{');
+    }
+
+    private static String getGlobRoot(String glob) {
+        List<String> rootSegments = new ArrayList<>();
+        for (String segment : StringUtils.splitPreserveAllTokens(glob, '/')) {
+            if (isGlob(segment)) {
+                break;
+            }
+            rootSegments.add(segment);
+        }
+        return StringUtils.join(rootSegments, '/');
+    }
+
+    private static int getIntOptionValue(String[] args, int index, String option) {
+        String value = getOptionValue(args, index, option);
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new GeneratorException("Option " + option + " requires a number but was " + value, e);
+        }
+    }
+
+    private static String getOptionValue(String[] args, int index, String option) {
+        if (index >= args.length || StringUtils.startsWith(args[index], "--")) {
+            throw new GeneratorException("Missing value for option " + option);
+        }
+        return args[index];
+    }
+}
@@ -0,0 +1,328 @@
+/*
+ * #%L
+ * AEM Component Generator
+ * %%
+ * Copyright (C) 2019 Adobe
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.adobe.aem.compgenerator;
+
+import com.adobe.aem.compgenerator.exceptions.GeneratorException;
+import com.adobe.aem.compgenerator.utils.CommonUtils;
+import com.adobe.aem.compgenerator.utils.JsonPathCache;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resident generator process accepting generation requests on a local TCP socket.
+ * <p>
+ * The daemon binds to the loopback interface only and keeps the JVM, and with it the JIT and all
+ * shared mappers and caches, warm between requests. The protocol is line based, every request
+ * is a single line JSON object answered by a single line JSON object:
+ * <pre>
+ * {"token":"...","command":"generate","configs":["path/to/data-config.json"],"glob":"**&#47;data-config*.json",
+ *  "jobs":2,"force":false,"dumpResolved":false}
+ * {"token":"...","command":"ping"}
+ * {"token":"...","command":"shutdown"}
+ * </pre>
+ * Every request carries the random token the daemon writes to <code>target/.generator-daemon.token</code> on start,
+ * a file only readable by its owner. A connection is closed after the first line that is not a JSON request with
+ * this token, so other local processes, e.g. a web page posting to the port, cannot execute requests.
+ * <p>
+ * Config paths are resolved like the command line sources (see {@link GeneratorArguments}), relative to
+ * the working directory of the daemon. A generate response contains <code>"status":"ok"</code> or
+ * <code>"failed"</code> and the per config <code>results</code>, an invalid request is answered with
+ * <code>"status":"error"</code> and a <code>message</code>.
+ * <p>
+ * Requests are processed one after another, so concurrent clients never write the same output at the
+ * same time. The daemon stops after the shutdown command or when no request arrived within the idle timeout.
+ */
+public class GeneratorDaemon {
+    private static final Logger LOG = LogManager.getLogger(GeneratorDaemon.class);
+
+    static final String COMMAND_GENERATE = "generate";
+    static final String COMMAND_PING = "ping";
+    static final String COMMAND_SHUTDOWN = "shutdown";
+
+    static final String STATUS_OK = "ok";
+    static final String STATUS_FAILED = "failed";
+    static final String STATUS_ERROR = "error";
+
+    static final Path DEFAULT_TOKEN_FILE = Paths.get("target", ".generator-daemon.token");
+    private static final int TOKEN_BYTES = 32;
+
+    private final int port;
+    private final long idleTimeoutMillis;
+    private final int defaultJobs;
+    private final int backupRetention;
+    private final boolean compressBackups;
+    private final String appsDataCopyFolder;
+    private final String token;
+    private volatile boolean running;
+
+    /**
+     * @param arguments the arguments of the daemon: the loopback port (0 picks a free port), the idle timeout
+     *                  (0 disables it), the parallel workers of requests not specifying <code>jobs</code> and
+     *                  the backup and apps-data-copy options of all requests
+     */
+    public GeneratorDaemon(GeneratorArguments arguments) {
+        this.port = arguments.getPort();
+        this.idleTimeoutMillis = TimeUnit.SECONDS.toMillis(arguments.getIdleTimeoutSeconds());
+        this.defaultJobs = arguments.getJobs();
+        this.backupRetention = arguments.getBackupRetention();
+        this.compressBackups = arguments.isCompressBackups();
+        this.appsDataCopyFolder = arguments.getAppsDataCopyFolder();
+        byte[] tokenBytes = new byte[TOKEN_BYTES];
+        new SecureRandom().nextBytes(tokenBytes);
+        this.token = CommonUtils.toHex(tokenBytes);
+        this.running = true;
+    }
+
+    /**
+     * @return the token required in every request
+     */
+    String getToken() {
+        return token;
+    }
+
+    /**
+     * @return false after the shutdown command or the idle timeout
+     */
+    boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Listens for requests until the shutdown command is received or the idle timeout elapsed.
+     *
+     * @throws IOException exception while opening the server socket
+     */
+    public void run() throws IOException {
+        try (ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            serverSocket.setSoTimeout((int) Math.min(idleTimeoutMillis, Integer.MAX_VALUE));
+            writeTokenFile(DEFAULT_TOKEN_FILE, token);
+            LOG.info("Generator daemon listening on {}:{}, token in {}", serverSocket.getInetAddress().getHostAddress(),
+                    serverSocket.getLocalPort(), DEFAULT_TOKEN_FILE);
+            running = true;
+            while (running) {
+                try (Socket socket = serverSocket.accept()) {
+                    handleConnection(socket);
+                } catch (SocketTimeoutException e) {
+                    LOG.info("Generator daemon idle for {} ms, shutting down.", idleTimeoutMillis);
+                    running = false;
+                } catch (IOException e) {
+                    LOG.error("Failed to handle generator daemon connection.", e);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(DEFAULT_TOKEN_FILE);
+        }
+        LOG.info("Generator daemon stopped.");
+    }
+
+    /**
+     * Writes the token to a new file only readable and writable by its owner.
+     *
+     * @param tokenFile the token file, replaced if it exists
+     * @param token     the token
+     * @throws IOException exception while writing the file
+     */
+    static void writeTokenFile(Path tokenFile, String token) throws IOException {
+        Path parent = tokenFile.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.deleteIfExists(tokenFile);
+        if (tokenFile.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            Files.createFile(tokenFile, PosixFilePermissions.asFileAttribute(
+                    PosixFilePermissions.fromString("rw-------")));
+        } else {
+            Files.createFile(tokenFile);
+            File file = tokenFile.toFile();
+            if (!(file.setReadable(false, false) && file.setReadable(true, true)
+                    && file.setWritable(false, false) && file.setWritable(true, true))) {
+                throw new GeneratorException("Failed to restrict the permissions of " + tokenFile);
+            }
+        }
+        Files.write(tokenFile, token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void handleConnection(Socket socket) throws IOException {
+        socket.setSoTimeout((int) Math.min(idleTimeoutMillis, Integer.MAX_VALUE));
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        BufferedWriter writer = new BufferedWriter(
+                new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+        String line;
+        while (running && (line = reader.readLine()) != null) {
+            if (StringUtils.isBlank(line)) {
+                continue;
+            }
+            DaemonRequest request;
+            try {
+                request = parseRequest(line);
+            } catch (GeneratorException e) {
+                LOG.warn("Rejected generator daemon request from {}: {}", socket.getRemoteSocketAddress(),
+                        e.getMessage());
+                writeResponse(writer, errorResponse(e));
+                return;
+            }
+            writeResponse(writer, handleRequest(request));
+        }
+    }
+
+    private static void writeResponse(BufferedWriter writer, Map<String, Object> response) throws IOException {
+        writer.write(CommonUtils.OBJECT_MAPPER.writeValueAsString(response));
+        writer.newLine();
+        writer.flush();
+    }
+
+    private static Map<String, Object> errorResponse(Exception e) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", STATUS_ERROR);
+        response.put("message", e.getMessage());
+        return response;
+    }
+
+    /**
+     * Parses a request line and checks its token.
+     *
+     * @param requestLine JSON request
+     * @return the request
+     * @throws GeneratorException when the line is not a JSON request or its token is missing or wrong
+     */
+    DaemonRequest parseRequest(String requestLine) {
+        DaemonRequest request;
+        try {
+            request = CommonUtils.OBJECT_MAPPER.readValue(requestLine, DaemonRequest.class);
+        } catch (IOException e) {
+            throw new GeneratorException("Invalid generator daemon request", e);
+        }
+        if (request == null || request.token == null || !MessageDigest.isEqual(
+                token.getBytes(StandardCharsets.UTF_8), request.token.getBytes(StandardCharsets.UTF_8))) {
+            throw new GeneratorException("Missing or invalid token, see " + DEFAULT_TOKEN_FILE);
+        }
+        return request;
+    }
+
+    /**
+     * Executes a single authenticated request.
+     *
+     * @param request the request returned by {@link #parseRequest(String)}
+     * @return the response object
+     */
+    Map<String, Object> handleRequest(DaemonRequest request) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        String command = StringUtils.defaultString(request.command, COMMAND_GENERATE);
+        try {
+            switch (command) {
+                case COMMAND_PING:
+                    response.put("status", STATUS_OK);
+                    response.put("jsonPathCache", JsonPathCache.getInstance().toString());
+                    break;
+                case COMMAND_SHUTDOWN:
+                    LOG.info("Generator daemon shutdown requested.");
+                    running = false;
+                    response.put("status", STATUS_OK);
+                    break;
+                case COMMAND_GENERATE:
+                    List<GenerationResult> results = generate(request);
+                    boolean failed = results.stream().anyMatch(GenerationResult::isFailed);
+                    response.put("status", failed ? STATUS_FAILED : STATUS_OK);
+                    response.put("results", results);
+                    break;
+                default:
+                    throw new GeneratorException("Unknown command " + command);
+            }
+        } catch (Exception e) {
+            LOG.error("Failed to handle generator daemon " + command + " request", e);
+            return errorResponse(e);
+        }
+        return response;
+    }
+
+    private List<GenerationResult> generate(DaemonRequest request) throws IOException {
+        List<String> args = new ArrayList<>();
+        if (request.glob != null) {
+            args.add("--glob");
+            args.add(request.glob);
+        }
+        args.add("--jobs");
+        args.add(String.valueOf(request.jobs != null ? request.jobs : defaultJobs));
+        if (request.force) {
+            args.add("--force");
+        }
+        if (request.dumpResolved) {
+            args.add("--dump-resolved");
+        }
+        args.add("--backup-retention");
+        args.add(String.valueOf(backupRetention));
+        if (compressBackups) {
+            args.add("--compress-backups");
+        }
+        args.add("--apps-data-copy");
+        args.add(appsDataCopyFolder);
+        if (request.configs != null) {
+            args.addAll(request.configs);
+        }
+        GeneratorArguments arguments = GeneratorArguments.parse(args.toArray(new String[0]));
+        List<File> configFiles = arguments.resolveConfigFiles();
+        if (configFiles.isEmpty()) {
+            throw new GeneratorException("No data-config found for " + arguments.getConfigSources());
+        }
+        BatchGenerator batchGenerator = new BatchGenerator(arguments, FileSystems.getDefault());
+        List<GenerationResult> results = batchGenerator.generate(configFiles);
+        AemCompGenerator.logSummary(results);
+        return results;
+    }
+
+    /**
+     * JSON request of the daemon protocol.
+     */
+    static class DaemonRequest {
+        public String token;
+        public String command;
+        public List<String> configs;
+        public String glob;
+        public Integer jobs;
+        public boolean force;
+        public boolean dumpResolved;
+    }
+}
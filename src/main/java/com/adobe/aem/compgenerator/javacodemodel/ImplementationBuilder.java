@@ -22,6 +22,7 @@ package com.adobe.aem.compgenerator.javacodemodel;
 import com.adobe.acs.commons.models.injectors.annotation.ChildResourceFromRequest;
 import com.adobe.acs.commons.models.injectors.annotation.SharedValueMapValue;
 import com.adobe.aem.compgenerator.Constants;
+import com.adobe.aem.compgenerator.exceptions.GeneratorException;
 import com.adobe.aem.compgenerator.models.GenerationConfig;
 import com.adobe.aem.compgenerator.models.Property;
 import com.adobe.cq.export.json.ComponentExporter;
@@ -35,14 +36,20 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.models.annotations.Default;
 import org.apache.sling.models.annotations.Exporter;
 import org.apache.sling.models.annotations.Model;
+import org.apache.sling.models.annotations.Via;
 import org.apache.sling.models.annotations.injectorspecific.InjectionStrategy;
 import org.apache.sling.models.annotations.injectorspecific.SlingObject;
 import org.apache.sling.models.annotations.injectorspecific.ValueMapValue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -55,6 +62,11 @@ public class ImplementationBuilder extends JavaCodeBuilder {
     private static final String OPTIONAL_INJECTION_STRATEGY = "OPTIONAL";
     private static final String SLING_MODEL_EXPORTER_NAME = "SLING_MODEL_EXPORTER_NAME";
     private static final String SLING_MODEL_EXTENSION = "SLING_MODEL_EXTENSION";
+    private static final String RESOURCE_FIELD = "resource";
+    private static final String REQUEST_FIELD = "request";
+    private static final String RESOURCE_TYPE_CONSTANT = "RESOURCE_TYPE";
+    private static final String POST_CONSTRUCT = "javax.annotation.PostConstruct";
+    private static final String PATH_REQUEST_WRAPPER = "com.adobe.acs.commons.util.OverridePathSlingRequestWrapper";
 
     private final String className;
     private final JClass interfaceClass;
@@ -62,31 +74,42 @@ public class ImplementationBuilder extends JavaCodeBuilder {
     private final String[] adaptables;
     private final boolean isAllowExporting;
     private final boolean isAllowExportingExportedType;
+    private final boolean isModelCache;
+    private final boolean isModelFastPath;
+    private final boolean isLazyChildModels;
 
     private Map<String, Boolean> fieldJsonExposeMap = new HashMap<>();
     private Map<String, String> fieldJsonPropertyMap = new HashMap<>();
+    // fields read in the @PostConstruct method of their class, with their properties
+    private Map<JDefinedClass, Map<JFieldVar, Property>> valueMapReads = new HashMap<>();
+    // child resource fields resolved by their getter, with the names of the child resources
+    private Map<JFieldVar, String> lazyChildren = new HashMap<>();
 
     /**
      * Construct a new Sling Model implementation class.
      *
-     * @param codeModel        ..
+     * @param sharedModel      ..
      * @param generationConfig ..
      * @param className        ..
      * @param interfaceClass   ..
      */
-    ImplementationBuilder(JCodeModel codeModel, GenerationConfig generationConfig, String className,
+    ImplementationBuilder(SharedCodeModel sharedModel, GenerationConfig generationConfig, String className,
                           JClass interfaceClass) {
-        super(codeModel, generationConfig);
+        super(sharedModel, generationConfig);
         this.className = className;
         this.interfaceClass = interfaceClass;
         this.implPackage = codeModel._package(generationConfig.getProjectSettings().getModelImplPackage());
         this.adaptables = generationConfig.getOptions().getModelAdaptables();
         this.isAllowExporting = generationConfig.getOptions().isAllowExporting();
         this.isAllowExportingExportedType = generationConfig.getOptions().isAllowExportingTypeField();
+        this.isModelCache = generationConfig.getOptions().isModelCache();
+        this.isModelFastPath = generationConfig.getOptions().isModelFastPath();
+        this.isLazyChildModels = generationConfig.getOptions().isLazyChildModels();
     }
 
     public void build(String resourceType) throws JClassAlreadyExistsException {
-        JDefinedClass jc = this.implPackage._class(this.className)._implements(this.interfaceClass);
+        JDefinedClass jc = sharedModel.defineClass(generationConfig, this.implPackage, this.className, ClassType.CLASS)
+                ._implements(this.interfaceClass);
         addSlingAnnotations(jc, this.interfaceClass, resourceType);
 
         addFieldVars(jc, globalProperties, false);
@@ -94,7 +117,8 @@ public class ImplementationBuilder extends JavaCodeBuilder {
         addFieldVars(jc, privateProperties, false);
 
         addGetters(jc);
-        addExportedTypeMethod(jc);
+        addPostConstructMethod(jc);
+        addExportedTypeMethod(jc, resourceType);
     }
 
     private void addSlingAnnotations(JDefinedClass jDefinedClass, JClass adapterClass, String resourceType) {
@@ -116,6 +140,9 @@ public class ImplementationBuilder extends JavaCodeBuilder {
         if (StringUtils.isNotBlank(resourceType)) {
             jAUse.param("resourceType", resourceType);
         }
+        if (this.isModelCache) {
+            jAUse.param("cache", true);
+        }
         if (this.isAllowExporting) {
             jAUse = jDefinedClass.annotate(codeModel.ref(Exporter.class));
             jAUse.param("name", codeModel.ref(ExporterConstants.class).staticRef(SLING_MODEL_EXPORTER_NAME));
@@ -167,20 +194,33 @@ public class ImplementationBuilder extends JavaCodeBuilder {
      */
     private void addPropertyAsValueMap(JDefinedClass jc, Property property) {
         LOG.debug("addPropertyAsValueMap for property.getField [{}]", property.getField());
-        String fieldType = JavaCodeModel.getFieldType(property);
+        String fieldType = getFieldType(property);
         if (property.getUseExistingField() || fieldType == null) {
             return;
         }
-        JClass fieldClass = property.getTypeAsFieldType().equals(Property.FieldType.MULTIFIELD) ?
+        JType fieldClass = property.getTypeAsFieldType().equals(Property.FieldType.MULTIFIELD) ?
                 codeModel.ref(fieldType)
                         .narrow(codeModel.ref(JavaCodeModel.getFieldType(property.getItems().get(0)))) :
-                codeModel.ref(fieldType);
+                getType(fieldType);
         JFieldVar jFieldVar = jc.field(PRIVATE, fieldClass, property.getField());
+        String annotationFieldName = getAnnotationFieldName(generationConfig, property);
+        // shared and global properties keep their injection, addFieldVars marks every property as child resource
+        if (this.isModelFastPath && !property.getTypeAsFieldType().equals(Property.FieldType.IMAGE) &&
+                !Property.PropertyType.GLOBAL.equals(property.getPropertyType()) &&
+                !Property.PropertyType.SHARED.equals(property.getPropertyType())) {
+            valueMapReads.computeIfAbsent(jc, key -> new LinkedHashMap<>()).put(jFieldVar, property);
+            setupFieldGetterAnnotations(jFieldVar, property);
+            return;
+        }
+        if (this.isLazyChildModels && property.getTypeAsFieldType().equals(Property.FieldType.IMAGE)) {
+            addLazyChild(jc, jFieldVar, property);
+            return;
+        }
         JAnnotationUse param;
         if (property.getTypeAsFieldType().equals(Property.FieldType.IMAGE)) {
             param = jFieldVar.annotate(codeModel.ref(ChildResourceFromRequest.class)).param(INJECTION_STRATEGY,
                     codeModel.ref(InjectionStrategy.class).staticRef(OPTIONAL_INJECTION_STRATEGY));
-
+            warnIfUnsafeToCache(jc, property);
         } else if (Property.PropertyType.PRIVATE.equals(property.getPropertyType()) || property.isChildResource()) {
             //Current implementation does not support child resources other than private
             param = jFieldVar.annotate(codeModel.ref(ValueMapValue.class)).param(INJECTION_STRATEGY,
@@ -189,8 +229,16 @@ public class ImplementationBuilder extends JavaCodeBuilder {
             param = jFieldVar.annotate(codeModel.ref(SharedValueMapValue.class)).param(INJECTION_STRATEGY,
                     codeModel.ref(InjectionStrategy.class).staticRef(OPTIONAL_INJECTION_STRATEGY));
         }
-        String annotationFieldName = getAnnotationFieldName(generationConfig, property);
         param.param(INJECTION_NAME, annotationFieldName);
+        if (fieldClass.isPrimitive()) {
+            addDefaultAnnotation(jFieldVar, property);
+        }
+        if (this.isModelCache && hasAdaptable("request") && !hasAdaptable("resource") &&
+                !property.getTypeAsFieldType().equals(Property.FieldType.IMAGE)) {
+            // the value map of the resource does not depend on the request, the field is injected the same way
+            // for every adaptation of the cached model. A resource has no resource to go via.
+            jFieldVar.annotate(codeModel.ref(Via.class)).param("value", "resource");
+        }
 
         setupFieldGetterAnnotations(jFieldVar, property);
     }
@@ -206,7 +254,7 @@ public class ImplementationBuilder extends JavaCodeBuilder {
             buildChildImplementation(property.getItems(), modelClassName);
         }
 
-        String fieldType = JavaCodeModel.getFieldType(property);
+        String fieldType = getFieldType(property);
         if (fieldType != null) {
             String absolutModelClassName = JavaCodeModel
                     .getFullyQualifiedModelClassName(generationConfig.getProjectSettings(), modelClassName);
@@ -220,6 +268,11 @@ public class ImplementationBuilder extends JavaCodeBuilder {
                 fieldClass = codeModel.ref(fieldType).narrow(narrowedClass);
             }
             JFieldVar jFieldVar = jc.field(PRIVATE, fieldClass, property.getField());
+            if (this.isLazyChildModels) {
+                addLazyChild(jc, jFieldVar, property);
+                return;
+            }
+            warnIfUnsafeToCache(jc, property);
             jFieldVar.annotate(codeModel.ref(ChildResourceFromRequest.class)).param(INJECTION_STRATEGY,
                     codeModel.ref(InjectionStrategy.class).staticRef(OPTIONAL_INJECTION_STRATEGY)).
                     param(INJECTION_NAME, getAnnotationFieldName(generationConfig, property));
@@ -227,18 +280,54 @@ public class ImplementationBuilder extends JavaCodeBuilder {
         }
     }
 
+    /**
+     * Records a child resource field resolved by its getter, the field is not injected.
+     *
+     * @param jc        the model class
+     * @param jFieldVar the field of the child model or the list of child models
+     * @param property  the property of the field
+     */
+    private void addLazyChild(JDefinedClass jc, JFieldVar jFieldVar, Property property) {
+        warnIfUnsafeToCache(jc, property);
+        lazyChildren.put(jFieldVar, StringUtils.defaultString(getAnnotationFieldName(generationConfig, property),
+                property.getField()));
+        setupFieldGetterAnnotations(jFieldVar, property);
+    }
+
+    /**
+     * Warns about a field injected from the request of a cached model adaptable from a resource. The model
+     * cached for the resource keeps the child models of the first request.
+     *
+     * @param jc       the model class
+     * @param property the property of the field
+     */
+    private void warnIfUnsafeToCache(JDefinedClass jc, Property property) {
+        if (this.isModelCache && hasAdaptable("resource")) {
+            LOG.warn("model-cache of [{}]: field [{}] is injected from the request, caching the model adapted "
+                    + "from a resource is unsafe", jc.fullName(), property.getField());
+        }
+    }
+
+    private boolean hasAdaptable(String adaptable) {
+        for (String modelAdaptable : adaptables) {
+            if (adaptable.equalsIgnoreCase(modelAdaptable)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * adds getters to all the fields available in the java class.
      *
      * @param jc ..
      */
     private void addGetters(JDefinedClass jc) {
-        Map<String, JFieldVar> fieldVars = jc.fields();
-        if (!fieldVars.isEmpty()) {
-            for (Map.Entry<String, JFieldVar> entry : fieldVars.entrySet()) {
-                if (entry.getValue() != null) {
-                    addGetter(jc, entry.getValue());
-                }
+        // lazy getters add the injected resource and request, they get no getters
+        List<JFieldVar> fieldVars = new ArrayList<>(jc.fields().values());
+        for (JFieldVar fieldVar : fieldVars) {
+            if (fieldVar != null) {
+                addGetter(jc, fieldVar);
             }
         }
     }
@@ -265,7 +354,10 @@ public class ImplementationBuilder extends JavaCodeBuilder {
         }
 
 
-        if (jFieldVar.type().erasure().fullName().equals(List.class.getName())) {
+        String childName = lazyChildren.remove(jFieldVar);
+        if (childName != null) {
+            addLazyGetterBody(jc, jFieldVar, childName, getMethod.body());
+        } else if (jFieldVar.type().erasure().fullName().equals(List.class.getName())) {
             JExpression condition = new IsNullExpression(jFieldVar, false);
             JExpression ifTrue = codeModel.ref(Collections.class).staticInvoke("unmodifiableList").arg(jFieldVar);
             JExpression ifFalse = JExpr._null();
@@ -275,6 +367,60 @@ public class ImplementationBuilder extends JavaCodeBuilder {
         }
     }
 
+    /**
+     * Resolves the child resource on the first call and keeps the adapted child model, or the unmodifiable list
+     * of the models of its children, in the field.
+     *
+     * @param jc        the model class
+     * @param jFieldVar the lazy field
+     * @param childName the name of the child resource
+     * @param body      the body of the getter
+     */
+    private void addLazyGetterBody(JDefinedClass jc, JFieldVar jFieldVar, String childName, JBlock body) {
+        JClass fieldClass = (JClass) jFieldVar.type();
+        JFieldRef field = JExpr._this().ref(jFieldVar);
+        JClass resourceClass = codeModel.ref(Resource.class);
+        JBlock unresolved = body._if(JOp.eq(field, JExpr._null()))._then();
+        JVar child = unresolved.decl(resourceClass, "child", getResourceField(jc).invoke("getChild").arg(childName));
+        if (fieldClass.erasure().fullName().equals(List.class.getName())) {
+            JClass modelClass = fieldClass.getTypeParameters().get(0);
+            JVar models = unresolved.decl(codeModel.ref(List.class).narrow(modelClass), "models",
+                    JExpr._new(codeModel.ref(ArrayList.class).narrow(modelClass)));
+            JForEach forEach = unresolved._if(JOp.ne(child, JExpr._null()))._then()
+                    .forEach(resourceClass, "item", child.invoke("getChildren"));
+            JVar model = forEach.body().decl(modelClass, "model", adaptChild(jc, forEach.var(), modelClass));
+            forEach.body()._if(JOp.ne(model, JExpr._null()))._then().invoke(models, "add").arg(model);
+            unresolved.assign(field, codeModel.ref(Collections.class).staticInvoke("unmodifiableList").arg(models));
+        } else {
+            // a missing child is resolved again on the next call
+            unresolved._if(JOp.ne(child, JExpr._null()))._then().assign(field, adaptChild(jc, child, fieldClass));
+        }
+        body._return(field);
+    }
+
+    /**
+     * Adapts a child resource like <code>@ChildResourceFromRequest</code>, a model adaptable from the request is
+     * adapted from a request wrapper with the path of the child resource.
+     *
+     * @param jc         the model class
+     * @param child      the child resource
+     * @param modelClass the class of the child model
+     * @return the expression adapting the child
+     */
+    private JExpression adaptChild(JDefinedClass jc, JVar child, JClass modelClass) {
+        JExpression fromResource = child.invoke("adaptTo").arg(modelClass.dotclass());
+        if (!hasAdaptable("request")) {
+            return fromResource;
+        }
+        JFieldVar request = getRequestField(jc);
+        JExpression fromRequest = JExpr._new(codeModel.ref(PATH_REQUEST_WRAPPER)).arg(request)
+                .arg(child.invoke("getPath")).invoke("adaptTo").arg(modelClass.dotclass());
+        if (!hasAdaptable("resource")) {
+            return fromRequest;
+        }
+        return new TernaryOperator(JOp.ne(request, JExpr._null()), fromRequest, fromResource);
+    }
+
     /**
      * builds method name out of field variable.
      *
@@ -294,14 +440,15 @@ public class ImplementationBuilder extends JavaCodeBuilder {
                 String absolutModelClassName = JavaCodeModel
                         .getFullyQualifiedModelClassName(generationConfig.getProjectSettings(), modelClassName);
                 JClass childInterfaceClass = codeModel.ref(absolutModelClassName);
-                JDefinedClass implClass =
-                        this.implPackage._class(StringUtils.substringAfterLast(absolutModelClassName, ".") + "Impl")
-                                ._implements(childInterfaceClass);
+                JDefinedClass implClass = sharedModel.defineClass(generationConfig, this.implPackage,
+                        StringUtils.substringAfterLast(absolutModelClassName, ".") + "Impl", ClassType.CLASS)
+                        ._implements(childInterfaceClass);
                 addSlingAnnotations(implClass, childInterfaceClass, null);
                 // Child properties are marked as ChildResource and can be handled properly later
                 addFieldVars(implClass, properties, false);
                 addGetters(implClass);
-                addExportedTypeMethod(implClass);
+                addPostConstructMethod(implClass);
+                addExportedTypeMethod(implClass, null);
             } catch (JClassAlreadyExistsException ex) {
                 LOG.error("Failed to generate child implementation classes.", ex);
             }
@@ -321,20 +468,169 @@ public class ImplementationBuilder extends JavaCodeBuilder {
         this.fieldJsonPropertyMap.put(jFieldVar.name(), fieldJsonPropertyValue);
     }
 
-    private void addExportedTypeMethod(JDefinedClass jc) {
+    /**
+     * Adds the <code>init</code> method reading the fields of the fast path from the value map of the resource,
+     * the resource is injected once instead of one injection per field.
+     *
+     * @param jc the model class
+     */
+    private void addPostConstructMethod(JDefinedClass jc) {
+        Map<JFieldVar, Property> reads = valueMapReads.remove(jc);
+        if (reads == null) {
+            return;
+        }
+        JMethod method = jc.method(JMod.PROTECTED, codeModel.VOID, "init");
+        method.annotate(codeModel.ref(POST_CONSTRUCT));
+        JBlock body = method.body();
+        JVar valueMap = body.decl(codeModel.ref(ValueMap.class), "valueMap",
+                getResourceField(jc).invoke("getValueMap"));
+        for (Map.Entry<JFieldVar, Property> read : reads.entrySet()) {
+            JFieldVar jFieldVar = read.getKey();
+            Property property = read.getValue();
+            String name = StringUtils.defaultString(getAnnotationFieldName(generationConfig, property),
+                    property.getField());
+            if (jFieldVar.type().isPrimitive()) {
+                // the default decides the type of the value, it is unboxed into the field
+                body.assign(JExpr._this().ref(jFieldVar), valueMap.invoke("get").arg(name)
+                        .arg(getDefaultLiteral(jFieldVar.type(), property)));
+                continue;
+            }
+            JClass fieldClass = (JClass) jFieldVar.type();
+            if (fieldClass.erasure().fullName().equals(List.class.getName())) {
+                // multi value properties are stored as arrays
+                JClass arrayClass = fieldClass.getTypeParameters().get(0).array();
+                JVar values = body.decl(arrayClass, jFieldVar.name() + "Values",
+                        valueMap.invoke("get").arg(name).arg(arrayClass.dotclass()));
+                body.assign(JExpr._this().ref(jFieldVar), new TernaryOperator(JOp.ne(values, JExpr._null()),
+                        codeModel.ref(Arrays.class).staticInvoke("asList").arg(values), JExpr._null()));
+            } else {
+                body.assign(JExpr._this().ref(jFieldVar),
+                        valueMap.invoke("get").arg(name).arg(fieldClass.dotclass()));
+            }
+        }
+    }
+
+    /**
+     * Adds <code>@Default</code> to a primitive field, a missing optional value would be 0 or false otherwise.
+     *
+     * @param jFieldVar the primitive field
+     * @param property  the property of the field
+     */
+    private void addDefaultAnnotation(JFieldVar jFieldVar, Property property) {
+        JAnnotationUse defaultUse = jFieldVar.annotate(codeModel.ref(Default.class));
+        Object defaultValue = getPrimitiveDefault(jFieldVar.type(), property);
+        if (defaultValue instanceof Boolean) {
+            defaultUse.param("booleanValues", (Boolean) defaultValue);
+        } else if (defaultValue instanceof Double) {
+            defaultUse.param("doubleValues", (Double) defaultValue);
+        } else {
+            defaultUse.param("longValues", (Long) defaultValue);
+        }
+    }
+
+    private JExpression getDefaultLiteral(JType type, Property property) {
+        Object defaultValue = getPrimitiveDefault(type, property);
+        if (defaultValue instanceof Boolean) {
+            return JExpr.lit((Boolean) defaultValue);
+        } else if (defaultValue instanceof Double) {
+            return JExpr.lit((Double) defaultValue);
+        }
+        return JExpr.lit((Long) defaultValue);
+    }
+
+    /**
+     * @param type     the primitive type of the field
+     * @param property the property of the field
+     * @return the <code>default</code> attribute of the property as value of the type, 0 or false without default
+     */
+    private static Object getPrimitiveDefault(JType type, Property property) {
+        String defaultValue = StringUtils.trimToNull(property.getDefaultValue());
+        try {
+            switch (type.name()) {
+                case "boolean":
+                    return Boolean.parseBoolean(defaultValue);
+                case "double":
+                    return defaultValue != null ? Double.parseDouble(defaultValue) : 0d;
+                default:
+                    return defaultValue != null ? Long.parseLong(defaultValue) : 0L;
+            }
+        } catch (NumberFormatException e) {
+            throw new GeneratorException("Invalid default [" + defaultValue + "] of the " + type.name() +
+                    " field [" + property.getField() + "]", e);
+        }
+    }
+
+    /**
+     * Adds <code>getExportedType</code>, returning the type of the injected resource. With
+     * <code>model-fast-path</code> the resource type of a component model is a constant.
+     *
+     * @param jc           the model class
+     * @param resourceType the resource type of the component, null for child models
+     */
+    private void addExportedTypeMethod(JDefinedClass jc, String resourceType) {
         if (this.isAllowExporting) {
-            JFieldVar jFieldVar = jc.field(PRIVATE, codeModel.ref(Resource.class), "resource");
-            jFieldVar.annotate(codeModel.ref(SlingObject.class));
+            JFieldVar resourceField = getResourceField(jc);
             JMethod method = jc.method(JMod.PUBLIC, codeModel.ref(String.class), "getExportedType");
             method.annotate(codeModel.ref(Override.class));
-            if (this.isAllowExportingExportedType) {
-                method.body()._return(jFieldVar.invoke("getResourceType"));
-            } else {
+            if (!this.isAllowExportingExportedType) {
                 method.body()._return(JExpr._null());
+            } else if (this.isModelFastPath && StringUtils.isNotBlank(resourceType)) {
+                JFieldVar constant = jc.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, codeModel.ref(String.class),
+                        RESOURCE_TYPE_CONSTANT, JExpr.lit(resourceType));
+                method.body()._return(constant);
+            } else {
+                method.body()._return(resourceField.invoke("getResourceType"));
             }
         }
     }
 
+    /**
+     * @param jc the model class
+     * @return the field of the injected resource, created on first use
+     */
+    private JFieldVar getResourceField(JDefinedClass jc) {
+        JFieldVar jFieldVar = getReservedField(jc, RESOURCE_FIELD, Resource.class);
+        if (jFieldVar == null) {
+            jFieldVar = jc.field(PRIVATE, codeModel.ref(Resource.class), RESOURCE_FIELD);
+            jFieldVar.annotate(codeModel.ref(SlingObject.class));
+        }
+        return jFieldVar;
+    }
+
+    /**
+     * @param jc the model class
+     * @return the field of the injected request, optional when the model is also adaptable from a resource
+     */
+    private JFieldVar getRequestField(JDefinedClass jc) {
+        JFieldVar jFieldVar = getReservedField(jc, REQUEST_FIELD, SlingHttpServletRequest.class);
+        if (jFieldVar == null) {
+            jFieldVar = jc.field(PRIVATE, codeModel.ref(SlingHttpServletRequest.class), REQUEST_FIELD);
+            JAnnotationUse slingObject = jFieldVar.annotate(codeModel.ref(SlingObject.class));
+            if (hasAdaptable("resource")) {
+                slingObject.param(INJECTION_STRATEGY,
+                        codeModel.ref(InjectionStrategy.class).staticRef(OPTIONAL_INJECTION_STRATEGY));
+            }
+        }
+        return jFieldVar;
+    }
+
+    /**
+     * @param jc        the model class
+     * @param name      the reserved field name
+     * @param fieldType the type of the injected object
+     * @return the field injecting the object, null when it was not created yet
+     * @throws GeneratorException a property uses the reserved field name
+     */
+    private JFieldVar getReservedField(JDefinedClass jc, String name, Class<?> fieldType) {
+        JFieldVar jFieldVar = jc.fields().get(name);
+        if (jFieldVar != null && !jFieldVar.type().fullName().equals(fieldType.getName())) {
+            throw new GeneratorException("The field '" + name + "' of " + jc.fullName() + " is reserved for the " +
+                    "injected " + fieldType.getSimpleName() + ", rename the property in " +
+                    generationConfig.getConfigFilePath());
+        }
+        return jFieldVar;
+    }
+
     private static String getAnnotationFieldName(GenerationConfig generationConfig, Property property) {
         String nameForField = property.getName();
         if (nameForField != null) {
@@ -20,6 +20,7 @@
 package com.adobe.aem.compgenerator.javacodemodel;
 
 import com.adobe.aem.compgenerator.Constants;
+import com.adobe.aem.compgenerator.exceptions.GeneratorException;
 import com.adobe.aem.compgenerator.models.GenerationConfig;
 import com.adobe.aem.compgenerator.models.Property;
 import com.adobe.aem.compgenerator.utils.CommonUtils;
@@ -35,7 +36,6 @@ import org.apache.logging.log4j.Logger;
 
 import java.util.List;
 
-import static com.adobe.aem.compgenerator.javacodemodel.JavaCodeModel.getFieldType;
 import static com.sun.codemodel.JMod.NONE;
 
 /**
@@ -52,12 +52,12 @@ public class InterfaceBuilder extends JavaCodeBuilder {
     /**
      * Construct a interface class builder
      *
-     * @param codeModel        The {@link JCodeModel codeModel}
+     * @param sharedModel      The {@link SharedCodeModel sharedModel}
      * @param generationConfig The {@link GenerationConfig generationConfig}
      * @param interfaceName    The name of the interface
      */
-    InterfaceBuilder(JCodeModel codeModel, GenerationConfig generationConfig, String interfaceName) {
-        super(codeModel, generationConfig);
+    InterfaceBuilder(SharedCodeModel sharedModel, GenerationConfig generationConfig, String interfaceName) {
+        super(sharedModel, generationConfig);
         this.interfaceClassName = interfaceName;
         this.isAllowExporting = generationConfig.getOptions().isAllowExporting();
     }
@@ -123,6 +123,8 @@ public class InterfaceBuilder extends JavaCodeBuilder {
                                 buildMultifieldInterface(property, jc);
                             }
                         }
+                    } catch (GeneratorException e) {
+                        throw e;
                     } catch (Exception e) {
                         LOG.error("Failed to generate getter for [" + property.getModelName() + "] getter [" +
                                 property.getFieldGetterName() + "]", e);
@@ -153,7 +155,8 @@ public class InterfaceBuilder extends JavaCodeBuilder {
             if (interfaceClass == null) {
                 JPackage jPackage =
                         codeModel._package(generationConfig.getProjectSettings().getModelInterfacePackage());
-                interfaceClassLocal = jPackage._interface(interfaceName);
+                interfaceClassLocal =
+                        sharedModel.defineClass(generationConfig, jPackage, interfaceName, ClassType.INTERFACE);
                 interfaceClassLocal.javadoc().append(comment);
                 interfaceClassLocal.annotate(codeModel.ref("org.osgi.annotation.versioning.ConsumerType"));
 
@@ -167,6 +170,9 @@ public class InterfaceBuilder extends JavaCodeBuilder {
                 }
             }
             return interfaceClassLocal;
+        } catch (GeneratorException e) {
+            // duplicate class of another component
+            throw e;
         } catch (Exception e) {
             LOG.error("Failed to generate child interface for '" + interfaceName + "' and comment '" + comment + "'.",
                     e);
@@ -190,7 +196,8 @@ public class InterfaceBuilder extends JavaCodeBuilder {
                     property.getTypeAsFieldType().equals(Property.FieldType.HIDDEN_MULTIFIELD);
             if (isMultifield || isHiddenMultifield) {
                 if (isMultifield && property.getItems().size() == 1) {
-                    return codeModel.ref(fieldType).narrow(codeModel.ref(getFieldType(property.getItems().get(0))));
+                    return codeModel.ref(fieldType)
+                            .narrow(codeModel.ref(JavaCodeModel.getFieldType(property.getItems().get(0))));
                 } else {
                     String narrowedClassName = StringUtils.defaultString(property.getModelName(),
                             CaseUtils.toCamelCase(property.getField(), true) + "Multifield");
@@ -199,7 +206,7 @@ public class InterfaceBuilder extends JavaCodeBuilder {
                     return codeModel.ref(fieldType).narrow(codeModel.ref(narrowedClassName));
                 }
             } else {
-                return codeModel.ref(fieldType);
+                return getType(fieldType);
             }
         }
         return null;
@@ -22,6 +22,7 @@ package com.adobe.aem.compgenerator.javacodemodel;
 import com.adobe.aem.compgenerator.models.GenerationConfig;
 import com.adobe.aem.compgenerator.models.Property;
 import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JType;
 import org.apache.commons.lang3.StringUtils;
 
 import java.util.Collections;
@@ -33,15 +34,19 @@ import java.util.stream.Collectors;
 
 public abstract class JavaCodeBuilder {
 
+    protected final SharedCodeModel sharedModel;
     protected final JCodeModel codeModel;
     protected final GenerationConfig generationConfig;
     protected final List<Property> globalProperties;
     protected final List<Property> sharedProperties;
     protected final List<Property> privateProperties;
+    protected final boolean primitiveTypes;
 
-    protected JavaCodeBuilder(JCodeModel codeModel, GenerationConfig generationConfig) {
-        this.codeModel = codeModel;
+    protected JavaCodeBuilder(SharedCodeModel sharedModel, GenerationConfig generationConfig) {
+        this.sharedModel = sharedModel;
+        this.codeModel = sharedModel.getCodeModel();
         this.generationConfig = generationConfig;
+        this.primitiveTypes = generationConfig.getOptions().isPrimitiveTypes();
 
         Set<Property> occurredProperties = new HashSet<>();
 
@@ -54,6 +59,23 @@ public abstract class JavaCodeBuilder {
         this.privateProperties = filterProperties(occurredProperties, generationConfig.getOptions().getProperties(), Property.PropertyType.PRIVATE);
     }
 
+    /**
+     * @param property the property definition
+     * @return the java fieldType of the property, primitive if asked for, see
+     * {@link JavaCodeModel#getFieldType(Property, boolean)}
+     */
+    protected String getFieldType(Property property) {
+        return JavaCodeModel.getFieldType(property, primitiveTypes);
+    }
+
+    /**
+     * @param fieldType the java fieldType
+     * @return the primitive type or the class of the fieldType
+     */
+    protected JType getType(String fieldType) {
+        return JavaCodeModel.isPrimitiveType(fieldType) ? JType.parse(codeModel, fieldType) : codeModel.ref(fieldType);
+    }
+
     /**
      * Filters the given properties for invalid fields and returns all that are not contained in occurredProperties.
      *
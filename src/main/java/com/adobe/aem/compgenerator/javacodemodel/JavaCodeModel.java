@@ -19,12 +19,11 @@
  */
 package com.adobe.aem.compgenerator.javacodemodel;
 
+import com.adobe.aem.compgenerator.exceptions.GeneratorException;
 import com.adobe.aem.compgenerator.models.GenerationConfig;
-import com.adobe.aem.compgenerator.models.OptionTemplateTxt;
 import com.adobe.aem.compgenerator.models.ProjectSettings;
 import com.adobe.aem.compgenerator.models.Property;
 import com.adobe.aem.compgenerator.utils.CommonUtils;
-import com.sun.codemodel.CodeWriter;
 import com.sun.codemodel.JClassAlreadyExistsException;
 import com.sun.codemodel.JCodeModel;
 import com.sun.codemodel.JDefinedClass;
@@ -33,8 +32,8 @@ import org.apache.commons.text.CaseUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
 
 /**
@@ -53,11 +52,15 @@ import java.util.List;
  * <p>
  * JavaCodeModel creates source code of your sling-model interface and implementation
  * using user data config configuration object.
+ * <p>
+ * Within a batch the classes are built into the {@link SharedCodeModel} of the batch and written by
+ * {@link SharedCodeModel#emit(SharedCodeModel.EmitListener)} once all components are built.
  */
 public class JavaCodeModel {
     private static final Logger LOG = LogManager.getLogger(JavaCodeModel.class);
 
-    private final JCodeModel codeModel;
+    private final SharedCodeModel sharedModel;
+    private final boolean emit;
 
     private GenerationConfig generationConfig;
     private JDefinedClass jc;
@@ -67,7 +70,16 @@ public class JavaCodeModel {
     private List<Property> privateProperties;
 
     public JavaCodeModel() {
-        this.codeModel = new JCodeModel();
+        this.sharedModel = new SharedCodeModel();
+        this.emit = true;
+    }
+
+    /**
+     * @param sharedModel the model of the batch, the classes are written when the model is emitted
+     */
+    public JavaCodeModel(SharedCodeModel sharedModel) {
+        this.sharedModel = sharedModel;
+        this.emit = false;
     }
 
     /**
@@ -81,15 +93,24 @@ public class JavaCodeModel {
             this.generationConfig = generationConfig;
             buildInterface();
             buildImplClass();
-            generateCodeFiles();
-            LOG.info("--------------* Sling Model successfully generated *--------------");
+            if (emit) {
+                sharedModel.emit();
+                LOG.info("--------------* Sling Model successfully generated *--------------");
+            }
         } catch (JClassAlreadyExistsException | IOException e) {
-            LOG.error("Failed to create sling model.", e);
+            throw new GeneratorException("Failed to create sling model.", e);
         }
     }
 
     JCodeModel getCodeModel() {
-        return codeModel;
+        return sharedModel.getCodeModel();
+    }
+
+    /**
+     * @return the source files of all classes built for the <code>generationConfig</code>
+     */
+    public List<Path> getSourceFiles() {
+        return sharedModel.getSourceFiles(generationConfig);
     }
 
     /**
@@ -97,7 +118,7 @@ public class JavaCodeModel {
      * fields and getters based on the <code>generationConfig</code>.
      */
     private void buildInterface() {
-        InterfaceBuilder builder = new InterfaceBuilder(codeModel, generationConfig, generationConfig.getJavaFormatedName());
+        InterfaceBuilder builder = new InterfaceBuilder(sharedModel, generationConfig, generationConfig.getJavaFormatedName());
         jc = builder.build();
     }
 
@@ -106,24 +127,10 @@ public class JavaCodeModel {
      * fields and getters based on the <code>generationConfig</code>.
      */
     private void buildImplClass() throws JClassAlreadyExistsException {
-        ImplementationBuilder builder = new ImplementationBuilder(codeModel, generationConfig, generationConfig.getJavaFormatedName() + "Impl", jc);
+        ImplementationBuilder builder = new ImplementationBuilder(sharedModel, generationConfig, generationConfig.getJavaFormatedName() + "Impl", jc);
         builder.build(CommonUtils.getResourceType(generationConfig));
     }
 
-    /**
-     * Generates the slingModel file based on values from the config and the current codeModel object.
-     */
-    private void generateCodeFiles() throws IOException {
-        // RenameFileCodeWritern to rename existing files
-        CodeWriter codeWriter = new RenameFileCodeWriter(new File(generationConfig.getProjectSettings().getBundlePath()));
-
-        // PrologCodeWriter to prepend the copyright template in each file
-        String templateString = CommonUtils.getTemplateFileAsString(OptionTemplateTxt.TemplateType.TEMPLATE_COPYRIGHT_JAVA.toString(), generationConfig);
-        PrologCodeWriter prologCodeWriter = new PrologCodeWriter(codeWriter, templateString);
-
-        codeModel.build(prologCodeWriter);
-    }
-
     /**
      * Generates the sling model interface name for a multifield type
      *
@@ -153,6 +160,51 @@ public class JavaCodeModel {
         return absolutModelClassName;
     }
 
+    /**
+     * Get the java fieldType based on the type input in the generationConfig. Numberfield, checkbox and switch
+     * properties without model name get a primitive type when the property or the options ask for it.
+     *
+     * @param property       the property definition
+     * @param primitiveTypes the primitive-types option of the config
+     * @return String returns relevant java type of string passed in.
+     */
+    public static String getFieldType(Property property, boolean primitiveTypes) {
+        if (property.isPrimitive(primitiveTypes) && property.getModelName() == null) {
+            String primitiveType = getPrimitiveType(property);
+            if (primitiveType != null) {
+                return primitiveType;
+            }
+        }
+        return getFieldType(property);
+    }
+
+    /**
+     * @param property the property definition
+     * @return <code>long</code>, <code>double</code> for a numberfield with a decimal step or default,
+     * <code>boolean</code> or null for types without primitive
+     */
+    static String getPrimitiveType(Property property) {
+        switch (property.getTypeAsFieldType()) {
+            case NUMBERFIELD:
+                String step = property.getAttributes() != null ? property.getAttributes().get("step") : null;
+                return StringUtils.contains(step, '.') || StringUtils.contains(property.getDefaultValue(), '.') ?
+                        "double" : "long";
+            case CHECKBOX:
+            case SWITCH:
+                return "boolean";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @param fieldType the java fieldType
+     * @return true for the primitive types of {@link #getPrimitiveType(Property)}
+     */
+    static boolean isPrimitiveType(String fieldType) {
+        return "long".equals(fieldType) || "double".equals(fieldType) || "boolean".equals(fieldType);
+    }
+
     /**
      * Get the java fieldType based on the type input in the generationConfig
      *
@@ -0,0 +1,102 @@
+/*
+ * #%L
+ * AEM Component Generator
+ * %%
+ * Copyright (C) 2019 Adobe
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.adobe.aem.compgenerator.javacodemodel;
+
+import com.adobe.aem.compgenerator.exceptions.GeneratorException;
+import com.sun.codemodel.CodeWriter;
+import com.sun.codemodel.JPackage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * CodeWriter buffering every compilation unit in memory. A closed unit is written through the core CodeWriter
+ * on the I/O executor, so the sources of many classes are persisted in parallel while the code model renders
+ * the next ones. {@link #close()} waits until all units are written and fails with the first write error.
+ */
+public class ParallelCodeWriter extends CodeWriter {
+
+    private final CodeWriter core;
+    private final ExecutorService executor;
+    private final List<Future<Void>> writes = new ArrayList<>();
+
+    /**
+     * @param core     the CodeWriter persisting the units, must support concurrent files
+     * @param executor the I/O executor
+     */
+    public ParallelCodeWriter(CodeWriter core, ExecutorService executor) {
+        this.core = core;
+        this.executor = executor;
+    }
+
+    @Override
+    public OutputStream openBinary(JPackage pkg, String fileName) {
+        return new ByteArrayOutputStream() {
+            private boolean closed;
+
+            @Override
+            public void close() {
+                if (!closed) {
+                    closed = true;
+                    submit(pkg, fileName, toByteArray());
+                }
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            for (Future<Void> write : getWrites()) {
+                write.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GeneratorException("Writing the sources was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new GeneratorException("Failed to write the sources", e.getCause());
+        } finally {
+            core.close();
+        }
+    }
+
+    private synchronized void submit(JPackage pkg, String fileName, byte[] content) {
+        writes.add(executor.submit((Callable<Void>) () -> {
+            try (OutputStream out = core.openBinary(pkg, fileName)) {
+                out.write(content);
+            }
+            return null;
+        }));
+    }
+
+    private synchronized List<Future<Void>> getWrites() {
+        return new ArrayList<>(writes);
+    }
+}
@@ -0,0 +1,411 @@
+/*
+ * #%L
+ * AEM Component Generator
+ * %%
+ * Copyright (C) 2019 Adobe
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.adobe.aem.compgenerator.javacodemodel;
+
+import com.adobe.aem.compgenerator.exceptions.GeneratorException;
+import com.adobe.aem.compgenerator.models.GenerationConfig;
+import com.adobe.aem.compgenerator.models.OptionTemplateTxt;
+import com.adobe.aem.compgenerator.utils.CommonUtils;
+import com.sun.codemodel.ClassType;
+import com.sun.codemodel.CodeWriter;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JClassAlreadyExistsException;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JPackage;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p>
+ * One {@link JCodeModel} shared by the sling models of all components of a batch. The components are built
+ * into the model concurrently and all classes are written in a single {@link #emit()} pass, the packages of the
+ * model and the copyright prolog of a component are resolved once.
+ * <p>
+ * Every class is defined through {@link #defineClass(GenerationConfig, JPackage, String, ClassType)}, which
+ * records the component owning the class and locks its package. A class name already owned by another
+ * component fails the second component before anything is written. The sources of a class are written with
+ * the {@link GenerationConfig} of its owner, i.e. into the bundle path and the output transaction of that
+ * component. The rendered sources are written in parallel by a {@link ParallelCodeWriter}, {@link #emit()}
+ * returns once all of them are written.
+ * <p>
+ * {@link #emit(EmitListener)} reports every component as soon as all of its sources are written, with the error
+ * of the component if rendering or writing one of its sources failed. A component failing to render is removed
+ * from the model and the classes of the remaining components are rendered again, so only the owner of the
+ * failing class fails.
+ */
+public class SharedCodeModel {
+    private static final Logger LOG = LogManager.getLogger(SharedCodeModel.class);
+
+    private static final String JAVA_EXTENSION = ".java";
+    private static final int EMIT_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    private final JCodeModel codeModel = new SynchronizedCodeModel();
+    private final Map<GenerationConfig, Component> components = new ConcurrentHashMap<>();
+    private final Map<String, Component> owners = new ConcurrentHashMap<>();
+
+    JCodeModel getCodeModel() {
+        return codeModel;
+    }
+
+    /**
+     * Defines a class of the component in the package, while the package is locked.
+     *
+     * @param generationConfig the config of the component defining the class
+     * @param jPackage         the package of the class
+     * @param name             the simple name of the class
+     * @param classType        the kind of the class
+     * @return the new class
+     * @throws JClassAlreadyExistsException the component already defined the class
+     */
+    JDefinedClass defineClass(GenerationConfig generationConfig, JPackage jPackage, String name,
+            ClassType classType) throws JClassAlreadyExistsException {
+        String className = jPackage.isUnnamed() ? name : jPackage.name() + "." + name;
+        Component component = components.computeIfAbsent(generationConfig, Component::new);
+        Component owner = owners.putIfAbsent(className, component);
+        if (owner != null && owner != component) {
+            throw new GeneratorException("Duplicate class " + className + " in " +
+                    generationConfig.getConfigFilePath() + ", it is already defined by " +
+                    owner.generationConfig.getConfigFilePath());
+        }
+        JDefinedClass definedClass;
+        synchronized (jPackage) {
+            definedClass = jPackage._class(JMod.PUBLIC, name, classType);
+        }
+        synchronized (component) {
+            component.classes.add(definedClass);
+        }
+        return definedClass;
+    }
+
+    /**
+     * Removes all classes of the component from the model, e.g. after its generation failed.
+     *
+     * @param generationConfig the config of the component
+     */
+    public void discard(GenerationConfig generationConfig) {
+        Component component = components.remove(generationConfig);
+        if (component == null) {
+            return;
+        }
+        synchronized (component) {
+            for (JDefinedClass definedClass : component.classes) {
+                JPackage jPackage = definedClass._package();
+                synchronized (jPackage) {
+                    jPackage.remove(definedClass);
+                }
+                owners.remove(definedClass.fullName(), component);
+            }
+            component.classes.clear();
+        }
+    }
+
+    /**
+     * @param generationConfig the config of the component
+     * @return the source files of all classes the component defined
+     */
+    public List<Path> getSourceFiles(GenerationConfig generationConfig) {
+        List<Path> sourceFiles = new ArrayList<>();
+        Component component = components.get(generationConfig);
+        if (component == null) {
+            return sourceFiles;
+        }
+        Path bundlePath = getBundlePath(generationConfig);
+        synchronized (component) {
+            for (JDefinedClass definedClass : component.classes) {
+                if (!definedClass.isHidden()) {
+                    sourceFiles.add(WriteIfChangedCodeWriter.getFile(bundlePath, definedClass._package(),
+                            definedClass.name() + JAVA_EXTENSION));
+                }
+            }
+        }
+        return sourceFiles;
+    }
+
+    /**
+     * Writes the sources of all classes of the model, each with the prolog and into the output of its component.
+     * Must not run concurrently with the definition of classes.
+     *
+     * @throws IOException exception while writing a source
+     */
+    public void emit() throws IOException {
+        AtomicReference<Exception> firstError = new AtomicReference<>();
+        emit((generationConfig, error) -> {
+            if (error != null) {
+                firstError.compareAndSet(null, error);
+            }
+        });
+        if (firstError.get() instanceof IOException) {
+            throw (IOException) firstError.get();
+        }
+        if (firstError.get() != null) {
+            throw new GeneratorException("Failed to write the sling models", firstError.get());
+        }
+    }
+
+    /**
+     * Writes the sources of all classes of the model like {@link #emit()}, errors are reported per component.
+     * Returns once all components were reported.
+     *
+     * @param listener called once per component as soon as its sources are written
+     */
+    public void emit(EmitListener listener) {
+        if (components.isEmpty()) {
+            return;
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(EMIT_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "generator-emit-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        int componentCount = components.size();
+        ComponentCodeWriter codeWriter = new ComponentCodeWriter(executor, listener);
+        try {
+            while (true) {
+                try {
+                    codeModel.build(codeWriter);
+                    break;
+                } catch (IOException | RuntimeException e) {
+                    if (!codeWriter.failCurrent(e)) {
+                        codeWriter.failPending(e);
+                        break;
+                    }
+                }
+            }
+        } finally {
+            // no source is written after emit returned, also when rendering a class failed
+            executor.shutdown();
+            awaitTermination(executor);
+        }
+        LOG.info("Sling Models of {} components written", componentCount);
+    }
+
+    private static void awaitTermination(ExecutorService executor) {
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Path getBundlePath(GenerationConfig generationConfig) {
+        return CommonUtils.getOutputPath(generationConfig.getProjectSettings().getBundlePath(), generationConfig);
+    }
+
+    /**
+     * Listener of {@link #emit(EmitListener)}.
+     */
+    @FunctionalInterface
+    public interface EmitListener {
+
+        /**
+         * Called on an emit thread once all sources of the component are written or the component failed.
+         *
+         * @param generationConfig the config of the component
+         * @param error            the error rendering or writing a source of the component, null on success
+         */
+        void written(GenerationConfig generationConfig, Exception error);
+    }
+
+    /**
+     * The classes of one component and the writer of its sources.
+     */
+    private static class Component {
+        private final GenerationConfig generationConfig;
+        private final List<JDefinedClass> classes = new ArrayList<>();
+        // emit state, only used by the thread rendering the sources
+        private CodeWriter codeWriter;
+        private int renderedClasses;
+        private boolean reported;
+
+        Component(GenerationConfig generationConfig) {
+            this.generationConfig = generationConfig;
+        }
+
+        CodeWriter getCodeWriter(ExecutorService executor) {
+            if (codeWriter == null) {
+                // WriteIfChangedCodeWriter to keep unchanged files untouched, ParallelCodeWriter to write them on
+                // the executor and PrologCodeWriter to prepend the copyright template in each file
+                String prolog = CommonUtils.getTemplateFileAsString(
+                        OptionTemplateTxt.TemplateType.TEMPLATE_COPYRIGHT_JAVA.toString(), generationConfig);
+                codeWriter = new PrologCodeWriter(new ParallelCodeWriter(
+                        new WriteIfChangedCodeWriter(getBundlePath(generationConfig), generationConfig), executor),
+                        prolog);
+            }
+            return codeWriter;
+        }
+
+        synchronized int getVisibleClassCount() {
+            return (int) classes.stream().filter(definedClass -> !definedClass.isHidden()).count();
+        }
+    }
+
+    /**
+     * CodeWriter passing every source to the writer of the component owning the class. A component is reported
+     * to the listener once its last class is rendered, after its sources are written.
+     */
+    private class ComponentCodeWriter extends CodeWriter {
+        private final ExecutorService executor;
+        private final EmitListener listener;
+        // owner of the source being rendered, the code model renders one source at a time
+        private Component current;
+
+        ComponentCodeWriter(ExecutorService executor, EmitListener listener) {
+            this.executor = executor;
+            this.listener = listener;
+        }
+
+        @Override
+        public Writer openSource(JPackage pkg, String fileName) throws IOException {
+            Component owner = getOwner(pkg, fileName);
+            current = owner;
+            if (owner.reported) {
+                // rendered again after another component failed, its sources are already written
+                return new StringWriter();
+            }
+            return new FilterWriter(owner.getCodeWriter(executor).openSource(pkg, fileName)) {
+                @Override
+                public void close() throws IOException {
+                    super.close();
+                    if (++owner.renderedClasses == owner.getVisibleClassCount()) {
+                        report(owner, null);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public OutputStream openBinary(JPackage pkg, String fileName) throws IOException {
+            Component owner = getOwner(pkg, fileName);
+            current = owner;
+            return owner.reported ? new ByteArrayOutputStream() :
+                    owner.getCodeWriter(executor).openBinary(pkg, fileName);
+        }
+
+        /**
+         * Reports the components which did not render a class, e.g. without visible classes.
+         */
+        @Override
+        public void close() {
+            for (Component component : components.values()) {
+                report(component, null);
+            }
+        }
+
+        /**
+         * Fails the owner of the source being rendered and removes it from the model.
+         *
+         * @param error the rendering error
+         * @return false when the error can not be attributed to a component
+         */
+        private boolean failCurrent(Exception error) {
+            Component failed = current;
+            current = null;
+            if (failed == null || failed.reported) {
+                return false;
+            }
+            LOG.error("Failed to write the sling model of " + failed.generationConfig.getConfigFilePath(), error);
+            report(failed, error);
+            discard(failed.generationConfig);
+            // the classes of the unreported components are rendered again
+            for (Component component : components.values()) {
+                component.renderedClasses = 0;
+            }
+            return true;
+        }
+
+        private void failPending(Exception error) {
+            LOG.error("Failed to write the sling models", error);
+            for (Component component : components.values()) {
+                report(component, error);
+            }
+        }
+
+        /**
+         * Reports the component once, after the writes of its sources completed. The writes were queued on the
+         * executor before, so waiting for them on the executor does not block it.
+         */
+        private void report(Component component, Exception renderError) {
+            if (component.reported) {
+                return;
+            }
+            component.reported = true;
+            CodeWriter componentWriter = component.codeWriter;
+            component.codeWriter = null;
+            executor.submit(() -> listener.written(component.generationConfig, close(componentWriter, renderError)));
+        }
+
+        private Exception close(CodeWriter componentWriter, Exception renderError) {
+            if (componentWriter != null) {
+                try {
+                    componentWriter.close();
+                } catch (IOException | RuntimeException e) {
+                    return renderError != null ? renderError : e;
+                }
+            }
+            return renderError;
+        }
+
+        private Component getOwner(JPackage pkg, String fileName) {
+            String name = StringUtils.removeEnd(fileName, JAVA_EXTENSION);
+            Component owner = owners.get(pkg.isUnnamed() ? name : pkg.name() + "." + name);
+            if (owner == null) {
+                throw new GeneratorException("No component defines " + fileName + " in package " + pkg.name());
+            }
+            return owner;
+        }
+    }
+
+    /**
+     * JCodeModel whose package and class reference tables can be used by concurrent builders.
+     */
+    private static class SynchronizedCodeModel extends JCodeModel {
+
+        @Override
+        public synchronized JPackage _package(String name) {
+            return super._package(name);
+        }
+
+        @Override
+        public synchronized JClass ref(Class<?> clazz) {
+            return super.ref(clazz);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * #%L
+ * AEM Component Generator
+ * %%
+ * Copyright (C) 2019 Adobe
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.adobe.aem.compgenerator.javacodemodel;
+
+import com.adobe.aem.compgenerator.models.GenerationConfig;
+import com.adobe.aem.compgenerator.utils.CommonUtils;
+import com.adobe.aem.compgenerator.utils.OutputTransaction;
+import com.adobe.aem.compgenerator.utils.WriteIfChangedOutputStream;
+import com.sun.codemodel.CodeWriter;
+import com.sun.codemodel.JPackage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+
+/**
+ * CodeWriter writing the java sources below a directory of any {@link java.nio.file.FileSystem}, e.g. the output
+ * filesystem of the config. Only the sources whose content changed are written, see
+ * {@link WriteIfChangedOutputStream}. Within an {@link OutputTransaction} of the config the sources are staged until
+ * the transaction is committed.
+ */
+public class WriteIfChangedCodeWriter extends CodeWriter {
+
+    private final Path target;
+    private final GenerationConfig generationConfig;
+
+    /**
+     * @param target           the source folder
+     * @param generationConfig The {@link GenerationConfig} of the generated component
+     */
+    public WriteIfChangedCodeWriter(Path target, GenerationConfig generationConfig) {
+        this.target = target;
+        this.generationConfig = generationConfig;
+    }
+
+    @Override
+    public OutputStream openBinary(JPackage pkg, String fileName) throws IOException {
+        // the parent directories are created when the file is written
+        return CommonUtils.getFileOutputStream(getFile(target, pkg, fileName), generationConfig);
+    }
+
+    @Override
+    public void close() {
+        // every file is closed by the code model
+    }
+
+    /**
+     * @param target   the source folder
+     * @param pkg      the package of the file
+     * @param fileName the file name
+     * @return the path of the file in the source folder
+     */
+    static Path getFile(Path target, JPackage pkg, String fileName) {
+        Path dir = target;
+        if (!pkg.isUnnamed()) {
+            for (String name : pkg.name().split("\\.")) {
+                dir = dir.resolve(name);
+            }
+        }
+        return dir.resolve(fileName);
+    }
+}
@@ -19,10 +19,17 @@
  */
 package com.adobe.aem.compgenerator.models;
 
+import com.adobe.aem.compgenerator.Constants;
+import com.adobe.aem.compgenerator.utils.OutputTransaction;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.text.CaseUtils;
 
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.util.Map;
+
 public class GenerationConfig implements BaseModel {
 
     @JsonProperty("name")
@@ -47,6 +54,12 @@ public class GenerationConfig implements BaseModel {
     private String compDir;
     private String javaFormatedName;
     private String configFilePath;
+    private String dataConfigDir;
+    private String appsDataCopyFolder;
+    private String fingerprint;
+    private Map<String, String> templateVariables;
+    private OutputTransaction outputTransaction;
+    private FileSystem outputFileSystem;
 
 
     public String getName() {
@@ -127,4 +140,73 @@ public class GenerationConfig implements BaseModel {
     public String getConfigFilePath() {
         return configFilePath;
     }
+
+    /**
+     * @return directory of the original data-config, containing the apps-data-copy folders
+     */
+    public String getDataConfigDir() {
+        return dataConfigDir;
+    }
+
+    public void setDataConfigDir(String dataConfigDir) {
+        this.dataConfigDir = dataConfigDir;
+    }
+
+    /**
+     * @return name of the folders copied into the component folder, <code>apps-data-copy</code> if not set
+     */
+    public String getAppsDataCopyFolder() {
+        return StringUtils.defaultIfEmpty(appsDataCopyFolder, Constants.FOLDER_APPS_DATA_COPY);
+    }
+
+    public void setAppsDataCopyFolder(String appsDataCopyFolder) {
+        this.appsDataCopyFolder = appsDataCopyFolder;
+    }
+
+    /**
+     * @return fingerprint of the resolved data-config and the generator, see
+     * {@link com.adobe.aem.compgenerator.GenerationState}
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * @return placeholder values of the templates, built on first use
+     */
+    public Map<String, String> getTemplateVariables() {
+        return templateVariables;
+    }
+
+    public void setTemplateVariables(Map<String, String> templateVariables) {
+        this.templateVariables = templateVariables;
+    }
+
+    /**
+     * @return the transaction staging the files of the component while it is generated, null to write directly
+     */
+    @JsonIgnore
+    public OutputTransaction getOutputTransaction() {
+        return outputTransaction;
+    }
+
+    public void setOutputTransaction(OutputTransaction outputTransaction) {
+        this.outputTransaction = outputTransaction;
+    }
+
+    /**
+     * @return the filesystem the apps path and the bundle path are resolved in, the default filesystem if not set
+     */
+    @JsonIgnore
+    public FileSystem getOutputFileSystem() {
+        return outputFileSystem != null ? outputFileSystem : FileSystems.getDefault();
+    }
+
+    public void setOutputFileSystem(FileSystem outputFileSystem) {
+        this.outputFileSystem = outputFileSystem;
+    }
 }
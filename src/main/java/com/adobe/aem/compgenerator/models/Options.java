@@ -66,6 +66,21 @@ public class Options implements BaseModel {
     @JsonProperty("model-adaptables")
     private String[] modelAdaptables;
 
+    @JsonProperty("model-cache")
+    private boolean modelCache;
+
+    @JsonProperty("model-fast-path")
+    private boolean modelFastPath;
+
+    @JsonProperty("primitive-types")
+    private boolean primitiveTypes;
+
+    @JsonProperty("lazy-child-models")
+    private boolean lazyChildModels;
+
+    @JsonProperty("flat-multifields")
+    private boolean flatMultifields;
+
     @JsonProperty("templates")
     private OptionTemplateTxt[] templates;
 
@@ -182,6 +197,46 @@ public class Options implements BaseModel {
         this.modelAdaptables = modelAdaptables;
     }
 
+    public boolean isModelCache() {
+        return modelCache;
+    }
+
+    public void setModelCache(boolean modelCache) {
+        this.modelCache = modelCache;
+    }
+
+    public boolean isModelFastPath() {
+        return modelFastPath;
+    }
+
+    public void setModelFastPath(boolean modelFastPath) {
+        this.modelFastPath = modelFastPath;
+    }
+
+    public boolean isPrimitiveTypes() {
+        return primitiveTypes;
+    }
+
+    public void setPrimitiveTypes(boolean primitiveTypes) {
+        this.primitiveTypes = primitiveTypes;
+    }
+
+    public boolean isLazyChildModels() {
+        return lazyChildModels;
+    }
+
+    public void setLazyChildModels(boolean lazyChildModels) {
+        this.lazyChildModels = lazyChildModels;
+    }
+
+    public boolean isFlatMultifields() {
+        return flatMultifields;
+    }
+
+    public void setFlatMultifields(boolean flatMultifields) {
+        this.flatMultifields = flatMultifields;
+    }
+
     public List<Property> getProperties() {
         return properties;
     }
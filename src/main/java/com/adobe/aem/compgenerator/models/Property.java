@@ -126,6 +126,10 @@ public class Property implements BaseModel {
     private boolean useExistingModel;
     @JsonProperty(value = "use-existing-field", defaultValue = "false")
     private boolean useExistingField;
+    @JsonProperty("primitive")
+    private Boolean primitive;
+    @JsonProperty("default")
+    private String defaultValue;
 
     public PropertyType getPropertyType() {
         return propertyType;
@@ -263,6 +267,30 @@ public class Property implements BaseModel {
         this.useExistingField = useExistingField;
     }
 
+    public Boolean getPrimitive() {
+        return primitive;
+    }
+
+    public void setPrimitive(Boolean primitive) {
+        this.primitive = primitive;
+    }
+
+    /**
+     * @param primitiveTypes the primitive-types option of the config
+     * @return true if the property asks for a primitive type, the option applies when the property does not say
+     */
+    public boolean isPrimitive(boolean primitiveTypes) {
+        return primitive != null ? primitive : primitiveTypes;
+    }
+
+    public String getDefaultValue() {
+        return defaultValue;
+    }
+
+    public void setDefaultValue(String defaultValue) {
+        this.defaultValue = defaultValue;
+    }
+
     public boolean isShouldExporterExpose() {
         return shouldExporterExpose;
     }
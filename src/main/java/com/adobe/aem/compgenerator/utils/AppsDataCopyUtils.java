@@ -0,0 +1,176 @@
+/*
+ * #%L
+ * AEM Component Generator
+ * %%
+ * Copyright (C) 2019 Adobe
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.adobe.aem.compgenerator.utils;
+
+import com.adobe.aem.compgenerator.models.GenerationConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * <p>
+ * AppsDataCopyUtils copies the hand written component files, e.g. HTML, clientlibs or assets, kept in
+ * <code>apps-data-copy</code> folders next to the data-config into the generated component folder. The folder
+ * name is configurable, see {@link GenerationConfig#getAppsDataCopyFolder()}.
+ * <p>
+ * Every entry of an <code>apps-data-copy</code> folder at any depth below the directory of the data-config
+ * is copied to the component folder, keeping its path relative to the <code>apps-data-copy</code> folder. An
+ * <code>apps-data-copy</code> folder within another one is copied like any other folder.
+ * Files are only copied when their size, modification time or content differ from the existing target file,
+ * copied files get the modification time of their source. Within an {@link OutputTransaction} of the config the
+ * files are staged until the transaction is committed, a transaction writing a content package gets all files.
+ */
+public class AppsDataCopyUtils {
+
+    private static final Logger LOG = LogManager.getLogger(AppsDataCopyUtils.class);
+
+    /**
+     * Copies the apps-data-copy folders of the data-config into the component folder.
+     *
+     * @param generationConfig the {@link GenerationConfig}
+     * @return number of copied files
+     * @throws IOException exception while copying
+     */
+    public static int copyAppsData(GenerationConfig generationConfig) throws IOException {
+        if (generationConfig.getDataConfigDir() == null) {
+            return 0;
+        }
+        Path componentDir = CommonUtils.getOutputPath(generationConfig.getCompDir(), generationConfig);
+        OutputTransaction transaction = generationConfig.getOutputTransaction();
+        boolean incremental = transaction == null || transaction.isIncremental();
+        int copied = 0;
+        int unchanged = 0;
+        for (Path copyFolder : findAppsDataCopyFolders(Paths.get(generationConfig.getDataConfigDir()),
+                generationConfig.getAppsDataCopyFolder())) {
+            for (Path source : listFiles(copyFolder)) {
+                Path target = componentDir.resolve(copyFolder.relativize(source).toString());
+                if (incremental && isUpToDate(source, target)) {
+                    unchanged++;
+                } else {
+                    if (transaction != null) {
+                        transaction.copy(source, target);
+                    } else {
+                        copyFile(source, target);
+                    }
+                    LOG.info("Copied: " + source + " to " + target);
+                    copied++;
+                }
+            }
+        }
+        if (copied > 0 || unchanged > 0) {
+            LOG.info("apps-data-copy of {}: {} copied, {} unchanged", generationConfig.getName(), copied, unchanged);
+        }
+        return copied;
+    }
+
+    /**
+     * Finds the apps-data-copy folders below the given directory, hidden directories are skipped.
+     *
+     * @param dataConfigDir      directory of the data-config
+     * @param appsDataCopyFolder name of the apps-data-copy folders
+     * @return sorted list of apps-data-copy folders
+     * @throws IOException exception while walking the directory
+     */
+    static List<Path> findAppsDataCopyFolders(Path dataConfigDir, String appsDataCopyFolder) throws IOException {
+        List<Path> copyFolders = new ArrayList<>();
+        if (!Files.isDirectory(dataConfigDir)) {
+            return copyFolders;
+        }
+        Files.walkFileTree(dataConfigDir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                String dirName = dir.getFileName() != null ? dir.getFileName().toString() : "";
+                if (!dir.equals(dataConfigDir) && dirName.startsWith(".")) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                if (appsDataCopyFolder.equals(dirName)) {
+                    copyFolders.add(dir);
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        copyFolders.sort(null);
+        return copyFolders;
+    }
+
+    /**
+     * @param copyFolder apps-data-copy folder
+     * @return all files below the folder, except hidden entries directly in the folder
+     * @throws IOException exception while walking the folder
+     */
+    private static List<Path> listFiles(Path copyFolder) throws IOException {
+        try (Stream<Path> paths = Files.walk(copyFolder)) {
+            return paths.filter(Files::isRegularFile)
+                    .filter(path -> !copyFolder.relativize(path).getName(0).toString().startsWith("."))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Compares size and modification time, the content is only compared when the size matches but the
+     * modification time differs. Equal content aligns the modification time, so the next check is cheap.
+     */
+    static boolean isUpToDate(Path source, Path target) throws IOException {
+        if (!Files.isRegularFile(target) || Files.size(source) != Files.size(target)) {
+            return false;
+        }
+        FileTime sourceTime = Files.getLastModifiedTime(source);
+        if (sourceTime.equals(Files.getLastModifiedTime(target))) {
+            return true;
+        }
+        if (CommonUtils.contentEquals(source, target)) {
+            Files.setLastModifiedTime(target, sourceTime);
+            return true;
+        }
+        return false;
+    }
+
+    static void copyFile(Path source, Path target) throws IOException {
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                position += in.transferTo(position, size - position, out);
+            }
+        }
+        Files.setLastModifiedTime(target, Files.getLastModifiedTime(source));
+    }
+}
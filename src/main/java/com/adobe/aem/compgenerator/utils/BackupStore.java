@@ -0,0 +1,381 @@
+/*
+ * #%L
+ * AEM Component Generator
+ * %%
+ * Copyright (C) 2019 Adobe
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.adobe.aem.compgenerator.utils;
+
+import com.adobe.aem.compgenerator.Constants;
+import com.adobe.aem.compgenerator.exceptions.GeneratorException;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * <p>
+ * Content addressed store of the files replaced by the generator, kept in <code>target/.generator-backups</code>
+ * instead of <code>.sv.&lt;timestamp&gt;</code> files next to the generated files.
+ * <p>
+ * Every generator run is a generation, named by its start time. The previous content of every replaced file is
+ * stored once per SHA-256 hash in <code>objects/</code>, optionally gzip compressed, and the generation manifest in
+ * <code>generations/&lt;generation&gt;.json</code> maps the replaced files to their hashes and lists the created
+ * files. {@link #restore(Path, String)} rolls a generation back. On {@link #close()} only the last generations
+ * of the retention are kept, objects no longer referenced are deleted.
+ * <p>
+ * Generations can run concurrently, e.g. the watcher and a command line run of the same project. The manifest of
+ * a running generation stays empty until it is closed, so the retention keeps all objects stored or reused since
+ * the oldest running generation started. Empty manifests older than a day are left by killed runs and dropped.
+ */
+public class BackupStore implements Closeable {
+    private static final Logger LOG = LogManager.getLogger(BackupStore.class);
+
+    public static final Path DEFAULT_ROOT = Paths.get("target", ".generator-backups");
+    public static final int DEFAULT_RETENTION = 10;
+
+    private static final String OBJECTS_DIR = "objects";
+    private static final String GENERATIONS_DIR = "generations";
+    private static final String MANIFEST_EXTENSION = ".json";
+    private static final String GZIP_EXTENSION = ".gz";
+    private static final String TEMP_EXTENSION = ".tmp";
+    private static final long STALE_GENERATION_MILLIS = TimeUnit.DAYS.toMillis(1);
+    private static final String GENERATION_COUNTER_SEPARATOR = "-";
+
+    /**
+     * Orders the generations by their start time and then numerically by the counter of generations started
+     * within the same second, so <code>&lt;timestamp&gt;-10</code> follows <code>&lt;timestamp&gt;-2</code>.
+     */
+    private static final Comparator<String> GENERATION_ORDER = Comparator
+            .comparing((String generation) -> StringUtils.substringBefore(generation, GENERATION_COUNTER_SEPARATOR))
+            .thenComparingInt(generation -> NumberUtils.toInt(
+                    StringUtils.substringAfter(generation, GENERATION_COUNTER_SEPARATOR), 1));
+
+    private final Path root;
+    private final boolean compress;
+    private final int retention;
+    private final String generation;
+    private final Path manifestFile;
+    private final Manifest manifest = new Manifest();
+
+    private BackupStore(Path root, boolean compress, int retention, String generation, Path manifestFile) {
+        this.root = root;
+        this.compress = compress;
+        this.retention = retention;
+        this.generation = generation;
+        this.manifestFile = manifestFile;
+    }
+
+    /**
+     * Starts a new generation, its manifest is reserved until {@link #close()}.
+     *
+     * @param root      root folder of the store
+     * @param compress  true to gzip the stored files
+     * @param retention number of generations to keep, 0 keeps all
+     * @return BackupStore of the new generation
+     * @throws IOException exception while creating the store
+     */
+    public static BackupStore open(Path root, boolean compress, int retention) throws IOException {
+        Path generationsDir = root.resolve(GENERATIONS_DIR);
+        Files.createDirectories(generationsDir);
+        String timestamp = new SimpleDateFormat(Constants.RENAME_FILE_DATE_PATTERN).format(new Date());
+        for (int i = 1; ; i++) {
+            String generation = i == 1 ? timestamp : timestamp + GENERATION_COUNTER_SEPARATOR + i;
+            Path manifestFile = generationsDir.resolve(generation + MANIFEST_EXTENSION);
+            try {
+                Files.createFile(manifestFile);
+                return new BackupStore(root, compress, retention, generation, manifestFile);
+            } catch (FileAlreadyExistsException e) {
+                LOG.debug("Backup generation {} exists", generation);
+            }
+        }
+    }
+
+    /**
+     * @return the name of the generation
+     */
+    public String getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Stores the current content of the file before it is replaced. Only the first content of a file within
+     * a generation is kept.
+     *
+     * @param file existing file
+     * @throws IOException exception while storing the file
+     */
+    public void backup(Path file) throws IOException {
+        String path = file.toAbsolutePath().normalize().toString();
+        synchronized (manifest) {
+            if (manifest.replaced.containsKey(path) || manifest.created.contains(path)) {
+                return;
+            }
+        }
+        String hash = store(Files.readAllBytes(file));
+        synchronized (manifest) {
+            manifest.replaced.putIfAbsent(path, hash);
+        }
+        LOG.debug("Backup of {}: {}", file, hash);
+    }
+
+    /**
+     * Records a file created by the generation, it is deleted when the generation is restored.
+     *
+     * @param file the created file
+     */
+    public void created(Path file) {
+        String path = file.toAbsolutePath().normalize().toString();
+        synchronized (manifest) {
+            if (!manifest.replaced.containsKey(path)) {
+                manifest.created.add(path);
+            }
+        }
+    }
+
+    /**
+     * Writes the manifest of the generation, a generation without changes is dropped, and applies the retention.
+     *
+     * @throws IOException exception while writing the manifest
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (manifest) {
+            if (manifest.replaced.isEmpty() && manifest.created.isEmpty()) {
+                Files.deleteIfExists(manifestFile);
+                return;
+            }
+            CommonUtils.OBJECT_MAPPER.writeValue(manifestFile.toFile(), manifest);
+        }
+        LOG.info("Backup generation {}: {} replaced, {} created files", generation, manifest.replaced.size(),
+                manifest.created.size());
+        applyRetention();
+    }
+
+    /**
+     * Restores the files replaced by the generation and deletes the files it created. The current content of
+     * the restored files is kept in a new generation, so a restore can be rolled back as well.
+     *
+     * @param root       root folder of the store
+     * @param generation the generation to roll back
+     * @return number of restored or deleted files
+     * @throws IOException exception while restoring
+     */
+    public static int restore(Path root, String generation) throws IOException {
+        Path manifestFile = root.resolve(GENERATIONS_DIR).resolve(generation + MANIFEST_EXTENSION);
+        if (!Files.isRegularFile(manifestFile) || Files.size(manifestFile) == 0) {
+            throw new GeneratorException("Unknown backup generation " + generation + ", available generations: "
+                    + StringUtils.join(listGenerations(root), ", "));
+        }
+        Manifest manifest = CommonUtils.OBJECT_MAPPER.readValue(manifestFile.toFile(), Manifest.class);
+        int restored = 0;
+        try (BackupStore store = open(root, false, 0)) {
+            for (Map.Entry<String, String> replaced : manifest.replaced.entrySet()) {
+                Path file = Paths.get(replaced.getKey());
+                byte[] content = store.read(replaced.getValue());
+                if (Files.exists(file)) {
+                    if (WriteIfChangedOutputStream.contentEquals(file, content, content.length)) {
+                        continue;
+                    }
+                    store.backup(file);
+                } else {
+                    Files.createDirectories(file.toAbsolutePath().getParent());
+                    store.created(file);
+                }
+                Files.write(file, content);
+                LOG.info("Restored: " + file);
+                restored++;
+            }
+            for (String created : manifest.created) {
+                Path file = Paths.get(created);
+                if (Files.exists(file)) {
+                    store.backup(file);
+                    Files.delete(file);
+                    LOG.info("Deleted: " + file);
+                    restored++;
+                }
+            }
+        }
+        return restored;
+    }
+
+    /**
+     * @param root root folder of the store
+     * @return the generations with changes, oldest first
+     * @throws IOException exception while listing the generations
+     */
+    public static List<String> listGenerations(Path root) throws IOException {
+        Path generationsDir = root.resolve(GENERATIONS_DIR);
+        if (!Files.isDirectory(generationsDir)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> manifests = Files.list(generationsDir)) {
+            return manifests.filter(BackupStore::isManifest)
+                    .map(manifest -> StringUtils.removeEnd(manifest.getFileName().toString(), MANIFEST_EXTENSION))
+                    .sorted(GENERATION_ORDER)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private String store(byte[] content) throws IOException {
+        String hash = CommonUtils.toHex(CommonUtils.newSha256Digest().digest(content));
+        Path object = getObject(hash, compress);
+        Path existingObject = Files.exists(object) ? object : getObject(hash, !compress);
+        if (Files.exists(existingObject)) {
+            // a reused object counts as stored by this generation for the retention of concurrent generations
+            Files.setLastModifiedTime(existingObject, FileTime.fromMillis(System.currentTimeMillis()));
+            return hash;
+        }
+        Files.createDirectories(object.getParent());
+        Path tempFile = Files.createTempFile(object.getParent(), hash, TEMP_EXTENSION);
+        try {
+            try (OutputStream out = compress ? new GZIPOutputStream(Files.newOutputStream(tempFile)) :
+                    Files.newOutputStream(tempFile)) {
+                out.write(content);
+            }
+            Files.move(tempFile, object, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+        return hash;
+    }
+
+    private byte[] read(String hash) throws IOException {
+        Path object = getObject(hash, false);
+        if (Files.exists(object)) {
+            return Files.readAllBytes(object);
+        }
+        Path compressedObject = getObject(hash, true);
+        if (!Files.exists(compressedObject)) {
+            throw new GeneratorException("Backup object " + hash + " is missing");
+        }
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(compressedObject))) {
+            return IOUtils.toByteArray(in);
+        }
+    }
+
+    private Path getObject(String hash, boolean compressed) {
+        return root.resolve(OBJECTS_DIR).resolve(hash.substring(0, 2))
+                .resolve(compressed ? hash + GZIP_EXTENSION : hash);
+    }
+
+    /**
+     * Deletes the generations exceeding the retention and the objects only they referenced. Objects stored since
+     * the start of a running generation are kept, they are referenced once its manifest is written.
+     */
+    private void applyRetention() throws IOException {
+        List<String> generations = listGenerations(root);
+        if (retention <= 0 || generations.size() <= retention) {
+            return;
+        }
+        for (String expired : generations.subList(0, generations.size() - retention)) {
+            Files.delete(root.resolve(GENERATIONS_DIR).resolve(expired + MANIFEST_EXTENSION));
+            LOG.info("Deleted backup generation {}", expired);
+        }
+        Set<String> referenced = new HashSet<>();
+        for (String kept : generations.subList(generations.size() - retention, generations.size())) {
+            Path keptManifest = root.resolve(GENERATIONS_DIR).resolve(kept + MANIFEST_EXTENSION);
+            referenced.addAll(CommonUtils.OBJECT_MAPPER.readValue(keptManifest.toFile(), Manifest.class)
+                    .replaced.values());
+        }
+        Path objectsDir = root.resolve(OBJECTS_DIR);
+        if (!Files.isDirectory(objectsDir)) {
+            // the generations only created files
+            return;
+        }
+        long runningSince = getOldestRunningGeneration();
+        try (Stream<Path> objects = Files.walk(objectsDir)) {
+            for (Path object : objects.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                String hash = StringUtils.removeEnd(object.getFileName().toString(), GZIP_EXTENSION);
+                // temp files are objects still being stored
+                if (!referenced.contains(hash) && !hash.endsWith(TEMP_EXTENSION)
+                        && Files.getLastModifiedTime(object).toMillis() < runningSince) {
+                    Files.delete(object);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the time the oldest other running generation reserved its manifest, Long.MAX_VALUE without one
+     */
+    private long getOldestRunningGeneration() throws IOException {
+        long oldest = Long.MAX_VALUE;
+        long staleBefore = System.currentTimeMillis() - STALE_GENERATION_MILLIS;
+        try (Stream<Path> manifests = Files.list(root.resolve(GENERATIONS_DIR))) {
+            for (Path running : manifests.filter(file -> !file.equals(manifestFile) && !isManifest(file)
+                    && file.getFileName().toString().endsWith(MANIFEST_EXTENSION)).collect(Collectors.toList())) {
+                long reserved;
+                try {
+                    reserved = Files.getLastModifiedTime(running).toMillis();
+                } catch (NoSuchFileException e) {
+                    continue;
+                }
+                if (reserved < staleBefore) {
+                    LOG.info("Deleted stale backup generation {}", running.getFileName());
+                    Files.deleteIfExists(running);
+                } else {
+                    oldest = Math.min(oldest, reserved);
+                }
+            }
+        }
+        return oldest;
+    }
+
+    private static boolean isManifest(Path file) {
+        try {
+            return file.getFileName().toString().endsWith(MANIFEST_EXTENSION) && Files.size(file) > 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Changes of a single generation.
+     */
+    static class Manifest {
+        public Map<String, String> replaced = new TreeMap<>();
+        public Set<String> created = new TreeSet<>();
+    }
+}
@@ -19,40 +19,55 @@
  */
 package com.adobe.aem.compgenerator.utils;
 
-import com.adobe.aem.compgenerator.Constants;
 import com.adobe.aem.compgenerator.exceptions.GeneratorException;
 import com.adobe.aem.compgenerator.javacodemodel.JavaCodeModel;
-import com.adobe.aem.compgenerator.javacodemodel.RollbackFileHandler;
 import com.adobe.aem.compgenerator.models.BaseModel;
 import com.adobe.aem.compgenerator.models.GenerationConfig;
 import com.adobe.aem.compgenerator.models.OptionTemplateTxt;
 import com.adobe.aem.compgenerator.models.Property;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.text.StringSubstitutor;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 public class CommonUtils {
 
     private static final Logger LOG = LogManager.getLogger(CommonUtils.class);
-    private static final Date CURRENT_TIME = new Date(System.currentTimeMillis());
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * Infix of the backup files created next to replaced files by older versions, e.g.
+     * <code>.content.xml.sv.20190101120000</code>. Replaced files are kept in the {@link BackupStore} now.
+     */
+    public static final String BACKUP_FILE_INFIX = ".sv.";
+
+    /**
+     * Shared mapper for reading data-configs and generator state, configured once and reused for all
+     * components of a run.
+     */
+    public static final ObjectMapper OBJECT_MAPPER =
+            new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 
     /**
      * Method to map JSON content from given file into given GenerationConfig type.
@@ -63,9 +78,7 @@ public class CommonUtils {
     public static GenerationConfig getComponentData(File jsonDataFile) {
         if (jsonDataFile.exists()) {
             try {
-                ObjectMapper mapper = new ObjectMapper();
-                mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-                return mapper.readValue(jsonDataFile, GenerationConfig.class);
+                return OBJECT_MAPPER.readValue(jsonDataFile, GenerationConfig.class);
             } catch (IOException e) {
                 throw new GeneratorException("Exception while reading config file.", e);
             }
@@ -74,30 +87,99 @@ public class CommonUtils {
     }
 
     /**
-     * Renames the file at the given path (if it exists) and returns a new File with the given path.
+     * Method to bind an already parsed data-config tree, e.g. the resolved tree of the templates, into
+     * GenerationConfig without serializing it again.
      *
-     * @param path file path
-     * @return File with the given path
-     * @throws IOException exception
+     * @param dataConfigTree data-config as maps and lists
+     * @return GenerationConfig java class with the mapped content of the tree
      */
-    public static RollbackFileHandler getNewFileAtPathAndRenameExisting(String path) throws IOException {
-        File file = new File(path);
-        if (file.exists()) {
-            SimpleDateFormat simpleDateFormat = new SimpleDateFormat(Constants.RENAME_FILE_DATE_PATTERN);
-            String date = simpleDateFormat.format(CURRENT_TIME);
-            File oldFile = new File(path + ".sv." + date);
-
-            boolean isSuccess = file.renameTo(oldFile);
-            if (isSuccess) {
-                LOG.info("Replaced: " + path + " (Old file: " + oldFile.getName() + ")");
-                return new RollbackFileHandler(file, oldFile);
-            } else {
-                throw new IOException(String.format("Rename oldFile %s failed", path));
+    public static GenerationConfig getComponentDataFromTree(Object dataConfigTree) {
+        if (dataConfigTree != null) {
+            try {
+                return OBJECT_MAPPER.convertValue(dataConfigTree, GenerationConfig.class);
+            } catch (IllegalArgumentException e) {
+                throw new GeneratorException("Exception while binding config.", e);
             }
         }
+        return null;
+    }
+
+    /**
+     * Opens a stream of the file at the given path. Within an {@link OutputTransaction} of the config the file
+     * is staged until the transaction is committed, otherwise it is written on close, and only when its content
+     * differs from the existing file (see {@link WriteIfChangedOutputStream}).
+     *
+     * @param path             file path
+     * @param generationConfig The {@link GenerationConfig} of the generated component, may be null
+     * @return OutputStream of the file
+     * @throws IOException exception while staging the file
+     */
+    public static OutputStream getFileOutputStream(Path path, GenerationConfig generationConfig)
+            throws IOException {
+        OutputTransaction transaction = generationConfig != null ? generationConfig.getOutputTransaction() : null;
+        return transaction != null ? transaction.newOutputStream(path) : new WriteIfChangedOutputStream(path);
+    }
+
+    /**
+     * @param path             path of an output file or folder
+     * @param generationConfig The {@link GenerationConfig} of the generated component, may be null
+     * @return the path in the output filesystem of the config
+     */
+    public static Path getOutputPath(String path, GenerationConfig generationConfig) {
+        return generationConfig != null ? generationConfig.getOutputFileSystem().getPath(path) : Paths.get(path);
+    }
+
+    /**
+     * Opens a writer of the file at the given path, see {@link #getFileOutputStream(Path, GenerationConfig)}.
+     *
+     * @param path             file path
+     * @param generationConfig The {@link GenerationConfig} of the generated component, may be null
+     * @return Writer of the file, encoded in UTF-8
+     * @throws IOException exception while staging the file
+     */
+    public static Writer getFileWriter(String path, GenerationConfig generationConfig) throws IOException {
+        return new OutputStreamWriter(getFileOutputStream(getOutputPath(path, generationConfig), generationConfig),
+                StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param file  a file
+     * @param other another file, may be in another filesystem
+     * @return true if both files exist and have the same content
+     * @throws IOException exception while reading the files
+     */
+    public static boolean contentEquals(Path file, Path other) throws IOException {
+        if (!Files.isRegularFile(file) || !Files.isRegularFile(other) || Files.size(file) != Files.size(other)) {
+            return false;
+        }
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file));
+             InputStream otherIn = new BufferedInputStream(Files.newInputStream(other))) {
+            return IOUtils.contentEquals(in, otherIn);
+        }
+    }
 
-        LOG.info("Created: " + path);
-        return new RollbackFileHandler(file, null);
+    /**
+     * @return a new SHA-256 digest, used for the backup objects and the data-config fingerprints
+     */
+    public static MessageDigest newSha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new GeneratorException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * @param bytes bytes, e.g. of a digest
+     * @return the bytes as lower case hex string
+     */
+    public static String toHex(byte[] bytes) {
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xf];
+        }
+        return new String(hex);
     }
 
     /**
@@ -118,30 +200,24 @@ public class CommonUtils {
      * @return String return content of the resource file as string or null when file not exists
      */
     public static String getTemplateFileAsString(String filePath, GenerationConfig generationConfig) {
-        try (InputStream inputStream = CommonUtils.class.getClassLoader().getResourceAsStream(filePath)) {
-            BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-            Map<String, String> stringsToReplaceValueMap = getStringsToReplaceValueMap(generationConfig);
-            StringSubstitutor stringSubstitutor = new StringSubstitutor(stringsToReplaceValueMap);
-            String content = reader.lines().collect(Collectors.joining(System.lineSeparator()));
-            return stringSubstitutor.replace(content);
-        } catch (IOException e) {
-            LOG.error("Failed to read " + filePath + " from the classpath.", e);
-        }
-        return null;
+        PlaceholderTemplate template = PlaceholderTemplate.forResource(filePath);
+        return template != null ? template.render(getStringsToReplaceValueMap(generationConfig)) : null;
     }
     /**
-     * Creates a new folder.
+     * Creates a new folder, within an {@link OutputTransaction} of the config the folder is only created when
+     * the files in it are committed.
      *
-     * @param folderPath The path where the folder gets created
+     * @param folderPath       The path where the folder gets created
+     * @param generationConfig The {@link GenerationConfig} of the generated component
      * @return Path
      * @throws Exception exception
      */
-    public static Path createFolder(String folderPath) throws Exception {
-        Path path = Paths.get(folderPath);
-        if (Files.notExists(path)) {
-            return Files.createDirectories(path);
+    public static Path createFolder(String folderPath, GenerationConfig generationConfig) throws Exception {
+        Path path = getOutputPath(folderPath, generationConfig);
+        if (generationConfig != null && generationConfig.getOutputTransaction() != null) {
+            return path;
         }
-        return path;
+        return Files.notExists(path) ? Files.createDirectories(path) : path;
     }
 
     /**
@@ -231,21 +307,24 @@ public class CommonUtils {
     private static BufferedWriter getFileWriterFromTemplate(String path,
             String template, GenerationConfig generationConfig) throws IOException {
 
-        RollbackFileHandler file = getNewFileAtPathAndRenameExisting(path);
         String templateString = getTemplateFileAsString(template, generationConfig);
-        BufferedWriter writer = new BufferedWriter(file.getFileWriterNew());
+        BufferedWriter writer = new BufferedWriter(getFileWriter(path, generationConfig));
         writer.write(templateString);
         return writer;
     }
 
     /**
-     * Creates a map of strings to replace placeholder values on template files.
+     * Creates a map of strings to replace placeholder values on template files. The map is built once per
+     * {@link GenerationConfig} and kept with it.
      *
      * @param generationConfig The {@link GenerationConfig} object with all the populated values
-     * @return Map<String, String>
+     * @return unmodifiable Map<String, String>
      */
     static Map<String, String> getStringsToReplaceValueMap(GenerationConfig generationConfig) {
         if (generationConfig != null) {
+            if (generationConfig.getTemplateVariables() != null) {
+                return generationConfig.getTemplateVariables();
+            }
             Map<String, String> map = new HashMap<>();
             map.put("name", generationConfig.getName());
             map.put("title", generationConfig.getTitle());
@@ -258,7 +337,8 @@ public class CommonUtils {
             if (generationConfig.getOptions().getReplaceValueMap() != null) {
                 map.putAll(generationConfig.getOptions().getReplaceValueMap());
             }
-            return map;
+            generationConfig.setTemplateVariables(Collections.unmodifiableMap(map));
+            return generationConfig.getTemplateVariables();
         } else {
             throw new GeneratorException("GenerationConfig generationConfig null");
         }
@@ -24,10 +24,7 @@ import com.adobe.aem.compgenerator.exceptions.GeneratorException;
 import com.adobe.aem.compgenerator.models.GenerationConfig;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 
-import javax.xml.parsers.DocumentBuilderFactory;
 import java.nio.file.Path;
 
 /**
@@ -113,7 +110,7 @@ public class ComponentUtils {
 
                 if (generationConfig.getOptions().isHasCss()) {
                     String clientLibCssFolder = clientLibSiteDirPath + "/css";
-                    CommonUtils.createFolder(clientLibCssFolder);
+                    CommonUtils.createFolder(clientLibCssFolder, generationConfig);
 
                     String clientLibCssFileName = generationConfig.getName() + ".less";
                     String clientLibCssFilePath = clientLibCssFolder + "/" + clientLibCssFileName;
@@ -127,7 +124,7 @@ public class ComponentUtils {
 
                 if (generationConfig.getOptions().isHasJs()) {
                     String clientLibJsFolder = clientLibSiteDirPath + "/js";
-                    CommonUtils.createFolder(clientLibJsFolder);
+                    CommonUtils.createFolder(clientLibJsFolder, generationConfig);
 
                     String clientLibJsFileName = generationConfig.getName() + ".js";
                     String clientLibJsFilePath = clientLibJsFolder + "/" + clientLibJsFileName;
@@ -155,27 +152,24 @@ public class ComponentUtils {
      */
     static void createFolderWithContentXML(String path, String folderType, GenerationConfig generationConfig)
             throws Exception {
-        Path folderPath = CommonUtils.createFolder(path);
-        try {
-            Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
-            Element rootElement = XMLUtils.createRootElement(doc, generationConfig);
+        Path folderPath = CommonUtils.createFolder(path, generationConfig);
+        String filePath = folderPath + "/" + Constants.FILENAME_CONTENT_XML;
+        try (DocViewWriter writer = DocViewWriter.open(filePath, generationConfig)) {
+            XMLUtils.startRootNode(writer, generationConfig);
 
             //set attributes based on folderType.
             if (folderType.equalsIgnoreCase(Constants.TYPE_CQ_COMPONENT)) {
-                rootElement.setAttribute(Constants.JCR_PRIMARY_TYPE, folderType);
-                rootElement.setAttribute(Constants.PROPERTY_JCR_TITLE, generationConfig.getTitle());
-                rootElement.setAttribute("componentGroup", generationConfig.getGroup());
+                writer.attribute(Constants.JCR_PRIMARY_TYPE, folderType);
+                writer.attribute(Constants.PROPERTY_JCR_TITLE, generationConfig.getTitle());
+                writer.attribute("componentGroup", generationConfig.getGroup());
             } else if (folderType.equalsIgnoreCase(Constants.TYPE_SLING_FOLDER)) {
-                rootElement.setAttribute(Constants.JCR_PRIMARY_TYPE, folderType);
+                writer.attribute(Constants.JCR_PRIMARY_TYPE, folderType);
             } else if (folderType.equalsIgnoreCase(Constants.TYPE_CQ_CLIENTLIB_FOLDER)) {
-                rootElement.setAttribute(Constants.JCR_PRIMARY_TYPE, folderType);
-                rootElement.setAttribute("allowProxy", "{Boolean}true");
+                writer.attribute(Constants.JCR_PRIMARY_TYPE, folderType);
+                writer.attribute("allowProxy", "{Boolean}true");
                 String dotReplacedComponentPath = generationConfig.getProjectSettings().getComponentPath().replace("/", ".");
-                rootElement.setAttribute("categories", "[" + dotReplacedComponentPath + "." + generationConfig.getName() + "]");
+                writer.attribute("categories", "[" + dotReplacedComponentPath + "." + generationConfig.getName() + "]");
             }
-
-            doc.appendChild(rootElement);
-            XMLUtils.transformDomToFile(doc, folderPath + "/" + Constants.FILENAME_CONTENT_XML);
         } catch (Exception e) {
             throw new GeneratorException("Exception while creating Folder/xml : " + path, e);
         }
@@ -0,0 +1,226 @@
+/*
+ * #%L
+ * AEM Component Generator
+ * %%
+ * Copyright (C) 2019 Adobe
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.adobe.aem.compgenerator.utils;
+
+import com.adobe.aem.compgenerator.exceptions.GeneratorException;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * <p>
+ * FileVault content package written with a {@link ZipOutputStream}, the generated component files are streamed
+ * into the package instead of the <code>ui.apps</code> folder.
+ * <p>
+ * The repository path of a file is taken from its path below the last <code>jcr_root</code> folder, e.g.
+ * <code>ui.apps/src/main/content/jcr_root/apps/newco/components/demo/.content.xml</code> is added as
+ * <code>jcr_root/apps/newco/components/demo/.content.xml</code>. Every component folder becomes a filter root of
+ * <code>META-INF/vault/filter.xml</code>, which is written with <code>META-INF/vault/properties.xml</code> on
+ * {@link #close()}. Java sources are not part of the package, they are written to a separate sources jar
+ * next to it.
+ */
+public class ContentPackage implements Closeable {
+    private static final Logger LOG = LogManager.getLogger(ContentPackage.class);
+
+    static final String JCR_ROOT = "jcr_root";
+    static final String FILTER_XML = "META-INF/vault/filter.xml";
+    static final String PROPERTIES_XML = "META-INF/vault/properties.xml";
+    static final String DEFAULT_GROUP = "my_packages";
+    static final String DEFAULT_VERSION = "1.0";
+
+    private static final String PACKAGE_EXTENSION = ".zip";
+    private static final String SOURCES_JAR_SUFFIX = "-sources.jar";
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newFactory();
+
+    private final Path packageFile;
+    private final Path sourcesJarFile;
+    private final String group;
+    private final String name;
+    private final String version;
+    private final Set<String> filterRoots = new TreeSet<>();
+    private final ZipOutputStream content;
+    private ZipOutputStream sources;
+    private int entryCount;
+    private int sourceCount;
+
+    private ContentPackage(Path packageFile, String group, String version) throws IOException {
+        this.packageFile = packageFile;
+        this.name = StringUtils.removeEnd(packageFile.getFileName().toString(), PACKAGE_EXTENSION);
+        this.sourcesJarFile = packageFile.resolveSibling(name + SOURCES_JAR_SUFFIX);
+        this.group = group;
+        this.version = version;
+        if (packageFile.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(packageFile.toAbsolutePath().getParent());
+        }
+        this.content = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(packageFile)));
+    }
+
+    /**
+     * Creates the package file, the package name is the file name without the <code>.zip</code> extension.
+     *
+     * @param packageFile the zip file of the package
+     * @return ContentPackage with the default group and version
+     * @throws IOException exception while creating the file
+     */
+    public static ContentPackage create(Path packageFile) throws IOException {
+        return new ContentPackage(packageFile, DEFAULT_GROUP, DEFAULT_VERSION);
+    }
+
+    /**
+     * Adds the folder to the filter of the package.
+     *
+     * @param folder folder below a <code>jcr_root</code> folder, e.g. the component folder
+     */
+    public synchronized void addFilterRoot(Path folder) {
+        filterRoots.add("/" + StringUtils.removeStart(getEntryName(folder), JCR_ROOT + "/"));
+    }
+
+    /**
+     * Adds a file below the <code>jcr_root</code> folder of the package.
+     *
+     * @param target  the path of the file in the <code>ui.apps</code> folder
+     * @param content the content of the file
+     * @throws IOException exception while writing the entry
+     */
+    public synchronized void addContent(Path target, byte[] content) throws IOException {
+        putEntry(this.content, getEntryName(target), content);
+        entryCount++;
+    }
+
+    /**
+     * Adds a java source to the sources jar, which is created with the first source.
+     *
+     * @param entryName the path of the source relative to the source folder, e.g. <code>com/newco/Demo.java</code>
+     * @param content   the content of the source
+     * @throws IOException exception while writing the entry
+     */
+    public synchronized void addSource(String entryName, byte[] content) throws IOException {
+        if (sources == null) {
+            sources = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(sourcesJarFile)));
+        }
+        putEntry(sources, entryName, content);
+        sourceCount++;
+    }
+
+    /**
+     * Writes the vault metadata and closes the package and the sources jar.
+     *
+     * @throws IOException exception while writing the metadata
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            content.putNextEntry(new ZipEntry(FILTER_XML));
+            writeFilter(filterRoots, content);
+            content.closeEntry();
+            content.putNextEntry(new ZipEntry(PROPERTIES_XML));
+            getProperties().storeToXML(content, null, "UTF-8");
+            content.closeEntry();
+        } finally {
+            content.close();
+            if (sources != null) {
+                sources.close();
+            }
+        }
+        LOG.info("Content package {}: {} files of {} components", packageFile, entryCount, filterRoots.size());
+        if (sourceCount > 0) {
+            LOG.info("Sources jar {}: {} java sources", sourcesJarFile, sourceCount);
+        }
+    }
+
+    Properties getProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("group", group);
+        properties.setProperty("name", name);
+        properties.setProperty("version", version);
+        properties.setProperty("createdBy", "AEM Component Generator");
+        properties.setProperty("description", "Generated components");
+        return properties;
+    }
+
+    /**
+     * @param target path of a file or folder in the <code>ui.apps</code> folder
+     * @return the zip entry name starting with <code>jcr_root/</code>
+     */
+    static String getEntryName(Path target) {
+        Path absoluteTarget = target.toAbsolutePath().normalize();
+        int jcrRootIndex = -1;
+        for (int i = 0; i < absoluteTarget.getNameCount(); i++) {
+            if (JCR_ROOT.equals(absoluteTarget.getName(i).toString())) {
+                jcrRootIndex = i;
+            }
+        }
+        if (jcrRootIndex < 0 || jcrRootIndex == absoluteTarget.getNameCount() - 1) {
+            throw new GeneratorException(target + " is not below a " + JCR_ROOT + " folder, it can not be added"
+                    + " to the content package");
+        }
+        List<String> names = new ArrayList<>();
+        for (int i = jcrRootIndex; i < absoluteTarget.getNameCount(); i++) {
+            names.add(absoluteTarget.getName(i).toString());
+        }
+        return StringUtils.join(names, '/');
+    }
+
+    static void writeFilter(Set<String> filterRoots, OutputStream out) throws IOException {
+        try {
+            XMLStreamWriter xml = OUTPUT_FACTORY.createXMLStreamWriter(out, "UTF-8");
+            xml.writeStartDocument("UTF-8", "1.0");
+            xml.writeCharacters("\n");
+            xml.writeStartElement("workspaceFilter");
+            xml.writeAttribute("version", "1.0");
+            for (String filterRoot : filterRoots) {
+                xml.writeCharacters("\n    ");
+                xml.writeEmptyElement("filter");
+                xml.writeAttribute("root", filterRoot);
+            }
+            xml.writeCharacters("\n");
+            xml.writeEndElement();
+            xml.writeCharacters("\n");
+            xml.writeEndDocument();
+            xml.flush();
+            xml.close();
+        } catch (XMLStreamException e) {
+            throw new IOException("Exception while writing " + FILTER_XML, e);
+        }
+    }
+
+    private static void putEntry(ZipOutputStream zip, String entryName, byte[] content) throws IOException {
+        zip.putNextEntry(new ZipEntry(entryName));
+        zip.write(content);
+        zip.closeEntry();
+    }
+}
@@ -22,10 +22,6 @@ package com.adobe.aem.compgenerator.utils;
 import com.adobe.aem.compgenerator.Constants;
 import com.adobe.aem.compgenerator.exceptions.GeneratorException;
 import com.adobe.aem.compgenerator.models.GenerationConfig;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-
-import javax.xml.parsers.DocumentBuilderFactory;
 
 public class DesignDialogUtils extends DialogUtils {
 
@@ -38,44 +34,38 @@ public class DesignDialogUtils extends DialogUtils {
     public static void createDesignDialogXml(final GenerationConfig generationConfig, String dialogType) {
         try {
             String designDialogPath = generationConfig.getCompDir() + "/" + dialogType;
-            CommonUtils.createFolder(designDialogPath);
-
-            Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
-            Element rootElement = createDialogRoot(doc, generationConfig, dialogType);
-            buildDesignDialogStructure(doc, rootElement);
+            CommonUtils.createFolder(designDialogPath, generationConfig);
 
-            doc.appendChild(rootElement);
-            XMLUtils.transformDomToFile(doc, designDialogPath + "/" + Constants.FILENAME_CONTENT_XML);
+            String filePath = designDialogPath + "/" + Constants.FILENAME_CONTENT_XML;
+            try (DocViewWriter writer = DocViewWriter.open(filePath, generationConfig)) {
+                startDialogRoot(writer, generationConfig, dialogType);
+                buildDesignDialogStructure(writer);
+            }
         } catch (Exception e) {
             throw new GeneratorException("Exception while creating Design Dialog xml.", e);
         }
     }
 
     /**
-     * Fully builds the design dialog's structure on the {@link Element} 'root'.
+     * Fully builds the design dialog's structure below the current node.
      *
-     * @param document The {@link Document} object
-     * @param root The root node to append children nodes to
+     * @param writer The {@link DocViewWriter} positioned on the root node
      */
-    private static void buildDesignDialogStructure(Document document, Element root) {
-        Element containerElement = document.createElement("content");
-        containerElement.setAttribute(Constants.JCR_PRIMARY_TYPE, Constants.NT_UNSTRUCTURED);
-        containerElement.setAttribute(Constants.PROPERTY_SLING_RESOURCETYPE, Constants.RESOURCE_TYPE_CONTAINER);
-
-        Element tabsElement = document.createElement("tabs");
-        tabsElement.setAttribute(Constants.JCR_PRIMARY_TYPE, Constants.NT_UNSTRUCTURED);
-        tabsElement.setAttribute(Constants.PROPERTY_SLING_RESOURCETYPE, Constants.RESOURCE_TYPE_TABS);
-        tabsElement.setAttribute("maximized", "{Boolean}true");
-
-        Element styleTabElement = document.createElement("styletab");
-        styleTabElement.setAttribute(Constants.JCR_PRIMARY_TYPE, Constants.NT_UNSTRUCTURED);
-        styleTabElement.setAttribute(Constants.PROPERTY_SLING_RESOURCETYPE, Constants.RESOURCE_TYPE_INCLUDE);
-        styleTabElement.setAttribute("path", Constants.STYLE_SYSTEM_TAB_PATH);
-
-        root.appendChild(containerElement)
-                .appendChild(createUnStructuredNode(document, "items"))
-                .appendChild(tabsElement)
-                .appendChild(createUnStructuredNode(document, "items"))
-                .appendChild(styleTabElement);
+    private static void buildDesignDialogStructure(DocViewWriter writer) {
+        writer.startNode("content")
+                .unstructured()
+                .attribute(Constants.PROPERTY_SLING_RESOURCETYPE, Constants.RESOURCE_TYPE_CONTAINER);
+        writer.startNode("items").unstructured();
+        writer.startNode("tabs")
+                .unstructured()
+                .attribute(Constants.PROPERTY_SLING_RESOURCETYPE, Constants.RESOURCE_TYPE_TABS)
+                .attribute("maximized", "{Boolean}true");
+        writer.startNode("items").unstructured();
+        writer.startNode("styletab")
+                .unstructured()
+                .attribute(Constants.PROPERTY_SLING_RESOURCETYPE, Constants.RESOURCE_TYPE_INCLUDE)
+                .attribute("path", Constants.STYLE_SYSTEM_TAB_PATH)
+                .endNode();
+        writer.endNode().endNode().endNode().endNode();
     }
 }
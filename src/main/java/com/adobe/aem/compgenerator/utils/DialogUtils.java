@@ -28,12 +28,7 @@ import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.w3c.dom.DOMException;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
 
-import javax.xml.parsers.DocumentBuilderFactory;
 import java.util.List;
 
 public class DialogUtils {
@@ -48,10 +43,8 @@ public class DialogUtils {
     public static void createDialogXml(final GenerationConfig generationConfig, final String dialogType) {
         String dialogPath = generationConfig.getCompDir() + "/" + dialogType;
         try {
-            CommonUtils.createFolder(dialogPath);
+            CommonUtils.createFolder(dialogPath, generationConfig);
 
-            Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
-            Element rootElement = createDialogRoot(doc, generationConfig, dialogType);
             List<Property> properties = generationConfig.getOptions().getProperties();
 
             if (dialogType.equalsIgnoreCase(Constants.DIALOG_TYPE_GLOBAL)) {
@@ -59,81 +52,80 @@ public class DialogUtils {
             } else if (dialogType.equalsIgnoreCase(Constants.DIALOG_TYPE_SHARED)) {
                 properties = generationConfig.getOptions().getSharedProperties();
             }
-            Node rootNode = updateDefaultNodeStructure(doc, rootElement, "content");
-            handleProperties(doc, rootNode, generationConfig, properties, true);
-            doc.appendChild(rootElement);
-            XMLUtils.transformDomToFile(doc, dialogPath + "/" + Constants.FILENAME_CONTENT_XML);
+            String filePath = dialogPath + "/" + Constants.FILENAME_CONTENT_XML;
+            try (DocViewWriter writer = DocViewWriter.open(filePath, generationConfig)) {
+                startDialogRoot(writer, generationConfig, dialogType);
+                startDefaultNodeStructure(writer, "content");
+                handleProperties(writer, generationConfig, properties, true);
+                endDefaultNodeStructure(writer);
+            }
         } catch (Exception e) {
             throw new GeneratorException("Exception while creating Dialog xml : " + dialogPath, e);
         }
     }
 
-    private static void handleProperties(Document document, Node rootNode, GenerationConfig generationConfig,
+    private static void handleProperties(DocViewWriter writer, GenerationConfig generationConfig,
             List<Property> properties,
             boolean rederItemsNode) {
         if (properties != null && properties.size() > 0) {
-            LOG.debug("handleProperties for element [{}] ", rootNode.getNodeName());
-            Node subNode = rootNode;
+            LOG.debug("handleProperties for [{}] properties", properties.size());
             if (rederItemsNode) {
-                subNode = rootNode.appendChild(createUnStructuredNode(document, "items"));
+                writer.startNode("items").unstructured();
             }
             for (Property property : properties) {
                 if (property != null) {
-                    Element a = createPropertyNode(document, subNode, generationConfig, property);
-                    if (a != null) {
-                        subNode.appendChild(a);
-                    }
+                    writePropertyNode(writer, generationConfig, property);
                 }
             }
+            if (rederItemsNode) {
+                writer.endNode();
+            }
         }
     }
 
     /**
-     * Generates the root elements of what will be the _cq_dialog/.content.xml.
+     * Starts the root node of what will be the _cq_dialog/.content.xml.
      *
-     * @param document The {@link Document} object
+     * @param writer The {@link DocViewWriter} of the file
      * @param generationConfig The {@link GenerationConfig} object with all the populated values
      * @param dialogType The type of dialog to create (regular, shared or global)
-     * @return Element
      */
-    protected static Element createDialogRoot(Document document, GenerationConfig generationConfig, String dialogType) {
-        Element rootElement = XMLUtils.createRootElement(document, generationConfig);
+    protected static void startDialogRoot(DocViewWriter writer, GenerationConfig generationConfig, String dialogType) {
+        XMLUtils.startRootNode(writer, generationConfig);
 
-        rootElement.setAttribute(Constants.JCR_PRIMARY_TYPE, Constants.NT_UNSTRUCTURED);
-        rootElement.setAttribute(Constants.PROPERTY_SLING_RESOURCETYPE, Constants.RESOURCE_TYPE_DIALOG);
+        writer.attribute(Constants.JCR_PRIMARY_TYPE, Constants.NT_UNSTRUCTURED);
+        writer.attribute(Constants.PROPERTY_SLING_RESOURCETYPE, Constants.RESOURCE_TYPE_DIALOG);
 
         if (dialogType.equalsIgnoreCase(Constants.DIALOG_TYPE_GLOBAL)) {
-            rootElement.setAttribute(Constants.PROPERTY_JCR_TITLE, generationConfig.getTitle() + " (Global Properties)");
+            writer.attribute(Constants.PROPERTY_JCR_TITLE, generationConfig.getTitle() + " (Global Properties)");
         } else if (dialogType.equalsIgnoreCase(Constants.DIALOG_TYPE_SHARED)) {
-            rootElement.setAttribute(Constants.PROPERTY_JCR_TITLE, generationConfig.getTitle() + " (Shared Properties)");
+            writer.attribute(Constants.PROPERTY_JCR_TITLE, generationConfig.getTitle() + " (Shared Properties)");
         } else if (dialogType.equalsIgnoreCase(Constants.DIALOG_TYPE_DESIGN_DIALOG)) {
-            rootElement.setAttribute(Constants.PROPERTY_JCR_TITLE, generationConfig.getTitle() + " Design Dialog");
+            writer.attribute(Constants.PROPERTY_JCR_TITLE, generationConfig.getTitle() + " Design Dialog");
         } else {
-            rootElement.setAttribute(Constants.PROPERTY_JCR_TITLE, generationConfig.getTitle());
+            writer.attribute(Constants.PROPERTY_JCR_TITLE, generationConfig.getTitle());
         }
-
-        return rootElement;
     }
 
     /**
-     * Adds a dialog property xml node with all input attr under the document.
+     * Writes a dialog property xml node with all input attr below the current node. The attributes are all set
+     * before the child nodes are written.
      *
-     * @param document The {@link Document} object
+     * @param writer The {@link DocViewWriter} positioned on the parent node
      * @param generationConfig ..
      * @param property The {@link Property} object contains attributes
-     * @return Element
      */
-    private static Element createPropertyNode(Document document, Node currentNode, GenerationConfig generationConfig,
+    static void writePropertyNode(DocViewWriter writer, GenerationConfig generationConfig,
             Property property) {
         String propertyField = property.getField();
-        LOG.debug("createPropertyNode for node [{}] and property [{}]", currentNode.getNodeName(), propertyField);
-        Element propertyNode = document.createElement(propertyField);
+        LOG.debug("writePropertyNode for property [{}]", propertyField);
+        writer.startNode(propertyField);
 
-        propertyNode.setAttribute(Constants.JCR_PRIMARY_TYPE, Constants.NT_UNSTRUCTURED);
-        setSlingResourceType(propertyNode, property);
+        writer.attribute(Constants.JCR_PRIMARY_TYPE, Constants.NT_UNSTRUCTURED);
+        setSlingResourceType(writer, property);
 
         // Some of the properties are optional based on the different types available.
-        addBasicProperties(propertyNode, property);
+        addBasicProperties(writer, property);
 
         String nameForField = getPropertyFieldName(generationConfig, property);
         if (StringUtils.isNotEmpty(propertyField) && property.getTypeAsFieldType() != null &&
@@ -141,36 +133,44 @@ public class DialogUtils {
                 BooleanUtils.isNotTrue(property.isChildResource())) {
             LOG.debug("createNameAndLockable for field [{}] and type [{}]", propertyField,
                     property.getTypeAsFieldType());
-            propertyNode.setAttribute(Constants.PROPERTY_NAME, nameForField);
-            propertyNode.setAttribute(Constants.PROPERTY_CQ_MSM_LOCKABLE, nameForField);
+            writer.attribute(Constants.PROPERTY_NAME, nameForField);
+            writer.attribute(Constants.PROPERTY_CQ_MSM_LOCKABLE, nameForField);
         } else {
             LOG.debug("No createNameAndLockable for field [{}] and type [{}] isChild [{}]", nameForField,
                     property.getTypeAsFieldType(), property.isChildResource());
         }
-        processAttributes(propertyNode, property);
-        processGraniteData(document, propertyNode, property);
+        processAttributes(writer, property);
 
-        if (property.getItems() != null && !property.getItems().isEmpty()) {
-            if (Property.FieldType.MULTIFIELD == property.getTypeAsFieldType()) {
-                handleMultifieldProperty(document, generationConfig, property, propertyNode);
+        boolean hasItems = property.getItems() != null && !property.getItems().isEmpty();
+        boolean isMultifield = Property.FieldType.MULTIFIELD == property.getTypeAsFieldType();
+        if (hasItems && isMultifield && property.getItems().size() > 1) {
+            writer.attribute(Constants.PROPERTY_COMPOSITE, "{Boolean}true");
+        }
+        boolean isImage = Property.FieldType.IMAGE.equals(property.getTypeAsFieldType());
+        if (isImage) {
+            addImagePropertyValues(writer, generationConfig, property);
+        }
+
+        processGraniteData(writer, property);
+
+        if (hasItems) {
+            if (isMultifield) {
+                handleMultifieldProperty(writer, generationConfig, property);
             } else if (property.getTypeAsFieldType().isHandleItemsAsJcrProperties()) {
-                handleProperties(document, propertyNode, generationConfig, property.getItems(), true);
+                handleProperties(writer, generationConfig, property.getItems(), true);
             } else {
-                Node items = propertyNode.appendChild(createUnStructuredNode(document, "items"));
-                processItems(document, generationConfig, items, property);
+                writer.startNode("items").unstructured();
+                processItems(writer, generationConfig, property);
+                writer.endNode();
             }
         }
+        writer.endNode();
 
-        if (Property.FieldType.IMAGE.equals(property.getTypeAsFieldType())) {
-            addImagePropertyValues(propertyNode, generationConfig, property);
-            currentNode.appendChild(propertyNode);
-
-            Element hiddenImageNode = document.createElement(propertyField + "ResType");
-            addImageHiddenProperyValues(hiddenImageNode, property);
-            return hiddenImageNode;
+        if (isImage) {
+            writer.startNode(propertyField + "ResType");
+            addImageHiddenProperyValues(writer, property);
+            writer.endNode();
         }
-
-        return propertyNode;
     }
 
     private static String getPropertyFieldName(GenerationConfig generationConfig, Property property) {
@@ -187,132 +187,141 @@ public class DialogUtils {
         return nameForField;
     }
 
-    private static void handleMultifieldProperty(Document document, GenerationConfig generationConfig,
-            Property property, Element propertyNode) {
-        Element field = document.createElement("field");
+    private static void handleMultifieldProperty(DocViewWriter writer, GenerationConfig generationConfig,
+            Property property) {
         String nameForField = getPropertyFieldName(generationConfig, property);
-        field.setAttribute(Constants.JCR_PRIMARY_TYPE, Constants.NT_UNSTRUCTURED);
-        field.setAttribute(Constants.PROPERTY_NAME, nameForField);
-        field.setAttribute(Constants.PROPERTY_CQ_MSM_LOCKABLE, nameForField);
-        field.setAttribute(Constants.PROPERTY_SLING_RESOURCETYPE, Constants.RESOURCE_TYPE_FIELDSET);
+        if (property.getItems().size() == 1 && generationConfig.getOptions().isFlatMultifields()) {
+            // the field of the item is the field of the multifield, its values are stored as one multi value
+            // property on the component node
+            writer.startNode("field");
+            writer.attribute(Constants.JCR_PRIMARY_TYPE, Constants.NT_UNSTRUCTURED);
+            writer.attribute(Constants.PROPERTY_NAME, nameForField);
+            writer.attribute(Constants.PROPERTY_CQ_MSM_LOCKABLE, nameForField);
+            Property prop = property.getItems().get(0);
+            setSlingResourceType(writer, prop);
+            addBasicProperties(writer, prop);
+            processAttributes(writer, prop);
+            writer.endNode();
+            return;
+        }
+        writer.startNode("field");
+        writer.attribute(Constants.JCR_PRIMARY_TYPE, Constants.NT_UNSTRUCTURED);
+        writer.attribute(Constants.PROPERTY_NAME, nameForField);
+        writer.attribute(Constants.PROPERTY_CQ_MSM_LOCKABLE, nameForField);
+        writer.attribute(Constants.PROPERTY_SLING_RESOURCETYPE, Constants.RESOURCE_TYPE_FIELDSET);
 
         if (property.getItems().size() == 1) {
-            Element layout = document.createElement("layout");
-            layout.setAttribute(Constants.JCR_PRIMARY_TYPE, Constants.NT_UNSTRUCTURED);
-            layout.setAttribute(Constants.PROPERTY_SLING_RESOURCETYPE, Constants.RESOURCE_TYPE_FIXEDCOLUMNS);
-            layout.setAttribute("method", "absolute");
-            field.appendChild(layout);
+            writer.startNode("layout");
+            writer.attribute(Constants.JCR_PRIMARY_TYPE, Constants.NT_UNSTRUCTURED);
+            writer.attribute(Constants.PROPERTY_SLING_RESOURCETYPE, Constants.RESOURCE_TYPE_FIXEDCOLUMNS);
+            writer.attribute("method", "absolute");
+            writer.endNode();
 
-            Node items = field.appendChild(createUnStructuredNode(document, "items"));
-            Element column = document.createElement("column");
-            column.setAttribute(Constants.JCR_PRIMARY_TYPE, Constants.NT_UNSTRUCTURED);
-            column.setAttribute(Constants.PROPERTY_SLING_RESOURCETYPE, Constants.RESOURCE_TYPE_CONTAINER);
-            items.appendChild(column);
+            writer.startNode("items").unstructured();
+            writer.startNode("column");
+            writer.attribute(Constants.JCR_PRIMARY_TYPE, Constants.NT_UNSTRUCTURED);
+            writer.attribute(Constants.PROPERTY_SLING_RESOURCETYPE, Constants.RESOURCE_TYPE_CONTAINER);
 
-            items = column.appendChild(createUnStructuredNode(document, "items"));
+            writer.startNode("items").unstructured();
 
-            Element actualField = document.createElement("field");
-            actualField.setAttribute(Constants.JCR_PRIMARY_TYPE, Constants.NT_UNSTRUCTURED);
-            actualField.setAttribute(Constants.PROPERTY_NAME, nameForField);
-            actualField.setAttribute(Constants.PROPERTY_CQ_MSM_LOCKABLE, nameForField);
+            writer.startNode("field");
+            writer.attribute(Constants.JCR_PRIMARY_TYPE, Constants.NT_UNSTRUCTURED);
+            writer.attribute(Constants.PROPERTY_NAME, nameForField);
+            writer.attribute(Constants.PROPERTY_CQ_MSM_LOCKABLE, nameForField);
 
             Property prop = property.getItems().get(0);
-            setSlingResourceType(actualField, prop);
-            addBasicProperties(actualField, prop);
-            processAttributes(actualField, prop);
-            items.appendChild(actualField);
+            setSlingResourceType(writer, prop);
+            addBasicProperties(writer, prop);
+            processAttributes(writer, prop);
+            writer.endNode();
+
+            // items, column, items
+            writer.endNode().endNode().endNode();
         } else {
-            propertyNode.setAttribute(Constants.PROPERTY_COMPOSITE, "{Boolean}true");
-            Node items = field.appendChild(createUnStructuredNode(document, "items"));
-            processItems(document, generationConfig, items, property);
+            writer.startNode("items").unstructured();
+            processItems(writer, generationConfig, property);
+            writer.endNode();
         }
 
-        propertyNode.appendChild(field);
+        writer.endNode();
     }
 
     /**
-     * Processes the attributes for a propertyNode.
+     * Processes the attributes for the current node.
      *
-     * @param propertyNode The node to add property attributes
+     * @param writer The {@link DocViewWriter} positioned on the node to add property attributes
      * @param property The {@link Property} object contains attributes
      */
-    private static void processAttributes(Element propertyNode, Property property) {
+    private static void processAttributes(DocViewWriter writer, Property property) {
         if (property.getAttributes() != null && property.getAttributes().size() > 0) {
             property.getAttributes().entrySet().stream()
-                    .forEach(entry -> propertyNode.setAttribute(entry.getKey(), entry.getValue()));
+                    .forEach(entry -> writer.attribute(entry.getKey(), entry.getValue()));
         }
     }
 
     /**
-     * Processes the graniteData for a propertyNode.
+     * Processes the graniteData for the current node.
      *
-     * @param document     ..
-     * @param property     The {@link Property} object contains attributes
-     * @param propertyNode The node to add property attributes
+     * @param writer   The {@link DocViewWriter} positioned on the node to add the granite:data node
+     * @param property The {@link Property} object contains attributes
      */
-    private static void processGraniteData(Document document, Element propertyNode, Property property) {
+    private static void processGraniteData(DocViewWriter writer, Property property) {
         if (property.getGraniteDate() != null && property.getGraniteDate().size() > 0) {
-            try {
-                Element graniteData = createUnStructuredNode(document, "granite:data");
-                property.getGraniteDate().entrySet().stream()
-                        .forEach(entry -> graniteData.setAttribute(entry.getKey(), entry.getValue()));
-                propertyNode.appendChild(graniteData);
-            } catch (DOMException e) {
-                throw new GeneratorException("Exception while process granite:data for Dialog xml : " + property.getField(), e);
-            }
+            writer.startNode("granite:data").unstructured();
+            property.getGraniteDate().entrySet().stream()
+                    .forEach(entry -> writer.attribute(entry.getKey(), entry.getValue()));
+            writer.endNode();
         }
     }
 
     /**
      * Process the dialog node item by setting property attributes on it.
-     *  @param document The {@link Document} object
+     *  @param writer The {@link DocViewWriter} positioned on the items node
      * @param generationConfig
-     * @param itemsNode The {@link Node} object
      * @param property The {@link Property} object contains attributes
      */
-    private static void processItems(Document document, GenerationConfig generationConfig, Node itemsNode,
-            Property property) {
+    private static void processItems(DocViewWriter writer, GenerationConfig generationConfig, Property property) {
         if (property.getItems() == null) {
             LOG.debug("no property items available");
             return;
         }
         for (Property propertyItem : property.getItems()) {
-            Element optionNode = document.createElement(propertyItem.getField());
-            optionNode.setAttribute(Constants.JCR_PRIMARY_TYPE, Constants.NT_UNSTRUCTURED);
+            writer.startNode(propertyItem.getField());
+            writer.attribute(Constants.JCR_PRIMARY_TYPE, Constants.NT_UNSTRUCTURED);
 
-            addBasicProperties(optionNode, propertyItem);
+            addBasicProperties(writer, propertyItem);
 
-            setSlingResourceType(optionNode, propertyItem);
+            setSlingResourceType(writer, propertyItem);
 
             if (property.getTypeAsFieldType().equals(Property.FieldType.MULTIFIELD)) {
                 String nameForField = getPropertyFieldName(generationConfig, property);
-                optionNode.setAttribute(Constants.PROPERTY_NAME, nameForField);
+                writer.attribute(Constants.PROPERTY_NAME, nameForField);
             }
 
-            processAttributes(optionNode, propertyItem);
-            itemsNode.appendChild(optionNode);
+            processAttributes(writer, propertyItem);
+            writer.endNode();
         }
     }
 
-    private static void setSlingResourceType(Element propertyNode, Property property) {
+    private static void setSlingResourceType(DocViewWriter writer, Property property) {
         String resourceType = getSlingResourceType(property);
         if (StringUtils.isNotEmpty(resourceType)) {
-            propertyNode.setAttribute(Constants.PROPERTY_SLING_RESOURCETYPE, resourceType);
+            writer.attribute(Constants.PROPERTY_SLING_RESOURCETYPE, resourceType);
         }
     }
 
     /**
      * Adds the field label and field description attributes to the node.
      *
-     * @param propertyNode The node to add property attributes
+     * @param writer The {@link DocViewWriter} positioned on the node to add property attributes
      * @param property The {@link Property} object contains attributes
      */
-    private static void addBasicProperties(Element propertyNode, Property property) {
+    private static void addBasicProperties(DocViewWriter writer, Property property) {
         if (StringUtils.isNotEmpty(property.getLabel())) {
-            propertyNode.setAttribute(Constants.PROPERTY_FIELDLABEL, property.getLabel());
+            writer.attribute(Constants.PROPERTY_FIELDLABEL, property.getLabel());
         }
         if (StringUtils.isNotEmpty(property.getDescription())) {
-            propertyNode.setAttribute(Constants.PROPERTY_FIELDDESC, property.getDescription());
+            writer.attribute(Constants.PROPERTY_FIELDDESC, property.getDescription());
         }
     }
 
@@ -320,79 +329,72 @@ public class DialogUtils {
      * Adds the properties specific to the image node. These could all have been
      * included as attributes in the configuration json file, but they never/rarely
      * change, so hardcoding them here seems safe to do.
-     *  @param imageNode The {@link Node} object
+     *  @param writer The {@link DocViewWriter} positioned on the image node
      * @param generationConfig
      * @param property The {@link Property} object contains attributes
      */
-    private static void addImagePropertyValues(Element imageNode, GenerationConfig generationConfig,
+    private static void addImagePropertyValues(DocViewWriter writer, GenerationConfig generationConfig,
             Property property) {
         String nameForField = getPropertyFieldName(generationConfig, property);
-        imageNode.setAttribute(Constants.PROPERTY_NAME, nameForField + "/file");
-        imageNode.setAttribute(Constants.PROPERTY_CQ_MSM_LOCKABLE, nameForField + "/file");
-        imageNode.setAttribute("allowUpload", "{Boolean}false");
-        imageNode.setAttribute("autoStart", "{Boolean}false");
-        imageNode.setAttribute("class", "cq-droptarget");
-        imageNode.setAttribute("fileReferenceParameter", nameForField + "/fileReference");
-        imageNode.setAttribute("mimeTypes", "[image/gif,image/jpeg,image/png,image/webp,image/tiff,image/svg+xml]");
-        imageNode.setAttribute("multiple", "{Boolean}false");
-        imageNode.setAttribute("title", "Drag to select image");
-        imageNode.setAttribute("uploadUrl", "${suffix.path}");
-        imageNode.setAttribute("useHTML5", "{Boolean}true");
+        writer.attribute(Constants.PROPERTY_NAME, nameForField + "/file");
+        writer.attribute(Constants.PROPERTY_CQ_MSM_LOCKABLE, nameForField + "/file");
+        writer.attribute("allowUpload", "{Boolean}false");
+        writer.attribute("autoStart", "{Boolean}false");
+        writer.attribute("class", "cq-droptarget");
+        writer.attribute("fileReferenceParameter", nameForField + "/fileReference");
+        writer.attribute("mimeTypes", "[image/gif,image/jpeg,image/png,image/webp,image/tiff,image/svg+xml]");
+        writer.attribute("multiple", "{Boolean}false");
+        writer.attribute("title", "Drag to select image");
+        writer.attribute("uploadUrl", "${suffix.path}");
+        writer.attribute("useHTML5", "{Boolean}true");
     }
 
     /**
      * Adds the properties specific to the hidden image node that allows the image
      * dropzone to operate properly on dialogs.
      *
-     * @param hiddenImageNode An {@link Element} object representing an image's hidden node
+     * @param writer The {@link DocViewWriter} positioned on the image's hidden node
      * @param property The {@link Property} object contains attributes
      */
-    private static void addImageHiddenProperyValues(Element hiddenImageNode, Property property) {
-        hiddenImageNode.setAttribute(Constants.JCR_PRIMARY_TYPE, Constants.NT_UNSTRUCTURED);
-        hiddenImageNode.setAttribute(Constants.PROPERTY_SLING_RESOURCETYPE, Constants.RESOURCE_TYPE_HIDDEN);
-        hiddenImageNode.setAttribute("name", "./" + property.getField() + "/" + Constants.PROPERTY_SLING_RESOURCETYPE);
-        hiddenImageNode.setAttribute("value", Constants.RESOURCE_TYPE_IMAGE_HIDDEN_TYPE);
+    private static void addImageHiddenProperyValues(DocViewWriter writer, Property property) {
+        writer.attribute(Constants.JCR_PRIMARY_TYPE, Constants.NT_UNSTRUCTURED);
+        writer.attribute(Constants.PROPERTY_SLING_RESOURCETYPE, Constants.RESOURCE_TYPE_HIDDEN);
+        writer.attribute("name", "./" + property.getField() + "/" + Constants.PROPERTY_SLING_RESOURCETYPE);
+        writer.attribute("value", Constants.RESOURCE_TYPE_IMAGE_HIDDEN_TYPE);
     }
 
     /**
-     * Builds default node structure of dialog xml in the document passed in based on dialogType.
+     * Starts the default node structure of dialog xml below the current node, the properties are written into
+     * its column node. It is ended by {@link #endDefaultNodeStructure(DocViewWriter)}.
      *
-     * @param document The {@link Document} object
-     * @param root The root node to append children nodes to
+     * @param writer The {@link DocViewWriter} positioned on the root node
      * @param content dialog content node
-     * @return Node
      */
-    private static Node updateDefaultNodeStructure(Document document, Element root, String content) {
-        Element containerElement = document.createElement(content);
-        containerElement.setAttribute(Constants.JCR_PRIMARY_TYPE, Constants.NT_UNSTRUCTURED);
-        containerElement.setAttribute(Constants.PROPERTY_SLING_RESOURCETYPE, Constants.RESOURCE_TYPE_CONTAINER);
-
-        Element layoutElement1 = document.createElement("layout");
-        layoutElement1.setAttribute(Constants.JCR_PRIMARY_TYPE, Constants.NT_UNSTRUCTURED);
-        layoutElement1.setAttribute(Constants.PROPERTY_SLING_RESOURCETYPE, Constants.RESOURCE_TYPE_FIXEDCOLUMNS);
-        layoutElement1.setAttribute("margin", "{Boolean}false");
-
-        Element columnElement = document.createElement("column");
-        columnElement.setAttribute(Constants.JCR_PRIMARY_TYPE, Constants.NT_UNSTRUCTURED);
-        columnElement.setAttribute(Constants.PROPERTY_SLING_RESOURCETYPE, Constants.RESOURCE_TYPE_CONTAINER);
-
-        Node containerNode = root.appendChild(containerElement);
-
-        containerNode.appendChild(layoutElement1);
-        return containerNode.appendChild(createUnStructuredNode(document, "items")).appendChild(columnElement);
+    private static void startDefaultNodeStructure(DocViewWriter writer, String content) {
+        writer.startNode(content);
+        writer.attribute(Constants.JCR_PRIMARY_TYPE, Constants.NT_UNSTRUCTURED);
+        writer.attribute(Constants.PROPERTY_SLING_RESOURCETYPE, Constants.RESOURCE_TYPE_CONTAINER);
+
+        writer.startNode("layout");
+        writer.attribute(Constants.JCR_PRIMARY_TYPE, Constants.NT_UNSTRUCTURED);
+        writer.attribute(Constants.PROPERTY_SLING_RESOURCETYPE, Constants.RESOURCE_TYPE_FIXEDCOLUMNS);
+        writer.attribute("margin", "{Boolean}false");
+        writer.endNode();
+
+        writer.startNode("items").unstructured();
+
+        writer.startNode("column");
+        writer.attribute(Constants.JCR_PRIMARY_TYPE, Constants.NT_UNSTRUCTURED);
+        writer.attribute(Constants.PROPERTY_SLING_RESOURCETYPE, Constants.RESOURCE_TYPE_CONTAINER);
     }
 
     /**
-     * Creates a node with the jcr:primaryType set to nt:unstructured.
+     * Ends the column, items and content nodes started by {@link #startDefaultNodeStructure(DocViewWriter, String)}.
      *
-     * @param document The {@link Document} object
-     * @param nodeName The name of the node being created
-     * @return Node
+     * @param writer The {@link DocViewWriter} positioned on the column node
      */
-    protected static Element createUnStructuredNode(Document document, String nodeName) {
-        Element element = document.createElement(nodeName);
-        element.setAttribute(Constants.JCR_PRIMARY_TYPE, Constants.NT_UNSTRUCTURED);
-        return element;
+    private static void endDefaultNodeStructure(DocViewWriter writer) {
+        writer.endNode().endNode().endNode();
     }
 
     /**
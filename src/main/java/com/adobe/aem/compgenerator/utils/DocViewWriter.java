@@ -0,0 +1,266 @@
+/*
+ * #%L
+ * AEM Component Generator
+ * %%
+ * Copyright (C) 2019 Adobe
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.adobe.aem.compgenerator.utils;
+
+import com.adobe.aem.compgenerator.Constants;
+import com.adobe.aem.compgenerator.exceptions.GeneratorException;
+import com.adobe.aem.compgenerator.models.GenerationConfig;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * <p>
+ * Streaming writer of FileVault DocView xml files like <code>.content.xml</code>, based on {@link XMLStreamWriter}.
+ * <p>
+ * Only the start tag of the current node is kept in memory: its attributes can be set (and replaced) until the
+ * first child node is started or the node is ended. The output follows the DocView formatting: namespace
+ * declarations on the line of the root node, one attribute per line, <code>jcr:primaryType</code> and
+ * <code>jcr:mixinTypes</code> first and the other attributes sorted by name, and 4 spaces of indentation per level.
+ */
+public final class DocViewWriter implements Closeable {
+
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newFactory();
+
+    private static final String NEWLINE = "\n";
+    private static final String INDENT = "    ";
+
+    private static final Comparator<String> ATTRIBUTE_ORDER = Comparator
+            .comparingInt(DocViewWriter::attributeRank)
+            .thenComparing(Comparator.naturalOrder());
+
+    private final Writer out;
+    private final XMLStreamWriter xml;
+    private final Deque<String> openNodes = new ArrayDeque<>();
+
+    private String pendingNode;
+    private final Map<String, String> pendingNamespaces = new LinkedHashMap<>();
+    private final Map<String, String> pendingAttributes = new TreeMap<>(ATTRIBUTE_ORDER);
+
+    /**
+     * @param writer writer of the document, closed with this writer
+     */
+    public DocViewWriter(Writer writer) {
+        // the formatting whitespace is written between the attributes, so the stream writer is flushed often
+        this.out = new FilterWriter(new BufferedWriter(writer)) {
+            @Override
+            public void flush() {
+                // flushed on close
+            }
+        };
+        try {
+            this.xml = OUTPUT_FACTORY.createXMLStreamWriter(out);
+            xml.writeStartDocument("UTF-8", "1.0");
+        } catch (XMLStreamException e) {
+            throw new GeneratorException("Exception while creating the xml writer", e);
+        }
+    }
+
+    /**
+     * Opens the <code>.content.xml</code> at the given path, it is only written when its content changed.
+     *
+     * @param filePath         the path to the file
+     * @param generationConfig The {@link GenerationConfig} of the generated component
+     * @return DocViewWriter of the file
+     * @throws IOException exception while staging the file
+     */
+    public static DocViewWriter open(String filePath, GenerationConfig generationConfig) throws IOException {
+        return new DocViewWriter(CommonUtils.getFileWriter(filePath, generationConfig));
+    }
+
+    /**
+     * Writes a comment, e.g. the copyright in front of the root node.
+     *
+     * @param text the comment
+     * @return this writer
+     */
+    public DocViewWriter comment(String text) {
+        flushPendingNode(false);
+        try {
+            newLine(openNodes.size());
+            xml.writeComment(text);
+        } catch (XMLStreamException e) {
+            throw new GeneratorException("Exception while writing xml comment", e);
+        }
+        return this;
+    }
+
+    /**
+     * Starts a child node of the current node.
+     *
+     * @param name the node name, e.g. <code>jcr:root</code> or <code>items</code>
+     * @return this writer
+     */
+    public DocViewWriter startNode(String name) {
+        flushPendingNode(false);
+        pendingNode = name;
+        return this;
+    }
+
+    /**
+     * Declares a namespace on the current node.
+     *
+     * @param prefix the namespace prefix
+     * @param uri    the namespace uri
+     * @return this writer
+     */
+    public DocViewWriter namespace(String prefix, String uri) {
+        checkPendingNode(prefix);
+        pendingNamespaces.put(prefix, uri);
+        return this;
+    }
+
+    /**
+     * Sets an attribute of the current node, replacing the value set before.
+     *
+     * @param name  the attribute name
+     * @param value the attribute value, null values are not written
+     * @return this writer
+     */
+    public DocViewWriter attribute(String name, String value) {
+        checkPendingNode(name);
+        if (value == null) {
+            pendingAttributes.remove(name);
+        } else {
+            pendingAttributes.put(name, value);
+        }
+        return this;
+    }
+
+    /**
+     * Sets an nt:unstructured primary type on the current node.
+     *
+     * @return this writer
+     */
+    public DocViewWriter unstructured() {
+        return attribute(Constants.JCR_PRIMARY_TYPE, Constants.NT_UNSTRUCTURED);
+    }
+
+    /**
+     * Ends the current node.
+     *
+     * @return this writer
+     */
+    public DocViewWriter endNode() {
+        if (pendingNode != null) {
+            flushPendingNode(true);
+            openNodes.pop();
+            return this;
+        }
+        if (openNodes.isEmpty()) {
+            throw new GeneratorException("No xml node to end");
+        }
+        openNodes.pop();
+        try {
+            newLine(openNodes.size());
+            xml.writeEndElement();
+        } catch (XMLStreamException e) {
+            throw new GeneratorException("Exception while writing xml node end", e);
+        }
+        return this;
+    }
+
+    /**
+     * Ends the open nodes and the document and closes the writer.
+     *
+     * @throws IOException exception while closing the writer
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            while (pendingNode != null || !openNodes.isEmpty()) {
+                endNode();
+            }
+            xml.writeEndDocument();
+            xml.flush();
+            out.write(NEWLINE);
+            xml.close();
+        } catch (XMLStreamException e) {
+            throw new IOException("Exception while closing xml writer", e);
+        } finally {
+            out.close();
+        }
+    }
+
+    private void checkPendingNode(String name) {
+        if (pendingNode == null) {
+            throw new GeneratorException("Attribute " + name + " must be set before the child nodes");
+        }
+    }
+
+    private void flushPendingNode(boolean empty) {
+        if (pendingNode == null) {
+            return;
+        }
+        int depth = openNodes.size();
+        try {
+            newLine(depth);
+            if (empty) {
+                xml.writeEmptyElement(pendingNode);
+            } else {
+                xml.writeStartElement(pendingNode);
+            }
+            for (Map.Entry<String, String> namespace : pendingNamespaces.entrySet()) {
+                xml.writeNamespace(namespace.getKey(), namespace.getValue());
+            }
+            for (Map.Entry<String, String> attribute : pendingAttributes.entrySet()) {
+                // the stream writer separates the attribute by a single space, the rest of the indent is written here
+                xml.flush();
+                out.write(NEWLINE);
+                out.write(StringUtils.repeat(' ', (depth + 1) * INDENT.length() - 1));
+                xml.writeAttribute(attribute.getKey(), attribute.getValue());
+            }
+        } catch (XMLStreamException | IOException e) {
+            throw new GeneratorException("Exception while writing xml node " + pendingNode, e);
+        }
+        openNodes.push(pendingNode);
+        pendingNode = null;
+        pendingNamespaces.clear();
+        pendingAttributes.clear();
+    }
+
+    private void newLine(int depth) throws XMLStreamException {
+        StringBuilder whitespace = new StringBuilder(NEWLINE);
+        for (int i = 0; i < depth; i++) {
+            whitespace.append(INDENT);
+        }
+        xml.writeCharacters(whitespace.toString());
+    }
+
+    private static int attributeRank(String name) {
+        if (Constants.JCR_PRIMARY_TYPE.equals(name)) {
+            return 0;
+        }
+        return "jcr:mixinTypes".equals(name) ? 1 : 2;
+    }
+}
@@ -26,10 +26,8 @@ import com.adobe.aem.compgenerator.models.GenerationConfig;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 
-import javax.xml.parsers.DocumentBuilderFactory;
+import java.nio.file.Path;
 import java.util.Objects;
 
 class EditConfigUtils {
@@ -49,88 +47,85 @@ class EditConfigUtils {
      *
      * @param cqEditConfig     The type of dialog to create (editConfig,childEidtConfig)
      * @param generationConfig The {@link GenerationConfig} object with all the populated values
+     * @return the path of the created .content.xml, null without cqEditConfig
      */
-    static Document createEditConfigXml(GenerationConfig generationConfig, CqEditConfig cqEditConfig,
+    static Path createEditConfigXml(GenerationConfig generationConfig, CqEditConfig cqEditConfig,
             String editConfigName,
             String editConfigType) {
-        Document doc = null;
+        Path file = null;
         if (cqEditConfig != null) {
             String dialogPath =
                     generationConfig.getCompDir() + "/" + StringUtils.replace(editConfigName, "cq:", "_cq_");
             try {
-                CommonUtils.createFolder(dialogPath);
-                doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
-                Element rootElement = createCqEditorRoot(doc, generationConfig, cqEditConfig, editConfigType);
-
-                doc.appendChild(rootElement);
-                XMLUtils.transformDomToFile(doc, dialogPath + "/" + Constants.FILENAME_CONTENT_XML);
+                file = CommonUtils.createFolder(dialogPath, generationConfig).resolve(Constants.FILENAME_CONTENT_XML);
+                try (DocViewWriter writer = DocViewWriter.open(file.toString(), generationConfig)) {
+                    writeCqEditorRoot(writer, generationConfig, cqEditConfig, editConfigType);
+                }
             } catch (Exception e) {
                 throw new GeneratorException("Exception while creating Dialog xml : " + dialogPath, e);
             }
         }
-        return doc;
+        return file;
     }
 
     /**
-     * Generates the root elements of what will be the _cq_dialog/.content.xml.
+     * Writes the root node of what will be the _cq_editConfig/.content.xml.
      *
-     * @param document         The {@link Document} object
+     * @param writer           The {@link DocViewWriter} of the file
      * @param generationConfig The {@link GenerationConfig} object with all the populated values
      * @param cqEditConfig     ..
      * @param editConfigType   The type of CqEditor to create (regular, shared or global)
-     * @return Element
      */
-    static Element createCqEditorRoot(Document document, GenerationConfig generationConfig, CqEditConfig cqEditConfig,
+    static void writeCqEditorRoot(DocViewWriter writer, GenerationConfig generationConfig, CqEditConfig cqEditConfig,
             String editConfigType) {
-        Element rootElement = XMLUtils.createRootElement(document, generationConfig);
-        setAttributeIfNotNull(rootElement, Constants.JCR_PRIMARY_TYPE, editConfigType);
-        setAttributeIfNotNull(rootElement, DIALOG_EDIT_CONFIG_ISCONTAINER_NAME, cqEditConfig.getCqIsContainer());
-        extractAction(rootElement, cqEditConfig);
-        addListenerNodeStructure(document, rootElement, cqEditConfig);
-        return rootElement;
+        XMLUtils.startRootNode(writer, generationConfig);
+        setAttributeIfNotNull(writer, Constants.JCR_PRIMARY_TYPE, editConfigType);
+        setAttributeIfNotNull(writer, DIALOG_EDIT_CONFIG_ISCONTAINER_NAME, cqEditConfig.getCqIsContainer());
+        extractAction(writer, cqEditConfig);
+        addListenerNodeStructure(writer, cqEditConfig);
+        writer.endNode();
     }
 
-    private static void extractAction(Element rootElement, CqEditConfig cqEditorConfig) {
+    private static void extractAction(DocViewWriter writer, CqEditConfig cqEditorConfig) {
         if (cqEditorConfig.getCqActions() != null) {
             final String jcrXmlAction = createJcrXmlArrayString(cqEditorConfig.getCqActions());
-            rootElement.setAttribute(DIALOG_EDIT_CONFIG_ACTIONS_NAME, jcrXmlAction);
+            writer.attribute(DIALOG_EDIT_CONFIG_ACTIONS_NAME, jcrXmlAction);
             LOG.info("actions {}", jcrXmlAction);
         }
     }
 
     /**
-     * Builds default node structure of listener xml in the document passed in based on cqEditConfig.
+     * Writes default node structure of listener xml below the current node based on cqEditConfig.
      *
-     * @param doc          The {@link Document} object
-     * @param rootElement  The root node to append children nodes to
+     * @param writer       The {@link DocViewWriter} positioned on the root node
      * @param cqEditConfig ..
      */
-    private static void addListenerNodeStructure(Document doc, Element rootElement, CqEditConfig cqEditConfig) {
+    private static void addListenerNodeStructure(DocViewWriter writer, CqEditConfig cqEditConfig) {
         if (cqEditConfig.getCqListeners() != null) {
-            Element listenerElement = doc.createElement(DIALOG_EDIT_LISTENERS_CONFIG_NAME);
-            listenerElement.setAttribute(Constants.JCR_PRIMARY_TYPE, DIALOG_EDIT_LISTENER_CONFIG_TYPE);
-            setAttributeIfNotNull(listenerElement, "afterchildinsert",
+            writer.startNode(DIALOG_EDIT_LISTENERS_CONFIG_NAME);
+            writer.attribute(Constants.JCR_PRIMARY_TYPE, DIALOG_EDIT_LISTENER_CONFIG_TYPE);
+            setAttributeIfNotNull(writer, "afterchildinsert",
                     cqEditConfig.getCqListeners().getAfterchildinsert());
-            setAttributeIfNotNull(listenerElement, "aftercopy", cqEditConfig.getCqListeners().getAftercopy());
-            setAttributeIfNotNull(listenerElement, "afterdelete", cqEditConfig.getCqListeners().getAfterdelete());
-            setAttributeIfNotNull(listenerElement, "afteredit", cqEditConfig.getCqListeners().getAfteredit());
-            setAttributeIfNotNull(listenerElement, "afterinsert", cqEditConfig.getCqListeners().getAfterinsert());
-            setAttributeIfNotNull(listenerElement, "aftermove", cqEditConfig.getCqListeners().getAftermove());
-            setAttributeIfNotNull(listenerElement, "beforechildinsert",
+            setAttributeIfNotNull(writer, "aftercopy", cqEditConfig.getCqListeners().getAftercopy());
+            setAttributeIfNotNull(writer, "afterdelete", cqEditConfig.getCqListeners().getAfterdelete());
+            setAttributeIfNotNull(writer, "afteredit", cqEditConfig.getCqListeners().getAfteredit());
+            setAttributeIfNotNull(writer, "afterinsert", cqEditConfig.getCqListeners().getAfterinsert());
+            setAttributeIfNotNull(writer, "aftermove", cqEditConfig.getCqListeners().getAftermove());
+            setAttributeIfNotNull(writer, "beforechildinsert",
                     cqEditConfig.getCqListeners().getBeforechildinsert());
-            setAttributeIfNotNull(listenerElement, "beforecopy", cqEditConfig.getCqListeners().getBeforecopy());
-            setAttributeIfNotNull(listenerElement, "beforedelete", cqEditConfig.getCqListeners().getBeforedelete());
-            setAttributeIfNotNull(listenerElement, "beforeedit", cqEditConfig.getCqListeners().getBeforeedit());
-            setAttributeIfNotNull(listenerElement, "beforeinsert", cqEditConfig.getCqListeners().getBeforeinsert());
-            setAttributeIfNotNull(listenerElement, "beforemove", cqEditConfig.getCqListeners().getBeforemove());
+            setAttributeIfNotNull(writer, "beforecopy", cqEditConfig.getCqListeners().getBeforecopy());
+            setAttributeIfNotNull(writer, "beforedelete", cqEditConfig.getCqListeners().getBeforedelete());
+            setAttributeIfNotNull(writer, "beforeedit", cqEditConfig.getCqListeners().getBeforeedit());
+            setAttributeIfNotNull(writer, "beforeinsert", cqEditConfig.getCqListeners().getBeforeinsert());
+            setAttributeIfNotNull(writer, "beforemove", cqEditConfig.getCqListeners().getBeforemove());
 
-            rootElement.appendChild(listenerElement);
+            writer.endNode();
         }
     }
 
-    private static void setAttributeIfNotNull(Element listenerElement, String attributeName, Object attributeValue) {
+    private static void setAttributeIfNotNull(DocViewWriter writer, String attributeName, Object attributeValue) {
         if (attributeValue != null) {
-            listenerElement.setAttribute(attributeName, Objects.toString(attributeValue));
+            writer.attribute(attributeName, Objects.toString(attributeValue));
         }
     }
 
@@ -0,0 +1,131 @@
+/*
+ * #%L
+ * AEM Component Generator
+ * %%
+ * Copyright (C) 2019 Adobe
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.adobe.aem.compgenerator.utils;
+
+import com.jayway.jsonpath.JsonPath;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * Bounded LRU cache of compiled {@link JsonPath} expressions used by the data-config templates.
+ * <p>
+ * The key is the expression as written in the data-config, the value the compiled form of its unified
+ * expression (see {@link TemplateUtils#unifyJasonPath(String)}), so normalization and compilation happen once
+ * per expression. The shared instance lives as long as the JVM and is used by all components of a batch,
+ * watch or daemon run. Its size can be set with the system property <code>compgenerator.jsonPathCacheSize</code>.
+ * <p>
+ * Only the definition expressions, which are read again for every generation, are cached. One-off paths built for
+ * a single node are read with {@link TemplateUtils#readValuesFromConcretePath} and do not evict them.
+ */
+public class JsonPathCache {
+
+    static final int DEFAULT_MAX_SIZE = 1024;
+
+    private static final JsonPathCache INSTANCE =
+            new JsonPathCache(Integer.getInteger("compgenerator.jsonPathCacheSize", DEFAULT_MAX_SIZE));
+
+    private final int maxSize;
+    private final Map<String, JsonPath> compiledPaths;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    JsonPathCache(int maxSize) {
+        this.maxSize = Math.max(1, maxSize);
+        this.compiledPaths = new LinkedHashMap<String, JsonPath>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, JsonPath> eldest) {
+                if (size() > JsonPathCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return the cache shared by all template resolutions of this JVM
+     */
+    public static JsonPathCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the compiled form of the unified expression, compiling it on a cache miss.
+     *
+     * @param jsonPath JsonPath expression
+     * @return compiled JsonPath
+     * @throws com.jayway.jsonpath.InvalidPathException when the expression is invalid
+     */
+    public JsonPath get(String jsonPath) {
+        JsonPath compiledPath;
+        synchronized (compiledPaths) {
+            compiledPath = compiledPaths.get(jsonPath);
+        }
+        if (compiledPath != null) {
+            hits.incrementAndGet();
+            return compiledPath;
+        }
+        misses.incrementAndGet();
+        compiledPath = JsonPath.compile(TemplateUtils.unifyJasonPath(jsonPath));
+        synchronized (compiledPaths) {
+            compiledPaths.put(jsonPath, compiledPath);
+        }
+        return compiledPath;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * @return share of lookups answered from the cache, 0 without lookups
+     */
+    public double getHitRate() {
+        long lookups = hits.get() + misses.get();
+        return lookups == 0 ? 0 : (double) hits.get() / lookups;
+    }
+
+    public int size() {
+        synchronized (compiledPaths) {
+            return compiledPaths.size();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d/%d entries, %d hits, %d misses, %d evictions, hit rate %.1f%%", size(), maxSize,
+                getHits(), getMisses(), getEvictions(), getHitRate() * 100);
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * #%L
+ * AEM Component Generator
+ * %%
+ * Copyright (C) 2019 Adobe
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.adobe.aem.compgenerator.utils;
+
+import com.adobe.aem.compgenerator.exceptions.GeneratorException;
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.spi.json.JsonProvider;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * Batch of writes into the data-config tree. The target paths are collected in a trie and applied in one pass.
+ * <p>
+ * A target is a definite JsonPath, e.g. <code>$['options']['properties'][0]</code>, combined with a relative path
+ * like <code>@.template.html.content</code>. Applying the batch walks the trie once, missing, null or empty
+ * intermediate nodes are created as maps, and the values are set in the order they were added: a value replaces
+ * the writes below its node which were added before it.
+ */
+final class JsonWriteBatch {
+    private static final Logger LOG = LogManager.getLogger(JsonWriteBatch.class);
+
+    private final DocumentContext dataConfig;
+    private final JsonProvider provider;
+    private final TrieNode root = new TrieNode("$");
+    private int size;
+
+    JsonWriteBatch(DocumentContext dataConfig) {
+        this.dataConfig = dataConfig;
+        this.provider = dataConfig.configuration().jsonProvider();
+    }
+
+    /**
+     * @param jsonPathToAdd    definite path, starts with $
+     * @param relativeJsonPath starts with @
+     * @param targetValue      value to set
+     */
+    void add(String jsonPathToAdd, String relativeJsonPath, Object targetValue) {
+        String unifiedJsonPathToAdd = TemplateUtils.unifyJasonPath(jsonPathToAdd);
+        if (!StringUtils.startsWith(unifiedJsonPathToAdd, "$")) {
+            throw new GeneratorException("jsonPathToAdd [" + jsonPathToAdd + "] must start with $ or \"['$']\"");
+        }
+        if (!StringUtils.startsWith(relativeJsonPath, "@")) {
+            throw new GeneratorException("relativeJsonPath [" + relativeJsonPath + "] must start with @");
+        }
+        TrieNode node = root;
+        for (Object segment : parseSegments(unifiedJsonPathToAdd)) {
+            node = node.child(segment);
+        }
+        for (Object segment : parseSegments(relativeJsonPath)) {
+            node = node.child(segment);
+        }
+        if (node == root) {
+            throw new GeneratorException("The root of the data-config can not be replaced by " + jsonPathToAdd);
+        }
+        node.setValue(targetValue);
+        size++;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Applies and clears the collected writes.
+     *
+     * @return number of applied writes
+     */
+    int apply() {
+        applyChildren(dataConfig.json(), root, "$");
+        int applied = size;
+        root.children.clear();
+        size = 0;
+        LOG.trace("Applied {} writes", applied);
+        return applied;
+    }
+
+    private void applyChildren(Object parent, TrieNode trieNode, String parentPath) {
+        for (TrieNode child : trieNode.children.values()) {
+            String path = parentPath + child.toPathSegment();
+            Object value = child.hasValue ? child.value : getChild(parent, child.segment);
+            if (child.hasValue) {
+                LOG.trace("Set at targetPath {} targetValue {}", path, value);
+                setChild(parent, child.segment, value, path);
+            }
+            if (child.children.isEmpty()) {
+                continue;
+            }
+            if (value == JsonProvider.UNDEFINED || value == null ||
+                    (value instanceof Collection && ((Collection<?>) value).isEmpty())) {
+                LOG.debug("Put Node {}", path);
+                value = provider.createMap();
+                setChild(parent, child.segment, value, path);
+            } else if (!provider.isMap(value) && !provider.isArray(value)) {
+                throw new GeneratorException("Error creating nodes below " + path + ", it is no object");
+            }
+            applyChildren(value, child, path);
+        }
+    }
+
+    private Object getChild(Object parent, Object segment) {
+        if (segment instanceof Integer) {
+            int index = (Integer) segment;
+            return provider.isArray(parent) && index < provider.length(parent) ?
+                    provider.getArrayIndex(parent, index) : JsonProvider.UNDEFINED;
+        }
+        return provider.isMap(parent) ? provider.getMapValue(parent, (String) segment) : JsonProvider.UNDEFINED;
+    }
+
+    private void setChild(Object parent, Object segment, Object value, String path) {
+        if (segment instanceof Integer) {
+            int index = (Integer) segment;
+            if (!provider.isArray(parent) || index >= provider.length(parent)) {
+                throw new GeneratorException("Error creating node " + path + ", the array item does not exist");
+            }
+            provider.setArrayIndex(parent, index, value);
+        } else if (provider.isMap(parent)) {
+            provider.setProperty(parent, segment, value);
+        } else {
+            throw new GeneratorException("Error creating node " + path + ", the parent is no object");
+        }
+    }
+
+    /**
+     * Splits a definite path like <code>$.['options'].properties[0]</code> or a relative path like
+     * <code>@.template.html</code> behind its first character into property names and array indexes.
+     * A name may follow a bracket directly, as in <code>['replaceValueMap']content</code>.
+     */
+    static List<Object> parseSegments(String path) {
+        List<Object> segments = new ArrayList<>();
+        int i = 1;
+        while (i < path.length()) {
+            char c = path.charAt(i);
+            if (c == '.') {
+                if (path.startsWith("..", i)) {
+                    throw new GeneratorException("Path " + path + " is not definite");
+                }
+                i++;
+            } else if (path.startsWith("['", i)) {
+                int end = path.indexOf("']", i + 2);
+                if (end < 0) {
+                    throw new GeneratorException("Path " + path + " has an unclosed bracket");
+                }
+                segments.add(path.substring(i + 2, end));
+                i = end + 2;
+            } else if (c == '[') {
+                int end = path.indexOf(']', i);
+                String index = end > 0 ? path.substring(i + 1, end).trim() : "";
+                if (!StringUtils.isNumeric(index)) {
+                    throw new GeneratorException("Path " + path + " is not definite");
+                }
+                segments.add(Integer.valueOf(index));
+                i = end + 1;
+            } else {
+                int end = i;
+                while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') {
+                    end++;
+                }
+                segments.add(path.substring(i, end));
+                i = end;
+            }
+        }
+        return segments;
+    }
+
+    private static final class TrieNode {
+        private final Object segment;
+        private final Map<Object, TrieNode> children = new LinkedHashMap<>();
+        private boolean hasValue;
+        private Object value;
+
+        private TrieNode(Object segment) {
+            this.segment = segment;
+        }
+
+        private TrieNode child(Object childSegment) {
+            return children.computeIfAbsent(childSegment, TrieNode::new);
+        }
+
+        private void setValue(Object newValue) {
+            hasValue = true;
+            value = newValue;
+            children.clear();
+        }
+
+        private String toPathSegment() {
+            return segment instanceof Integer ? "[" + segment + "]" : "['" + segment + "']";
+        }
+    }
+}
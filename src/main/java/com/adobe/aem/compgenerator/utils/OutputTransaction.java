@@ -0,0 +1,330 @@
+/*
+ * #%L
+ * AEM Component Generator
+ * %%
+ * Copyright (C) 2019 Adobe
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.adobe.aem.compgenerator.utils;
+
+import com.adobe.aem.compgenerator.models.GenerationConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * <p>
+ * Staged output of one component. The files of the component are rendered into memory and compared with their
+ * targets, only changed files are written into staging directories and moved to their targets on
+ * {@link #commit()}. A failed generation is rolled back by deleting the staging directories, so the output
+ * folders never contain a half generated component.
+ * <p>
+ * Every output root, i.e. the apps path and the bundle path of the project settings, gets its own hidden
+ * staging directory inside the root, so the staged files are on the same filesystem as their targets and are
+ * moved with {@link StandardCopyOption#ATOMIC_MOVE}. The roots can be in any filesystem, see
+ * {@link GenerationConfig#getOutputFileSystem()}. Each file is replaced atomically, files with unchanged
+ * content are not staged and keep their modification time. The previous content of replaced files and the
+ * created files are recorded in the {@link BackupStore} of the transaction, if it has one.
+ * <p>
+ * A killed generator can leave its staging directories behind, e.g. java sources in the bundle path which would
+ * be compiled twice. Creating a transaction deletes the staging directories older than the start of the JVM, the
+ * staging directories of running transactions are newer.
+ */
+public class OutputTransaction {
+    private static final Logger LOG = LogManager.getLogger(OutputTransaction.class);
+
+    static final String STAGING_DIR_PREFIX = ".generator-staging-";
+
+    private static final long JVM_START_MILLIS = ManagementFactory.getRuntimeMXBean().getStartTime();
+    private static final Set<Path> CLEANED_ROOTS = ConcurrentHashMap.newKeySet();
+
+    private final String name;
+    private final List<Path> roots;
+    private final BackupStore backupStore;
+    private final Map<Path, Path> stagingDirs = new LinkedHashMap<>();
+    private final Map<Path, Path> stagedFiles = new LinkedHashMap<>();
+    private final Set<Path> targets = new LinkedHashSet<>();
+
+    /**
+     * @param name  name of the transaction, used in the staging directory names
+     * @param roots output roots, targets outside the roots are staged in their own directory
+     */
+    public OutputTransaction(String name, List<Path> roots) {
+        this(name, roots, null);
+    }
+
+    /**
+     * @param name        name of the transaction, used in the staging directory names
+     * @param roots       output roots, targets outside the roots are staged in their own directory
+     * @param backupStore store of the replaced files, may be null
+     */
+    public OutputTransaction(String name, List<Path> roots, BackupStore backupStore) {
+        this.name = name;
+        this.backupStore = backupStore;
+        this.roots = new ArrayList<>();
+        for (Path root : roots) {
+            this.roots.add(root.toAbsolutePath().normalize());
+        }
+        // the most specific root wins
+        this.roots.sort((a, b) -> b.getNameCount() - a.getNameCount());
+        for (Path root : this.roots) {
+            deleteLeftoverStagingDirs(root);
+        }
+    }
+
+    /**
+     * @param config      the resolved {@link GenerationConfig}
+     * @param backupStore store of the replaced files, may be null
+     * @return transaction with the apps path and the bundle path of the project as output roots
+     */
+    public static OutputTransaction forConfig(GenerationConfig config, BackupStore backupStore) {
+        List<Path> roots = new ArrayList<>();
+        if (config.getProjectSettings().getAppsPath() != null) {
+            roots.add(CommonUtils.getOutputPath(config.getProjectSettings().getAppsPath(), config));
+        }
+        if (config.getProjectSettings().getBundlePath() != null) {
+            roots.add(CommonUtils.getOutputPath(config.getProjectSettings().getBundlePath(), config));
+        }
+        return new OutputTransaction(config.getName(), roots, backupStore);
+    }
+
+    /**
+     * Returns the staging file of the target, its parent directories exist. Staging the same target again
+     * returns the same file.
+     *
+     * @param target the output file
+     * @return the file to write instead of the target
+     * @throws IOException exception while creating the staging directory
+     */
+    public synchronized Path stage(Path target) throws IOException {
+        Path absoluteTarget = target.toAbsolutePath().normalize();
+        targets.add(absoluteTarget);
+        Path stagedFile = stagedFiles.get(absoluteTarget);
+        if (stagedFile == null) {
+            Path root = getRoot(absoluteTarget);
+            Path stagingDir = stagingDirs.get(root);
+            if (stagingDir == null) {
+                stagingDir = createStagingDir(root);
+                stagingDirs.put(root, stagingDir);
+            }
+            stagedFile = stagingDir.resolve(root.relativize(absoluteTarget).toString());
+            stagedFiles.put(absoluteTarget, stagedFile);
+        }
+        if (stagedFile.getParent() != null) {
+            Files.createDirectories(stagedFile.getParent());
+        }
+        return stagedFile;
+    }
+
+    /**
+     * The content is kept in memory and staged on close, only when it differs from the target.
+     *
+     * @param target the output file
+     * @return stream of the content of the target
+     */
+    public OutputStream newOutputStream(Path target) {
+        Path absoluteTarget = target.toAbsolutePath().normalize();
+        return new ByteArrayOutputStream() {
+            private boolean closed;
+
+            @Override
+            public void close() throws IOException {
+                if (!closed) {
+                    closed = true;
+                    stageIfChanged(absoluteTarget, buf, count);
+                }
+            }
+        };
+    }
+
+    /**
+     * Stages a copy of the source file, the copy gets the modification time of the source.
+     *
+     * @param source the file to copy
+     * @param target the output file
+     * @throws IOException exception while copying the file
+     */
+    public void copy(Path source, Path target) throws IOException {
+        AppsDataCopyUtils.copyFile(source, stage(target));
+    }
+
+    /**
+     * @return true if targets with the content of their source can be skipped, i.e. the targets are updated in place
+     */
+    public boolean isIncremental() {
+        return true;
+    }
+
+    /**
+     * @return the staged targets, absolute and in staging order
+     */
+    public synchronized List<Path> getTargets() {
+        return Collections.unmodifiableList(new ArrayList<>(targets));
+    }
+
+    /**
+     * Moves the staged files to their targets and deletes the staging directories. When a move fails the
+     * remaining staged files are discarded.
+     *
+     * @return number of replaced or created files
+     * @throws IOException exception while moving a file
+     */
+    public synchronized int commit() throws IOException {
+        int written = 0;
+        try {
+            for (Map.Entry<Path, Path> stagedFile : stagedFiles.entrySet()) {
+                if (commitFile(stagedFile.getValue(), stagedFile.getKey())) {
+                    written++;
+                }
+            }
+        } finally {
+            rollback();
+        }
+        LOG.debug("Committed {}: {} of {} files written", name, written, targets.size());
+        return written;
+    }
+
+    /**
+     * Deletes the staging directories and discards all staged files.
+     */
+    public synchronized void rollback() {
+        for (Path stagingDir : stagingDirs.values()) {
+            try {
+                deleteRecursively(stagingDir);
+            } catch (IOException e) {
+                LOG.warn("Failed to delete staging directory " + stagingDir, e);
+            }
+        }
+        stagingDirs.clear();
+        stagedFiles.clear();
+        targets.clear();
+    }
+
+    private synchronized void stageIfChanged(Path target, byte[] content, int length) throws IOException {
+        if (WriteIfChangedOutputStream.contentEquals(target, content, length)) {
+            LOG.debug("Unchanged: " + target);
+            targets.add(target);
+            // a target written again with its current content discards the content staged before
+            Path stagedFile = stagedFiles.remove(target);
+            if (stagedFile != null) {
+                Files.deleteIfExists(stagedFile);
+            }
+            return;
+        }
+        try (OutputStream out = Files.newOutputStream(stage(target))) {
+            out.write(content, 0, length);
+        }
+    }
+
+    /**
+     * Deletes the staging directories of the root which are older than the JVM, every root is checked once.
+     */
+    private static void deleteLeftoverStagingDirs(Path root) {
+        if (!CLEANED_ROOTS.add(root) || !Files.isDirectory(root)) {
+            return;
+        }
+        try (Stream<Path> children = Files.list(root)) {
+            for (Path child : children.collect(Collectors.toList())) {
+                if (child.getFileName().toString().startsWith(STAGING_DIR_PREFIX) && Files.isDirectory(child)
+                        && Files.getLastModifiedTime(child).toMillis() < JVM_START_MILLIS) {
+                    LOG.warn("Deleting staging directory left by a previous run: {}", child);
+                    deleteRecursively(child);
+                }
+            }
+        } catch (IOException e) {
+            LOG.warn("Failed to delete the staging directories left in " + root, e);
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    /**
+     * Like {@link Files#createTempDirectory(Path, String)}, which is not supported by every filesystem provider.
+     */
+    private Path createStagingDir(Path root) throws IOException {
+        Files.createDirectories(root);
+        while (true) {
+            try {
+                return Files.createDirectory(root.resolve(STAGING_DIR_PREFIX + name + "-"
+                        + Long.toUnsignedString(ThreadLocalRandom.current().nextLong())));
+            } catch (FileAlreadyExistsException e) {
+                LOG.debug("Staging directory exists, retrying", e);
+            }
+        }
+    }
+
+    private Path getRoot(Path target) {
+        for (Path root : roots) {
+            if (target.startsWith(root) && !target.equals(root)) {
+                return root;
+            }
+        }
+        return target.getParent();
+    }
+
+    private boolean commitFile(Path stagedFile, Path target) throws IOException {
+        if (!Files.isRegularFile(stagedFile)) {
+            return false;
+        }
+        // the content was compared when it was staged, apps-data-copy files are staged only when not up to date
+        if (Files.exists(target)) {
+            if (backupStore != null) {
+                backupStore.backup(target);
+            }
+            LOG.info("Replaced: " + target);
+        } else {
+            Files.createDirectories(target.getParent());
+            if (backupStore != null) {
+                backupStore.created(target);
+            }
+            LOG.info("Created: " + target);
+        }
+        try {
+            // replaces the target in one step, filesystems ignoring ATOMIC_MOVE need REPLACE_EXISTING
+            Files.move(stagedFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            LOG.warn("Atomic move not supported for {}, moving it non-atomically", target);
+            Files.move(stagedFile, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return true;
+    }
+}
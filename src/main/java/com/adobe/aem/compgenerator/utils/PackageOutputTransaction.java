@@ -0,0 +1,133 @@
+/*
+ * #%L
+ * AEM Component Generator
+ * %%
+ * Copyright (C) 2019 Adobe
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.adobe.aem.compgenerator.utils;
+
+import com.adobe.aem.compgenerator.exceptions.GeneratorException;
+import com.adobe.aem.compgenerator.models.GenerationConfig;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * Output of one component into a {@link ContentPackage}. The files of the component are kept in memory and
+ * added to the package on {@link #commit()}, nothing is written to the output folders.
+ * <p>
+ * Files below the bundle path are java sources and go to the sources jar, all other files are added below
+ * the <code>jcr_root</code> of the package and the component folder becomes a filter root.
+ */
+public class PackageOutputTransaction extends OutputTransaction {
+
+    private final ContentPackage contentPackage;
+    private final Path componentDir;
+    private final Path sourceRoot;
+    private final Map<Path, byte[]> files = new LinkedHashMap<>();
+
+    /**
+     * @param config         the resolved {@link GenerationConfig}
+     * @param contentPackage the package of the batch
+     */
+    public PackageOutputTransaction(GenerationConfig config, ContentPackage contentPackage) {
+        super(config.getName(), Collections.emptyList());
+        this.contentPackage = contentPackage;
+        this.componentDir = Paths.get(config.getCompDir());
+        String bundlePath = config.getProjectSettings().getBundlePath();
+        this.sourceRoot = bundlePath != null ? Paths.get(bundlePath).toAbsolutePath().normalize() : null;
+    }
+
+    /**
+     * Not supported, the files of a package are not staged on disk.
+     */
+    @Override
+    public Path stage(Path target) {
+        throw new GeneratorException(target + " is written into the content package, it can not be staged");
+    }
+
+    @Override
+    public OutputStream newOutputStream(Path target) {
+        Path absoluteTarget = target.toAbsolutePath().normalize();
+        return new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                put(absoluteTarget, toByteArray());
+            }
+        };
+    }
+
+    @Override
+    public void copy(Path source, Path target) throws IOException {
+        put(target.toAbsolutePath().normalize(), Files.readAllBytes(source));
+    }
+
+    @Override
+    public boolean isIncremental() {
+        return false;
+    }
+
+    @Override
+    public synchronized List<Path> getTargets() {
+        return Collections.unmodifiableList(new ArrayList<>(files.keySet()));
+    }
+
+    /**
+     * Adds the files to the content package, all files of the component are added at once.
+     *
+     * @return number of added files
+     * @throws IOException exception while writing the package
+     */
+    @Override
+    public synchronized int commit() throws IOException {
+        try {
+            synchronized (contentPackage) {
+                contentPackage.addFilterRoot(componentDir);
+                for (Map.Entry<Path, byte[]> file : files.entrySet()) {
+                    if (sourceRoot != null && file.getKey().startsWith(sourceRoot)) {
+                        String entryName = StringUtils.join(sourceRoot.relativize(file.getKey()).iterator(), '/');
+                        contentPackage.addSource(entryName, file.getValue());
+                    } else {
+                        contentPackage.addContent(file.getKey(), file.getValue());
+                    }
+                }
+            }
+            return files.size();
+        } finally {
+            files.clear();
+        }
+    }
+
+    @Override
+    public synchronized void rollback() {
+        files.clear();
+    }
+
+    private synchronized void put(Path target, byte[] content) {
+        files.put(target, content);
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * #%L
+ * AEM Component Generator
+ * %%
+ * Copyright (C) 2019 Adobe
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.adobe.aem.compgenerator.utils;
+
+import com.adobe.aem.compgenerator.exceptions.GeneratorException;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * <p>
+ * Placeholder template parsed once into literal and placeholder segments and rendered into a single
+ * {@link StringBuilder}.
+ * <p>
+ * The syntax and the results are those of the commons-text <code>StringSubstitutor</code> used before, with
+ * the prefix <code>${</code> or <code>@{</code>, the suffix <code>}</code>, the escape character <code>$</code>
+ * and the default value delimiter <code>:-</code>: a placeholder ends at the first <code>}</code>, values are
+ * substituted recursively, unknown placeholders are kept as written and <code>$${name}</code> renders
+ * <code>${name}</code>.
+ * <p>
+ * The templates read from the classpath are cached by their path for the lifetime of the JVM.
+ */
+public final class PlaceholderTemplate {
+    private static final Logger LOG = LogManager.getLogger(PlaceholderTemplate.class);
+
+    public static final String PREFIX = "${";
+    public static final String RELATIVE_PREFIX = "@{";
+
+    private static final String SUFFIX = "}";
+    private static final char ESCAPE = '$';
+    private static final String DEFAULT_DELIMITER = ":-";
+
+    private static final Map<String, PlaceholderTemplate> RESOURCE_TEMPLATES = new ConcurrentHashMap<>();
+
+    private final String text;
+    private final String prefix;
+    private final List<Segment> segments;
+
+    private PlaceholderTemplate(String text, String prefix, List<Segment> segments) {
+        this.text = text;
+        this.prefix = prefix;
+        this.segments = segments;
+    }
+
+    /**
+     * @param resourcePath path of the template in the classpath
+     * @return the compiled <code>${...}</code> template, null when the template does not exist
+     */
+    public static PlaceholderTemplate forResource(String resourcePath) {
+        try {
+            PlaceholderTemplate template = RESOURCE_TEMPLATES.get(resourcePath);
+            if (template == null) {
+                String content = readResource(resourcePath);
+                if (content == null) {
+                    return null;
+                }
+                template = RESOURCE_TEMPLATES.computeIfAbsent(resourcePath, path -> compile(content, PREFIX));
+            }
+            return template;
+        } catch (UncheckedIOException e) {
+            throw new GeneratorException("Failed to read " + resourcePath + " from the classpath.", e);
+        }
+    }
+
+    private static String readResource(String resourcePath) {
+        try (InputStream inputStream = PlaceholderTemplate.class.getClassLoader().getResourceAsStream(resourcePath)) {
+            if (inputStream == null) {
+                LOG.error("Template {} not found in the classpath.", resourcePath);
+                return null;
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
+            return reader.lines().collect(Collectors.joining(System.lineSeparator()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param text   template text
+     * @param prefix placeholder prefix, {@link #PREFIX} or {@link #RELATIVE_PREFIX}
+     * @return the compiled template
+     */
+    public static PlaceholderTemplate compile(String text, String prefix) {
+        List<Segment> segments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int pos = 0;
+        while (pos < text.length()) {
+            if (!text.startsWith(prefix, pos)) {
+                literal.append(text.charAt(pos++));
+                continue;
+            }
+            if (literal.length() > 0 && literal.charAt(literal.length() - 1) == ESCAPE) {
+                // the escape character is dropped, scanning goes on behind the first prefix character
+                literal.setCharAt(literal.length() - 1, text.charAt(pos++));
+                continue;
+            }
+            int end = text.indexOf(SUFFIX, pos + prefix.length());
+            if (end < 0) {
+                literal.append(text, pos, text.length());
+                break;
+            }
+            if (literal.length() > 0) {
+                segments.add(new Segment(literal.toString()));
+                literal.setLength(0);
+            }
+            segments.add(new Segment(text.substring(pos, end + SUFFIX.length()),
+                    text.substring(pos + prefix.length(), end), prefix));
+            pos = end + SUFFIX.length();
+        }
+        if (literal.length() > 0) {
+            segments.add(new Segment(literal.toString()));
+        }
+        return new PlaceholderTemplate(text, prefix, segments);
+    }
+
+    /**
+     * @param variables placeholder values, null values are treated as unknown
+     * @return the rendered template
+     * @throws IllegalStateException when the values refer to each other in a cycle
+     */
+    public String render(Map<String, String> variables) {
+        if (segments.size() == 1 && segments.get(0).name == null) {
+            return segments.get(0).text;
+        }
+        StringBuilder out = new StringBuilder(text.length() + 64);
+        List<String> priorVariables = new ArrayList<>();
+        priorVariables.add(text);
+        render(out, variables, priorVariables);
+        return out.toString();
+    }
+
+    private void render(StringBuilder out, Map<String, String> variables, List<String> priorVariables) {
+        int regionStart = out.length();
+        for (Segment segment : segments) {
+            if (segment.name == null) {
+                out.append(segment.text);
+                continue;
+            }
+            if (out.length() > regionStart && out.charAt(out.length() - 1) == ESCAPE) {
+                // a substituted value ending with the escape character escapes the following placeholder
+                out.setCharAt(out.length() - 1, prefix.charAt(0));
+                compile(segment.text.substring(1), prefix).render(out, variables, priorVariables);
+                continue;
+            }
+            if (priorVariables.contains(segment.name)) {
+                throw new IllegalStateException("Infinite loop in property interpolation of " + priorVariables.get(0) +
+                        ": " + StringUtils.join(priorVariables.subList(1, priorVariables.size()), "->"));
+            }
+            String value = variables.get(segment.name);
+            if (value == null) {
+                value = segment.defaultValue;
+            }
+            if (value == null) {
+                out.append(segment.text);
+                continue;
+            }
+            priorVariables.add(segment.name);
+            compile(value, prefix).render(out, variables, priorVariables);
+            priorVariables.remove(priorVariables.size() - 1);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+
+    private static final class Segment {
+        private final String text;
+        private final String name;
+        private final String defaultValue;
+
+        /**
+         * Literal segment.
+         */
+        private Segment(String text) {
+            this.text = text;
+            this.name = null;
+            this.defaultValue = null;
+        }
+
+        /**
+         * Placeholder segment, a default value is only split off when the name expression does not contain
+         * the prefix before the delimiter.
+         */
+        private Segment(String text, String nameExpression, String prefix) {
+            this.text = text;
+            String variableName = nameExpression;
+            String variableDefault = null;
+            for (int i = 0; i < nameExpression.length(); i++) {
+                if (nameExpression.startsWith(prefix, i)) {
+                    break;
+                }
+                if (nameExpression.startsWith(DEFAULT_DELIMITER, i)) {
+                    variableName = nameExpression.substring(0, i);
+                    variableDefault = nameExpression.substring(i + DEFAULT_DELIMITER.length());
+                    break;
+                }
+            }
+            this.name = variableName;
+            this.defaultValue = variableDefault;
+        }
+    }
+}
@@ -0,0 +1,573 @@
+/*
+ * #%L
+ * AEM Component Generator
+ * %%
+ * Copyright (C) 2019 Adobe
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.adobe.aem.compgenerator.utils;
+
+import com.adobe.aem.compgenerator.exceptions.GeneratorException;
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.Filter;
+import com.jayway.jsonpath.InvalidPathException;
+import com.jayway.jsonpath.Predicate;
+import com.jayway.jsonpath.spi.json.JsonProvider;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * Evaluates all template definitions of a phase, e.g. the copy-patterns, in a single traversal of the data-config
+ * tree instead of one JsonPath evaluation per definition and target attribute.
+ * <p>
+ * Every target attribute of a definition becomes a rule holding the tokens of the base JsonPath. The traversal
+ * carries the pending rule states from a node to its children and applies the rules of a node in declaration
+ * order, so a later definition sees the values written by the earlier ones. A definition filtering on
+ * <code>!(@.template.html.content)</code> therefore still skips the properties an earlier definition matched.
+ * Before a rule writes below a node, the pending states of the earlier rules for that subtree are evaluated,
+ * which keeps the result identical to evaluating the definitions one after the other.
+ * <p>
+ * Supported are base paths built of <code>$</code>, <code>.name</code>, <code>['name',...]</code>,
+ * <code>[*]</code>, <code>[?(filter)]</code> and <code>..[?(filter)]</code>, whose filters only read the
+ * current node, and target attributes of the form <code>@.a.b</code>. For other definitions
+ * {@link #apply(DocumentContext, List)} returns false and the caller evaluates them definition by definition.
+ */
+final class TemplatePatternEvaluator {
+    private static final Logger LOG = LogManager.getLogger(TemplatePatternEvaluator.class);
+
+    private static final Pattern UNSUPPORTED_FILTER = Pattern.compile("\\$|@\\[|@\\.\\.|\\(\\s*\\)");
+    private static final Pattern FILTER_REFERENCE = Pattern.compile("@((?:\\.[\\w:-]+|\\[[^\\]]*\\])+)");
+    private static final Pattern REFERENCE_SEGMENT = Pattern.compile("[\\w:-]+");
+
+    private final List<Rule> rules;
+    private final Configuration configuration;
+    private final JsonProvider provider;
+    private final Object root;
+
+    private TemplatePatternEvaluator(List<Rule> rules, DocumentContext dataConfig) {
+        this.rules = rules;
+        this.configuration = dataConfig.configuration();
+        this.provider = configuration.jsonProvider();
+        this.root = dataConfig.json();
+    }
+
+    /**
+     * Applies the target attributes of all definitions to the nodes matching their base path.
+     *
+     * @param dataConfig  data-config tree, changed in place
+     * @param definitions template definitions in declaration order
+     * @return false when a definition is not supported, the tree is unchanged in that case
+     */
+    static boolean apply(DocumentContext dataConfig, List<TemplateUtils.TemplateDefinition> definitions) {
+        List<Rule> rules = compile(definitions);
+        if (rules == null) {
+            return false;
+        }
+        TemplatePatternEvaluator evaluator = new TemplatePatternEvaluator(rules, dataConfig);
+        if (!evaluator.isScanSafe()) {
+            LOG.debug("Template filter matches arrays, evaluating definitions one by one");
+            return false;
+        }
+        List<State> initialStates = new ArrayList<>();
+        for (Rule rule : rules) {
+            initialStates.add(new State(rule.index, 0, false));
+        }
+        evaluator.visit(evaluator.root, initialStates);
+        for (Rule rule : rules) {
+            if (rule.matches == 0) {
+                if (rule.warnMissingPaths && rule.isDefinite()) {
+                    LOG.warn("No node found for template definition {}", rule.baseJsonPath);
+                } else {
+                    LOG.debug("No node found for template definition {}", rule.baseJsonPath);
+                }
+            }
+        }
+        LOG.trace("Applied {} template rules in a single traversal", rules.size());
+        return true;
+    }
+
+    /**
+     * @return one rule per target attribute, null when a definition is not supported
+     */
+    private static List<Rule> compile(List<TemplateUtils.TemplateDefinition> definitions) {
+        List<Rule> rules = new ArrayList<>();
+        Set<String> writtenNames = new HashSet<>();
+        for (TemplateUtils.TemplateDefinition definition : definitions) {
+            if (definition.getTargetAttributes() == null) {
+                continue;
+            }
+            String baseJsonPath = definition.getbaseJsonPath();
+            List<Token> tokens = baseJsonPath != null ? parsePath(TemplateUtils.unifyJasonPath(baseJsonPath)) : null;
+            if (tokens == null) {
+                LOG.debug("Template definition {} not supported by the single traversal", baseJsonPath);
+                return null;
+            }
+            for (Map.Entry<String, String> targetAttribute : definition.getTargetAttributes().entrySet()) {
+                String[] targetSegments = parseTargetAttribute(targetAttribute.getKey());
+                if (targetSegments == null) {
+                    LOG.debug("Target attribute {} not supported by the single traversal", targetAttribute.getKey());
+                    return null;
+                }
+                writtenNames.add(targetSegments[0]);
+                rules.add(new Rule(rules.size(), baseJsonPath, tokens, targetSegments, targetAttribute.getValue(),
+                        definition.isWarnMissingPaths()));
+            }
+        }
+        for (Rule rule : rules) {
+            for (Token token : rule.tokens) {
+                if (token.filterText != null && readsWrittenDescendant(token.filterText, writtenNames)) {
+                    LOG.debug("Filter {} reads values written below the current node", token.filterText);
+                    return null;
+                }
+            }
+        }
+        return rules;
+    }
+
+    /**
+     * A filter reading e.g. <code>@.items[0].template</code> would see the writes of a descendant before the
+     * earlier definitions are finished, such filters are evaluated definition by definition.
+     */
+    private static boolean readsWrittenDescendant(String filterText, Set<String> writtenNames) {
+        Matcher reference = FILTER_REFERENCE.matcher(filterText);
+        while (reference.find()) {
+            Matcher segment = REFERENCE_SEGMENT.matcher(reference.group(1));
+            boolean first = true;
+            while (segment.find()) {
+                boolean written = writtenNames.contains(segment.group());
+                if (first && written) {
+                    break;
+                }
+                if (!first && written) {
+                    return true;
+                }
+                first = false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A deep scan filter matching an array would select the array items as well, which the traversal does not
+     * model. Filters only reading properties evaluate the same on every array.
+     */
+    private boolean isScanSafe() {
+        Object emptyArray = provider.createArray();
+        for (Rule rule : rules) {
+            for (Token token : rule.tokens) {
+                if (token.type == TokenType.SCAN_FILTER && matches(token.filter, emptyArray)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void visit(Object node, List<State> states) {
+        List<State> sortedStates = new ArrayList<>(states);
+        sortedStates.sort(Comparator.comparingInt(state -> state.rule));
+        Map<Object, List<State>> childStates = new LinkedHashMap<>();
+        int i = 0;
+        while (i < sortedStates.size()) {
+            Rule rule = rules.get(sortedStates.get(i).rule);
+            boolean matched = false;
+            for (; i < sortedStates.size() && sortedStates.get(i).rule == rule.index; i++) {
+                matched |= advance(rule, sortedStates.get(i), node, childStates);
+            }
+            if (matched) {
+                write(rule, node, childStates);
+            }
+        }
+        for (Map.Entry<Object, List<State>> child : childStates.entrySet()) {
+            visit(getChild(node, child.getKey()), child.getValue());
+        }
+    }
+
+    /**
+     * Advances the state on the node, states for the children are collected in childStates.
+     *
+     * @return true when the base path of the rule matches the node
+     */
+    private boolean advance(Rule rule, State state, Object node, Map<Object, List<State>> childStates) {
+        int position = state.position;
+        if (state.elementFilter) {
+            if (!matches(rule.tokens.get(position).filter, node)) {
+                return false;
+            }
+            position++;
+        }
+        for (; position < rule.tokens.size(); position++) {
+            Token token = rule.tokens.get(position);
+            switch (token.type) {
+                case PROPERTY:
+                    if (provider.isMap(node)) {
+                        for (String name : token.names) {
+                            if (provider.getMapValue(node, name) != JsonProvider.UNDEFINED) {
+                                addChildState(childStates, name, new State(rule.index, position + 1, false));
+                            }
+                        }
+                    }
+                    return false;
+                case WILDCARD:
+                    addChildStates(childStates, node, new State(rule.index, position + 1, false));
+                    return false;
+                case FILTER:
+                    if (provider.isArray(node)) {
+                        addChildStates(childStates, node, new State(rule.index, position, true));
+                        return false;
+                    }
+                    if (!provider.isMap(node) || !matches(token.filter, node)) {
+                        return false;
+                    }
+                    break;
+                case SCAN_FILTER:
+                    addChildStates(childStates, node, new State(rule.index, position, false));
+                    if (!provider.isMap(node) || !matches(token.filter, node)) {
+                        return false;
+                    }
+                    break;
+                default:
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sets the target attribute of the rule below the node, missing nodes are created as maps.
+     */
+    private void write(Rule rule, Object node, Map<Object, List<State>> childStates) {
+        if (!provider.isMap(node)) {
+            throw new GeneratorException("Error creating node " + rule.targetSegments[0] + " for template definition " +
+                    rule.baseJsonPath + ", the matched node is no object");
+        }
+        // the earlier rules have to see the subtree as it was before this write
+        List<State> pendingStates = childStates.remove(rule.targetSegments[0]);
+        if (pendingStates != null) {
+            visit(provider.getMapValue(node, rule.targetSegments[0]), pendingStates);
+        }
+        Object parent = node;
+        for (int i = 0; i < rule.targetSegments.length - 1; i++) {
+            String segment = rule.targetSegments[i];
+            Object child = provider.getMapValue(parent, segment);
+            if (child == JsonProvider.UNDEFINED || child == null ||
+                    (child instanceof Collection && ((Collection<?>) child).isEmpty())) {
+                child = provider.createMap();
+                provider.setProperty(parent, segment, child);
+            } else if (!provider.isMap(child)) {
+                throw new GeneratorException("Error creating node " + rule.targetSegments[i + 1] + " at " + segment +
+                        " for template definition " + rule.baseJsonPath);
+            }
+            parent = child;
+        }
+        provider.setProperty(parent, rule.targetSegments[rule.targetSegments.length - 1], rule.value);
+        rule.matches++;
+    }
+
+    private boolean matches(Filter filter, Object node) {
+        return filter.apply(new NodeContext(node));
+    }
+
+    private Object getChild(Object node, Object key) {
+        if (key instanceof Integer) {
+            return provider.getArrayIndex(node, (Integer) key);
+        }
+        return provider.getMapValue(node, (String) key);
+    }
+
+    private void addChildStates(Map<Object, List<State>> childStates, Object node, State state) {
+        if (provider.isMap(node)) {
+            for (String key : provider.getPropertyKeys(node)) {
+                addChildState(childStates, key, state);
+            }
+        } else if (provider.isArray(node)) {
+            for (int index = 0; index < provider.length(node); index++) {
+                addChildState(childStates, index, state);
+            }
+        }
+    }
+
+    private static void addChildState(Map<Object, List<State>> childStates, Object key, State state) {
+        childStates.computeIfAbsent(key, k -> new ArrayList<>()).add(state);
+    }
+
+    /**
+     * @param jsonPath unified JsonPath
+     * @return the tokens after the root, null when the path uses unsupported syntax
+     */
+    static List<Token> parsePath(String jsonPath) {
+        if (!StringUtils.startsWith(jsonPath, "$")) {
+            return null;
+        }
+        List<Token> tokens = new ArrayList<>();
+        int i = 1;
+        while (i < jsonPath.length()) {
+            if (jsonPath.startsWith("..", i)) {
+                i += 2;
+                int end = jsonPath.startsWith("[?(", i) ? findFilterEnd(jsonPath, i) : -1;
+                Token token = end > 0 ? Token.filter(TokenType.SCAN_FILTER, jsonPath.substring(i, end)) : null;
+                if (token == null) {
+                    return null;
+                }
+                tokens.add(token);
+                i = end;
+            } else if (jsonPath.charAt(i) == '.') {
+                i++;
+                if (i < jsonPath.length() && jsonPath.charAt(i) == '[') {
+                    continue;
+                }
+                int end = i;
+                while (end < jsonPath.length() && jsonPath.charAt(end) != '.' && jsonPath.charAt(end) != '[') {
+                    end++;
+                }
+                String name = jsonPath.substring(i, end);
+                if (name.isEmpty()) {
+                    return null;
+                }
+                tokens.add("*".equals(name) ? Token.wildcard() : Token.property(Collections.singletonList(name)));
+                i = end;
+            } else if (jsonPath.startsWith("[*]", i)) {
+                tokens.add(Token.wildcard());
+                i += 3;
+            } else if (jsonPath.startsWith("[?(", i)) {
+                int end = findFilterEnd(jsonPath, i);
+                Token token = end > 0 ? Token.filter(TokenType.FILTER, jsonPath.substring(i, end)) : null;
+                if (token == null) {
+                    return null;
+                }
+                tokens.add(token);
+                i = end;
+            } else if (jsonPath.startsWith("['", i)) {
+                List<String> names = new ArrayList<>();
+                i = parseNames(jsonPath, i + 1, names);
+                if (i < 0) {
+                    return null;
+                }
+                tokens.add(Token.property(names));
+            } else {
+                return null;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * @return index after the closing bracket, -1 when the names are malformed
+     */
+    private static int parseNames(String jsonPath, int start, List<String> names) {
+        int i = start;
+        while (i < jsonPath.length()) {
+            if (jsonPath.charAt(i) != '\'') {
+                return -1;
+            }
+            int end = jsonPath.indexOf('\'', i + 1);
+            if (end < 0 || jsonPath.substring(i + 1, end).contains("\\")) {
+                return -1;
+            }
+            names.add(jsonPath.substring(i + 1, end));
+            i = end + 1;
+            while (i < jsonPath.length() && jsonPath.charAt(i) == ' ') {
+                i++;
+            }
+            if (i < jsonPath.length() && jsonPath.charAt(i) == ']') {
+                return i + 1;
+            }
+            if (i >= jsonPath.length() || jsonPath.charAt(i) != ',') {
+                return -1;
+            }
+            i++;
+            while (i < jsonPath.length() && jsonPath.charAt(i) == ' ') {
+                i++;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return index after the <code>)]</code> closing the filter starting at start, -1 when not closed
+     */
+    private static int findFilterEnd(String jsonPath, int start) {
+        int depth = 0;
+        char quote = 0;
+        for (int i = start + 2; i < jsonPath.length(); i++) {
+            char c = jsonPath.charAt(i);
+            if (quote != 0) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return i + 1 < jsonPath.length() && jsonPath.charAt(i + 1) == ']' ? i + 2 : -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the property names of a target attribute like <code>@.template.html.content</code>, null when
+     * it is not a dotted relative path
+     */
+    static String[] parseTargetAttribute(String targetAttribute) {
+        if (!StringUtils.startsWith(targetAttribute, "@.") ||
+                StringUtils.containsAny(targetAttribute, "[]'\"*?()")) {
+            return null;
+        }
+        String[] segments = StringUtils.splitPreserveAllTokens(targetAttribute.substring(2), '.');
+        for (String segment : segments) {
+            if (segment.isEmpty()) {
+                return null;
+            }
+        }
+        return segments;
+    }
+
+    enum TokenType {
+        PROPERTY, WILDCARD, FILTER, SCAN_FILTER
+    }
+
+    static final class Token {
+        private final TokenType type;
+        private final List<String> names;
+        private final String filterText;
+        private final Filter filter;
+
+        private Token(TokenType type, List<String> names, String filterText, Filter filter) {
+            this.type = type;
+            this.names = names;
+            this.filterText = filterText;
+            this.filter = filter;
+        }
+
+        static Token property(List<String> names) {
+            return new Token(TokenType.PROPERTY, names, null, null);
+        }
+
+        static Token wildcard() {
+            return new Token(TokenType.WILDCARD, null, null, null);
+        }
+
+        /**
+         * @return the filter token, null for filters referring to the root, array items or functions
+         */
+        static Token filter(TokenType type, String filterText) {
+            if (UNSUPPORTED_FILTER.matcher(filterText).find()) {
+                return null;
+            }
+            try {
+                return new Token(type, null, filterText, Filter.parse(filterText));
+            } catch (InvalidPathException e) {
+                LOG.debug("Filter {} not supported by the single traversal", filterText, e);
+                return null;
+            }
+        }
+    }
+
+    private static final class Rule {
+        private final int index;
+        private final String baseJsonPath;
+        private final List<Token> tokens;
+        private final String[] targetSegments;
+        private final Object value;
+        private final boolean warnMissingPaths;
+        private int matches;
+
+        private Rule(int index, String baseJsonPath, List<Token> tokens, String[] targetSegments, Object value,
+                boolean warnMissingPaths) {
+            this.index = index;
+            this.baseJsonPath = baseJsonPath;
+            this.tokens = tokens;
+            this.targetSegments = targetSegments;
+            this.value = value;
+            this.warnMissingPaths = warnMissingPaths;
+        }
+
+        /**
+         * @return true when the base path only selects single properties, JsonPath reports a missing node then
+         */
+        private boolean isDefinite() {
+            for (Token token : tokens) {
+                if (token.type != TokenType.PROPERTY || token.names.size() != 1) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class State {
+        private final int rule;
+        private final int position;
+        private final boolean elementFilter;
+
+        /**
+         * @param rule          index of the rule
+         * @param position      index of the next token
+         * @param elementFilter the node is an array item which has to pass the filter token at position first
+         */
+        private State(int rule, int position, boolean elementFilter) {
+            this.rule = rule;
+            this.position = position;
+            this.elementFilter = elementFilter;
+        }
+    }
+
+    private final class NodeContext implements Predicate.PredicateContext {
+        private final Object item;
+
+        private NodeContext(Object item) {
+            this.item = item;
+        }
+
+        @Override
+        public Object item() {
+            return item;
+        }
+
+        @Override
+        public <T> T item(Class<T> clazz) {
+            return configuration.mappingProvider().map(item, clazz, configuration);
+        }
+
+        @Override
+        public Object root() {
+            return root;
+        }
+
+        @Override
+        public Configuration configuration() {
+            return configuration;
+        }
+    }
+}
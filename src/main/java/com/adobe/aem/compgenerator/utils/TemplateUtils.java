@@ -5,12 +5,11 @@ import com.adobe.aem.compgenerator.models.BaseModel;
 import com.adobe.aem.compgenerator.models.GenerationConfig;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.jayway.jsonpath.*;
+import com.jayway.jsonpath.spi.json.JsonProvider;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.text.StringSubstitutor;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -30,41 +29,88 @@ public class TemplateUtils {
             TEMPLATE_DEFINITIONS + "['placeholder-patterns'].jsonPath";
     private static final String TEMPLATE_COLLECT_PATTERN_AFTER = TEMPLATE_DEFINITIONS + "['collect-patterns']";
     private static final Logger LOG = LogManager.getLogger(TemplateUtils.class);
+    private static final ObjectMapper INDENT_MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private static final Pattern TEMPLATE_TOKEN_PATTERN = Pattern.compile("(@\\{[^\\}]*\\})+");
+
+    private static final String COMMENT_NODES = "$..['_comment_']";
+    private static final Configuration PATH_LIST_CONFIGURATION =
+            Configuration.builder().options(Option.AS_PATH_LIST).build();
+
+    /**
+     * Parses the data-config and removes all <code>_comment_</code> nodes. The returned context is the single
+     * mutable tree all template methods operate on.
+     *
+     * @param dataConfigJson data-config
+     * @return DocumentContext of the data-config without comments
+     */
+    public static DocumentContext parseDataConfig(String dataConfigJson) {
+        return JsonPath.parse(dataConfigJson).delete(COMMENT_NODES);
+    }
 
     public static String initConfigTemplates(String dataConfigJson) {
-        String dataConfigLoc = dataConfigJson;
+        DocumentContext dataConfig = parseDataConfig(dataConfigJson);
+        if (!initConfigTemplates(dataConfig)) {
+            return dataConfigJson;
+        }
+        return dataConfig.jsonString();
+    }
+
+    /**
+     * Copies the template patterns into the data-config tree and resolves their relative placeholders.
+     *
+     * @param dataConfig data-config tree, changed in place
+     * @return false when the data-config does not use templates
+     */
+    public static boolean initConfigTemplates(DocumentContext dataConfig) {
         try {
-            if (!isTemplateAvailable(dataConfigLoc)) {
-                return dataConfigLoc;
+            if (!isTemplateAvailable(dataConfig)) {
+                return false;
             }
             // Copy template pattern to json nodes e.g. json-data properties
-            dataConfigLoc = bringTemplateValuesInDataConfig(dataConfigJson, TEMPLATE_COPY_PATTERN_BEFORE);
+            bringTemplateValuesInDataConfig(dataConfig, TEMPLATE_COPY_PATTERN_BEFORE);
 
             // Resolve JsonPath-Placeholders from copied template pattern
             List<PathValueHolder<Object>> templatePlaceholders =
-                    readValuesFromJsonPath(dataConfigLoc, TEMPLATE_FIELDS_WITH_PLACEHOLDERS, null, false);
+                    readValuesFromJsonPath(dataConfig, TEMPLATE_FIELDS_WITH_PLACEHOLDERS, null, false);
             if (!templatePlaceholders.isEmpty()) {
-                dataConfigLoc = resolveRelativeJsonPathsInDataConfig(dataConfigLoc, templatePlaceholders);
+                resolveRelativeJsonPathsInDataConfig(dataConfig, templatePlaceholders);
             }
         } catch (Exception e) {
-            throw new GeneratorException("initConfigTemplates Error while init config templates" + dataConfigLoc, e);
+            throw new GeneratorException(
+                    "initConfigTemplates Error while init config templates" + dataConfig.jsonString(), e);
         }
-        return dataConfigLoc;
+        return true;
     }
 
     public static String updateReplaceValueMap(GenerationConfig generationConfig, String dataConfigJson) {
-        if (!isTemplateAvailable(dataConfigJson)) {
+        DocumentContext dataConfig = parseDataConfig(dataConfigJson);
+        if (!updateReplaceValueMap(generationConfig, dataConfig)) {
             return dataConfigJson;
         }
+        return dataConfig.jsonString();
+    }
+
+    /**
+     * Builds the template replacer map of the data-config from its collect patterns.
+     *
+     * @param generationConfig the {@link GenerationConfig} providing the common placeholders
+     * @param dataConfig       data-config tree, changed in place
+     * @return false when the data-config does not use templates
+     */
+    public static boolean updateReplaceValueMap(GenerationConfig generationConfig, DocumentContext dataConfig) {
+        if (!isTemplateAvailable(dataConfig)) {
+            return false;
+        }
         // Build a template replacer Map from JsonPath-Placeholders and set it to generationConfig
-        String dataConfigJsonNew = resolveCollectPatternAfter(dataConfigJson, TEMPLATE_COLLECT_PATTERN_AFTER,
+        resolveCollectPatternAfter(dataConfig, TEMPLATE_COLLECT_PATTERN_AFTER,
                 "$.['options'].['replaceValueMap']", generationConfig);
-        LOG.trace("Data-config templating used: \n{}", dataConfigJson);
-        return dataConfigJsonNew;
+        LOG.trace("Data-config templating used: \n{}", dataConfig::jsonString);
+        return true;
     }
 
-    private static boolean isTemplateAvailable(String dataConfigLoc) {
-        final List<String> pathsFound = readPathsFromJsonPath(dataConfigLoc, TEMPLATE_DEFINITIONS, null, false);
+    private static boolean isTemplateAvailable(DocumentContext dataConfig) {
+        final List<String> pathsFound = readPathsFromJsonPath(dataConfig, TEMPLATE_DEFINITIONS, null, false);
         if (pathsFound.isEmpty()) {
             LOG.debug("Template definitions not used");
             return false;
@@ -73,7 +119,6 @@ public class TemplateUtils {
     }
 
     static String getIntendedStringFromJson(Object dataConfig) {
-        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
         try {
             StringWriter outputWriter = new StringWriter();
             DocumentContext parse;
@@ -83,28 +128,39 @@ public class TemplateUtils {
             } else {
                 parse = JsonPath.parse(dataConfig);
             }
-            mapper.writeValue(outputWriter, (parse.json()));
+            INDENT_MAPPER.writeValue(outputWriter, (parse.json()));
             return outputWriter.toString();
         } catch (IOException e) {
             throw new GeneratorException("Error getIntendedStringFromJson for " + dataConfig, e);
         }
     }
 
+    static String resolveCollectPatternAfter(String dataConfigJson, String templateCollectPatternAfter,
+            String targetPathjforReplacerValueMap, GenerationConfig generationConfig) {
+        DocumentContext dataConfig = parseDataConfig(dataConfigJson);
+        resolveCollectPatternAfter(dataConfig, templateCollectPatternAfter, targetPathjforReplacerValueMap,
+                generationConfig);
+        return dataConfig.jsonString();
+    }
+
     @SuppressWarnings("unchecked")
-    static String resolveCollectPatternAfter(String dataConfig, String templateCollectPatternAfter,
+    static void resolveCollectPatternAfter(DocumentContext dataConfig, String templateCollectPatternAfter,
             String targetPathjforReplacerValueMap, GenerationConfig generationConfig) {
-        dataConfig = bringTemplateValuesInDataConfig(dataConfig, templateCollectPatternAfter);
+        bringTemplateValuesInDataConfig(dataConfig, templateCollectPatternAfter);
         final List<PathValueHolder<Map>> pathValueHolders =
                 readValuesFromJsonPath(dataConfig, targetPathjforReplacerValueMap, null, true);
         PathValueHolder<Map> replaceValueMap = pathValueHolders.get(0);
-        for (Map.Entry<String, Object> replacerEntry : ((Map<String, Object>) replaceValueMap.getValue()).entrySet()) {
+        // iterate a copy, the entries of the live map are replaced by the collected values
+        Map<String, Object> replacerEntries = new LinkedHashMap<>((Map<String, Object>) replaceValueMap.getValue());
+        JsonWriteBatch writeBatch = new JsonWriteBatch(dataConfig);
+        for (Map.Entry<String, Object> replacerEntry : replacerEntries.entrySet()) {
             String replacerKey = replacerEntry.getKey();
             String replacerJsonPathValue = (String) replacerEntry.getValue();
             LOG.trace("replaceValueMapPath {} replacerKey {} replacerJsonPathValue {}", replaceValueMap.getPath(),
                     replacerKey, replacerJsonPathValue);
             List<String> valuesfromReplacerJsonPathValue = new ArrayList<>();
-            for (PathValueHolder<Object> replacerValue : readValuesFromJsonPath(dataConfig, replacerJsonPathValue, null,
-                    false)) {
+            for (PathValueHolder<Object> replacerValue : readValuesFromJsonPath(dataConfig, replacerJsonPathValue,
+                    null, false)) {
                 LOG.trace("Found Values: " + replacerValue.getValue().toString());
                 final String valueForCollection = (String) replacerValue.getValue();
                 if (StringUtils.isNotEmpty(valueForCollection)) {
@@ -115,37 +171,36 @@ public class TemplateUtils {
             Map<String, String> stringsToReplaceValueMap = CommonUtils.getStringsToReplaceValueMap(generationConfig);
             LOG.trace("Replace common placeholders within template placeholders:\n{} \nMap:\n{}" + templatePlaceholders,
                     stringsToReplaceValueMap.toString());
-            StringSubstitutor stringSubstitutor = new StringSubstitutor(stringsToReplaceValueMap);
-            templatePlaceholders = stringSubstitutor.replace(templatePlaceholders);
+            templatePlaceholders = PlaceholderTemplate.compile(templatePlaceholders, PlaceholderTemplate.PREFIX)
+                    .render(stringsToReplaceValueMap);
             LOG.trace("Replaced \n{}" + templatePlaceholders);
-            dataConfig = setDataToJsonByJsonPath(dataConfig, replaceValueMap.getPath(), "@" + replacerKey,
-                    templatePlaceholders);
+            writeBatch.add(replaceValueMap.getPath(), "@" + replacerKey, templatePlaceholders);
         }
-        return dataConfig;
+        writeBatch.apply();
     }
 
     /**
      * Templates in data config containing relative placeholder "@{...}")" e.g. for special property item like field label.
      * Example: <p>@{label}: ${${sightly}Model.@{field}}</p> becomes <p>@{label}: ${${sightly}Model.textfieldTest}</p>
      *
-     * @param dataConfig ..
+     * @param dataConfig data-config tree, changed in place
      * @param templatePlaceholders
-     * @return changed dataConfig
      * @throws IOException ..
      */
-    private static String resolveRelativeJsonPathsInDataConfig(String dataConfig,
+    private static void resolveRelativeJsonPathsInDataConfig(DocumentContext dataConfig,
             List<PathValueHolder<Object>> templatePlaceholders) throws IOException {
         Map<String, String> stringsToReplaceValueMap = new LinkedHashMap<>();
         if (templatePlaceholders.isEmpty()) {
-            return null;
+            return;
         }
         String templateFinder = (String) templatePlaceholders.get(0).getValue();
+        JsonWriteBatch writeBatch = new JsonWriteBatch(dataConfig);
         for (PathValueHolder<Object> objectPathValueHolder : readValuesFromJsonPath(dataConfig, templateFinder, null,
                 true)) {
             String templateJasonPath = unifyJasonPath(objectPathValueHolder.getPath());
             try {
                 StringWriter outputWriter = new StringWriter();
-                new ObjectMapper().writeValue(outputWriter, objectPathValueHolder.getValue());
+                CommonUtils.OBJECT_MAPPER.writeValue(outputWriter, objectPathValueHolder.getValue());
                 String templateJsonValue = outputWriter.toString();
                 LOG.trace("templateJsonValue {}", templateJsonValue);
                 for (String templateToken : TemplateUtils.findTemplateTokens(templateJsonValue)) {
@@ -153,9 +208,8 @@ public class TemplateUtils {
                     String templateParentPath = StringUtils.substringBeforeLast(templateJasonPath, ".");
                     String relativeJsonPath =
                             StringUtils.replace(StringUtils.substringBeforeLast(templateToken, "}"), "@{", "@");
-                    final List<PathValueHolder<Object>> pathValueHolders =
-                            readValuesFromJsonPath(dataConfig, buildJasonPath(templateParentPath, relativeJsonPath),
-                                    null, true);
+                    final List<PathValueHolder<Object>> pathValueHolders = readValuesFromConcretePath(dataConfig,
+                            buildJasonPath(templateParentPath, relativeJsonPath), true);
                     if (pathValueHolders.isEmpty()) {
                         LOG.warn("Problem reading value empty for template Json path {} relativeJsonPath {}",
                                 templateParentPath, relativeJsonPath);
@@ -165,22 +219,23 @@ public class TemplateUtils {
                         stringsToReplaceValueMap.put(StringUtils.substringBetween(templateToken, "{", "}"), tokenValue);
                     }
                 }
-                StringSubstitutor stringSubstitutor = new StringSubstitutor(stringsToReplaceValueMap, "@{", "}");
-                dataConfig = setDataToJsonByJsonPath(dataConfig, templateJasonPath, "@",
-                        new ObjectMapper().readValue(stringSubstitutor.replace(templateJsonValue), Object.class));
+                String resolvedTemplateJson = PlaceholderTemplate
+                        .compile(templateJsonValue, PlaceholderTemplate.RELATIVE_PREFIX)
+                        .render(stringsToReplaceValueMap);
+                writeBatch.add(templateJasonPath, "@",
+                        CommonUtils.OBJECT_MAPPER.readValue(resolvedTemplateJson, Object.class));
             } catch (JsonProcessingException e) {
                 LOG.warn("Problem reading template Json for path {}", templateJasonPath, e);
             }
         }
-        return dataConfig;
+        writeBatch.apply();
     }
 
     static List<String> findTemplateTokens(final CharSequence text) {
         if (text == null || text.toString().trim().equals("")) {
             throw new IllegalArgumentException("Invalid text");
         }
-        final Pattern pattern = Pattern.compile("(@\\{[^\\}]*\\})+");
-        final Matcher matcher = pattern.matcher(text.toString());
+        final Matcher matcher = TEMPLATE_TOKEN_PATTERN.matcher(text);
         final List<String> tokens = new ArrayList<>();
         while (matcher.find()) {
             tokens.add(matcher.group(0));
@@ -189,21 +244,19 @@ public class TemplateUtils {
     }
 
     /**
-     * @param dataConfigJson         ..
+     * @param dataConfig             data-config tree
      * @param definitionTypeNodeName node name to search for template definition
-     * @return dataConfigJson replaced by values
+     * @return the template definitions
      */
-    private static List<TemplateDefinition> readTemplateDefinition(String dataConfigJson,
+    static List<TemplateDefinition> readTemplateDefinition(DocumentContext dataConfig,
             String definitionTypeNodeName) {
         List<TemplateDefinition> templateDefinitions = new ArrayList<>();
         List<PathValueHolder<Map<String, String>>> foundDefinitionTypes =
-                readValuesFromJsonPath(dataConfigJson, definitionTypeNodeName + ".*", null, true);
+                readValuesFromJsonPath(dataConfig, definitionTypeNodeName + ".*", null, true);
         for (PathValueHolder<Map<String, String>> foundDefinitionType : foundDefinitionTypes) {
-            ObjectMapper mapper = new ObjectMapper();
-            mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
             String definitionAsJsonString = getIntendedStringFromJson(foundDefinitionType.getValue());
             try {
-                templateDefinitions.add(mapper.readValue(definitionAsJsonString, TemplateDefinition.class));
+                templateDefinitions.add(CommonUtils.OBJECT_MAPPER.readValue(definitionAsJsonString, TemplateDefinition.class));
             } catch (JsonProcessingException e) {
                 throw new GeneratorException(
                         "Error DeserializationFeature path " + foundDefinitionType.getPath() + " for " +
@@ -216,13 +269,25 @@ public class TemplateUtils {
     /**
      * bringTemplateValuesInDataConfig
      *
-     * @param dataConfigJson         ..
+     * @param dataConfig             data-config tree, changed in place
      * @param definitionTypeNodeName node to search for TemplateValues
-     * @return dataConfigJson replaced by values
      */
-    private static String bringTemplateValuesInDataConfig(String dataConfigJson, String definitionTypeNodeName) {
-        String dataConfigLocal = dataConfigJson;
-        List<TemplateDefinition> collectPatterns = readTemplateDefinition(dataConfigLocal, definitionTypeNodeName);
+    private static void bringTemplateValuesInDataConfig(DocumentContext dataConfig, String definitionTypeNodeName) {
+        List<TemplateDefinition> templateDefinitions = readTemplateDefinition(dataConfig, definitionTypeNodeName);
+        if (!TemplatePatternEvaluator.apply(dataConfig, templateDefinitions)) {
+            applyTemplateDefinitions(dataConfig, templateDefinitions);
+        }
+    }
+
+    /**
+     * Evaluates the template definitions one after the other, each target attribute with its own JsonPath
+     * evaluation of the base path.
+     *
+     * @param dataConfig      data-config tree, changed in place
+     * @param collectPatterns template definitions in declaration order
+     */
+    static void applyTemplateDefinitions(DocumentContext dataConfig, List<TemplateDefinition> collectPatterns) {
+        JsonWriteBatch writeBatch = new JsonWriteBatch(dataConfig);
         for (TemplateDefinition collectPattern : collectPatterns) {
             String baseJsonPath = collectPattern.getbaseJsonPath();
             if (collectPattern.getTargetAttributes() != null) {
@@ -231,19 +296,19 @@ public class TemplateUtils {
                     String replacerJsonPathValue = patternAttributes.getValue();
                     String jsonPathToSearchInDataJson = unifyJasonPath(baseJsonPath);
                     List<String> jsonPathsToAdd =
-                            readPathsFromJsonPath(dataConfigLocal, jsonPathToSearchInDataJson, null,
+                            readPathsFromJsonPath(dataConfig, jsonPathToSearchInDataJson, null,
                                     collectPattern.isWarnMissingPaths());
                     LOG.trace("bringTemplateValuesInDataConfig - jsonPathToSearchInDataJson {} jsonPathToAdd {} found",
                             jsonPathToSearchInDataJson, jsonPathsToAdd);
                     for (String jsonPathToAdd : jsonPathsToAdd) {
-                        dataConfigLocal = setDataToJsonByJsonPath(dataConfigLocal, jsonPathToAdd, replacerKey,
-                                replacerJsonPathValue);
+                        writeBatch.add(jsonPathToAdd, replacerKey, replacerJsonPathValue);
                     }
+                    // the next attribute is evaluated on the tree including these writes
+                    writeBatch.apply();
 
                 }
             }
         }
-        return dataConfigLocal;
     }
 
     /**
@@ -257,40 +322,26 @@ public class TemplateUtils {
      */
     static String setDataToJsonByJsonPath(String dataConfigJson, String jsonPathToAdd, String relativeJsonPath,
             Object targetValue) {
-        LOG.trace("dataConfigJson \n{}", dataConfigJson);
-        DocumentContext jsonDoc = JsonPath.using(Configuration.builder().build()).parse(dataConfigJson);
-        for (String pathsFromJsonPath : readPathsFromJsonPath(dataConfigJson, jsonPathToAdd, null, true)) {
-            String targetPath = buildJasonPath(pathsFromJsonPath, relativeJsonPath);
-            LOG.debug("Put Node targetPath {} pathsFromJsonPath {} currentPathSegment {} ", targetPath,
-                    pathsFromJsonPath, relativeJsonPath);
-            String parentAdded = StringUtils.substringBefore(targetPath, ".");
-            String[] pathSegmentsAfterRoot =
-                    StringUtils.split(StringUtils.substringAfter(targetPath, parentAdded + "."), ".");
-            for (String currentPathSegment : pathSegmentsAfterRoot) {
-                Object subscription = null;
-                String currentTargetPath = parentAdded + "." + currentPathSegment;
-                try {
-                    subscription = jsonDoc.read(currentTargetPath);
-                } catch (Exception e) {
-                    LOG.trace("Node {} not found", currentTargetPath);
-                }
-                if (subscription == null ||
-                        (subscription instanceof Collection && ((Collection) subscription).size() <= 0)) {
-                    try {
-                        LOG.debug("Put Node parentAdded {} currentPathSegment {} ", parentAdded, currentPathSegment);
-                        jsonDoc = jsonDoc.put(parentAdded, currentPathSegment, new LinkedHashMap());
-                        LOG.trace("Change json parentAdded {} currentPathSegment {} ", parentAdded, currentPathSegment);
-                    } catch (Exception e) {
-                        throw new GeneratorException(
-                                "Error creating node " + currentPathSegment + " at " + parentAdded + " ", e);
-                    }
-                }
-                parentAdded = currentTargetPath;
-            }
-            LOG.trace("Set at targetPath {} targetValue {}", targetPath, targetValue);
-            jsonDoc.set(targetPath, targetValue);
+        DocumentContext dataConfig = parseDataConfig(dataConfigJson);
+        setDataToJsonByJsonPath(dataConfig, jsonPathToAdd, relativeJsonPath, targetValue);
+        return dataConfig.jsonString();
+    }
+
+    /**
+     * setDataToJsonByJsonPath missing nodes will be created with put LinkedHashMap
+     *
+     * @param jsonDoc          data-config tree, changed in place
+     * @param jsonPathToAdd    starts with $.
+     * @param relativeJsonPath starts with @
+     * @param targetValue      ..
+     */
+    static void setDataToJsonByJsonPath(DocumentContext jsonDoc, String jsonPathToAdd, String relativeJsonPath,
+            Object targetValue) {
+        JsonWriteBatch writeBatch = new JsonWriteBatch(jsonDoc);
+        for (String pathsFromJsonPath : readPathsFromJsonPath(jsonDoc, jsonPathToAdd, null, true)) {
+            writeBatch.add(pathsFromJsonPath, relativeJsonPath, targetValue);
         }
-        return jsonDoc.jsonString();
+        writeBatch.apply();
     }
 
     private static String buildJasonPath(String jsonPathToAdd, String relativeJsonPath) {
@@ -322,41 +373,144 @@ public class TemplateUtils {
 
     static <T> List<PathValueHolder<T>> readValuesFromJsonPath(String dataConfigJson, String jasonPath,
             Predicate<String> filterPaths, boolean warnMissingPath) {
-        final List<String> pathsFound = readPathsFromJsonPath(dataConfigJson, jasonPath, filterPaths, warnMissingPath);
+        return readValuesFromJsonPath(parseDataConfig(dataConfigJson), jasonPath, filterPaths, warnMissingPath);
+    }
+
+    static <T> List<PathValueHolder<T>> readValuesFromJsonPath(DocumentContext dataConfig, String jasonPath,
+            Predicate<String> filterPaths, boolean warnMissingPath) {
+        return readValues(dataConfig, readPathsFromJsonPath(dataConfig, jasonPath, filterPaths, warnMissingPath));
+    }
+
+    /**
+     * Reads the value of a one-off path built for a single node, e.g. a relative template token. A definite path
+     * is read by walking the data-config tree, any other path is compiled without the {@link JsonPathCache}, so
+     * the cache keeps the definition expressions.
+     *
+     * @param dataConfig      data-config tree
+     * @param concretePath    JsonPath of a single node
+     * @param warnMissingPath log a warning instead of a debug message when nothing was found
+     * @return the value of the path, empty when nothing was found
+     */
+    static <T> List<PathValueHolder<T>> readValuesFromConcretePath(DocumentContext dataConfig, String concretePath,
+            boolean warnMissingPath) {
+        String unifiedPath = unifyJasonPath(concretePath);
+        List<Object> segments;
+        try {
+            segments = JsonWriteBatch.parseSegments(unifiedPath);
+        } catch (GeneratorException e) {
+            LOG.trace("readValuesFromConcretePath - compile indefinite path {}", unifiedPath);
+            return readValues(dataConfig, readPaths(dataConfig, concretePath, false, null, warnMissingPath));
+        }
+        final List<PathValueHolder<T>> pathValues = new ArrayList<>();
+        Object value = readDefinitePath(dataConfig, segments);
+        if (value == JsonProvider.UNDEFINED) {
+            if (warnMissingPath) {
+                LOG.warn("readValuesFromConcretePath - path not found {}", unifiedPath);
+            } else {
+                LOG.debug("readValuesFromConcretePath - path not found {}", unifiedPath);
+            }
+        } else {
+            pathValues.add(new PathValueHolder<>(unifiedPath, castValue(value)));
+        }
+        return pathValues;
+    }
+
+    private static <T> List<PathValueHolder<T>> readValues(DocumentContext dataConfig, List<String> pathsFound) {
         final List<PathValueHolder<T>> pathValues = new ArrayList<PathValueHolder<T>>();
         for (String path : pathsFound) {
             String unifyJasonPath = unifyJasonPath(path);
             LOG.trace("readValuesFromJsonPath - unifyJasonPath {}", unifyJasonPath);
+            Object value;
             try {
-                pathValues.add(new PathValueHolder<>(unifyJasonPath,
-                        JsonPath.parse(dataConfigJson).delete("$..['_comment_']").read(unifyJasonPath)));
+                value = readDefinitePath(dataConfig, JsonWriteBatch.parseSegments(unifyJasonPath));
             } catch (Exception e) {
                 throw new GeneratorException("Read value error on reading jsonPath '" + unifyJasonPath +
                         ". See http://jsonpath.herokuapp.com for help", e);
             }
+            if (value == JsonProvider.UNDEFINED) {
+                throw new GeneratorException("Read value error on reading jsonPath '" + unifyJasonPath +
+                        "', the path was found but is no longer in the data-config");
+            }
+            pathValues.add(new PathValueHolder<>(unifyJasonPath, castValue(value)));
         }
         return pathValues;
     }
 
+    /**
+     * Walks the data-config tree along the segments of a definite path.
+     *
+     * @return the value, {@link JsonProvider#UNDEFINED} when the path does not exist
+     */
+    private static Object readDefinitePath(DocumentContext dataConfig, List<Object> segments) {
+        JsonProvider provider = dataConfig.configuration().jsonProvider();
+        Object node = dataConfig.json();
+        for (Object segment : segments) {
+            if (segment instanceof Integer) {
+                int index = (Integer) segment;
+                if (!provider.isArray(node) || index >= provider.length(node)) {
+                    return JsonProvider.UNDEFINED;
+                }
+                node = provider.getArrayIndex(node, index);
+            } else if (provider.isMap(node)) {
+                node = provider.getMapValue(node, (String) segment);
+                if (node == JsonProvider.UNDEFINED) {
+                    return node;
+                }
+            } else {
+                return JsonProvider.UNDEFINED;
+            }
+        }
+        return node;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T castValue(Object value) {
+        return (T) value;
+    }
+
     static List<String> readPathsFromJsonPath(String dataConfigJson, String readPath, Predicate<String> filterPaths,
             boolean warnMissing) {
-        Configuration conf = Configuration.builder().options(Option.AS_PATH_LIST).build();
-        String unifyJasonPath = unifyJasonPath(readPath);
-        LOG.trace("readPathsFromJsonPath - readPath {}", unifyJasonPath);
+        return readPathsFromJsonPath(parseDataConfig(dataConfigJson), readPath, filterPaths, warnMissing);
+    }
+
+    /**
+     * Reads the definite paths matching the readPath from the data-config tree.
+     *
+     * @param dataConfig  data-config tree
+     * @param readPath    JsonPath to search
+     * @param filterPaths optional filter of the found paths
+     * @param warnMissing log a warning instead of a debug message when nothing was found
+     * @return list of found paths, empty when nothing was found
+     */
+    static List<String> readPathsFromJsonPath(DocumentContext dataConfig, String readPath,
+            Predicate<String> filterPaths, boolean warnMissing) {
+        return readPaths(dataConfig, readPath, true, filterPaths, warnMissing);
+    }
+
+    /**
+     * @param cached compile the readPath with the {@link JsonPathCache}, only for the definition expressions which
+     *               are read again for every generation
+     */
+    private static List<String> readPaths(DocumentContext dataConfig, String readPath, boolean cached,
+            Predicate<String> filterPaths, boolean warnMissing) {
+        LOG.trace("readPathsFromJsonPath - readPath {}", readPath);
         List<String> pathList = new ArrayList<>();
         try {
-            pathList = JsonPath.using(conf).parse(dataConfigJson).delete("$..['_comment_']").read(unifyJasonPath);
+            JsonPath compiledPath = cached ? JsonPathCache.getInstance().get(readPath) :
+                    JsonPath.compile(unifyJasonPath(readPath));
+            pathList = JsonPath.using(PATH_LIST_CONFIGURATION).parse(dataConfig.json()).read(compiledPath);
             if (filterPaths != null) {
                 return Arrays.asList(pathList.stream().filter(filterPaths).toArray(String[]::new));
             }
         } catch (PathNotFoundException e) {
-            LOG.trace("readPathsFromJsonPath - dataConfigJson {}", dataConfigJson);
+            LOG.trace("readPathsFromJsonPath - dataConfigJson {}", dataConfig::jsonString);
             if (warnMissing) {
-                LOG.warn("readPathsFromJsonPath - readPath " + unifyJasonPath, e);
+                LOG.warn("readPathsFromJsonPath - readPath " + unifyJasonPath(readPath), e);
             } else {
-                LOG.debug("readPathsFromJsonPath - readPath " + unifyJasonPath, e);
+                LOG.debug("readPathsFromJsonPath - readPath " + unifyJasonPath(readPath), e);
             }
         } catch (Exception e) {
+            String unifyJasonPath = unifyJasonPath(readPath);
             String urlForTesting = null;
             try {
                 urlForTesting = URLEncoder.encode("\"http://jsonpath.herokuapp.com/?path=" + unifyJasonPath, "UTF-8");
@@ -365,7 +519,7 @@ public class TemplateUtils {
             }
             throw new GeneratorException(
                     "Read path error on reading jsonPath '" + unifyJasonPath + "' \ntest your jsonPath with " +
-                            urlForTesting + "\"\njson: " + dataConfigJson, e);
+                            urlForTesting + "\"\njson: " + dataConfig.jsonString(), e);
         }
         return pathList;
     }
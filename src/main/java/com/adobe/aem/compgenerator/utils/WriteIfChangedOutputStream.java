@@ -0,0 +1,122 @@
+/*
+ * #%L
+ * AEM Component Generator
+ * %%
+ * Copyright (C) 2019 Adobe
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.adobe.aem.compgenerator.utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * <p>
+ * Output stream of a generated file, rendered into memory and written on {@link #close()} only when the content
+ * differs from the existing file.
+ * <p>
+ * The existing file is compared by its length first and then byte by byte. Unchanged files are not touched and
+ * keep their modification time, so incremental builds of the project do not see them as changed. Changed files
+ * are replaced without backup, the generator runs write through an {@link OutputTransaction}, which records the
+ * replaced files in its {@link BackupStore}.
+ */
+public class WriteIfChangedOutputStream extends ByteArrayOutputStream {
+    private static final Logger LOG = LogManager.getLogger(WriteIfChangedOutputStream.class);
+
+    private static final int COMPARE_BUFFER_SIZE = 8192;
+
+    private final Path target;
+    private boolean closed;
+
+    /**
+     * @param target the file to write
+     */
+    public WriteIfChangedOutputStream(Path target) {
+        this.target = target;
+    }
+
+    /**
+     * Writes the content to the file unless it is unchanged.
+     *
+     * @throws IOException exception while comparing or writing the file
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        writeIfChanged(target, buf, count);
+    }
+
+    /**
+     * @param target  the file to write
+     * @param content buffer with the new content
+     * @param length  length of the content in the buffer
+     * @return true if the file was written, false if its content was unchanged
+     * @throws IOException exception while comparing or writing the file
+     */
+    static boolean writeIfChanged(Path target, byte[] content, int length) throws IOException {
+        if (Files.exists(target)) {
+            if (contentEquals(target, content, length)) {
+                LOG.debug("Unchanged: " + target);
+                return false;
+            }
+            LOG.info("Replaced: " + target);
+        } else {
+            if (target.getParent() != null) {
+                Files.createDirectories(target.getParent());
+            }
+            LOG.info("Created: " + target);
+        }
+        try (OutputStream out = Files.newOutputStream(target)) {
+            out.write(content, 0, length);
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the file has exactly the given content
+     */
+    static boolean contentEquals(Path file, byte[] content, int length) throws IOException {
+        if (!Files.isRegularFile(file) || Files.size(file) != length) {
+            return false;
+        }
+        byte[] buffer = new byte[Math.min(COMPARE_BUFFER_SIZE, Math.max(length, 1))];
+        int offset = 0;
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                if (offset + read > length) {
+                    return false;
+                }
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] != content[offset + i]) {
+                        return false;
+                    }
+                }
+                offset += read;
+            }
+        }
+        return offset == length;
+    }
+}
@@ -20,95 +20,28 @@
 package com.adobe.aem.compgenerator.utils;
 
 import com.adobe.aem.compgenerator.Constants;
-import com.adobe.aem.compgenerator.exceptions.GeneratorException;
-import com.adobe.aem.compgenerator.javacodemodel.RollbackFileHandler;
 import com.adobe.aem.compgenerator.models.GenerationConfig;
 import com.adobe.aem.compgenerator.models.OptionTemplateTxt;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
-import java.io.FileWriter;
-import java.io.StringWriter;
 
 public class XMLUtils {
 
     /**
-     * Creates root node with of dialog xml with required name spaces as attr.
+     * Starts the root node of a .content.xml with the copyright comment and the required name spaces.
      *
-     * @param document The {@link Document} object
+     * @param writer The {@link DocViewWriter} of the file
      * @param generationConfig The {@link GenerationConfig} object with all the populated values
-     * @return Element
+     * @return DocViewWriter with the started root node
      */
-    public static Element createRootElement(Document document, GenerationConfig generationConfig) {
-        if (document == null) {
-            return null;
-        }
-
+    public static DocViewWriter startRootNode(DocViewWriter writer, GenerationConfig generationConfig) {
         String templateString = CommonUtils.getTemplateFileAsString(OptionTemplateTxt.TemplateType.TEMPLATE_COPYRIGHT_XML.toString(), generationConfig);
-        document.appendChild(document.createComment(templateString));
-        Element rootElement = document.createElement(Constants.JCR_ROOT_NODE);
-        rootElement.setAttribute("xmlns:sling", "http://sling.apache.org/jcr/sling/1.0");
-        rootElement.setAttribute("xmlns:granite", "http://www.adobe.com/jcr/granite/1.0");
-        rootElement.setAttribute("xmlns:cq", "http://www.day.com/jcr/cq/1.0");
-        rootElement.setAttribute("xmlns:jcr", "http://www.jcp.org/jcr/1.0");
-        rootElement.setAttribute("xmlns:nt", "http://www.jcp.org/jcr/nt/1.0");
-
-        return rootElement;
-    }
-
-    /**
-     * Method will transform Document structure by prettify xml elements to file.
-     *
-     * @param document The {@link Document} object
-     * @param filePath The path to the file
-     */
-    public static void transformDomToFile(Document document, String filePath) {
-        try {
-            TransformerFactory tf = TransformerFactory.newInstance();
-            Transformer tr = tf.newTransformer();
-
-            //config for beautify/prettify xml content.
-            tr.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
-            tr.setOutputProperty(OutputKeys.INDENT, "yes");
-            tr.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
-
-            DOMSource source = new DOMSource(document);
-            RollbackFileHandler file = CommonUtils.getNewFileAtPathAndRenameExisting(filePath);
-            FileWriter fileWriterNew = file.getFileWriterNew();
-            StreamResult result = new StreamResult(fileWriterNew);
-
-            //transform your DOM source to the given file location.
-            tr.transform(source, result);
-            fileWriterNew.close();
-        } catch (Exception e) {
-            throw new GeneratorException("Exception while DOM conversion to file : " + filePath, e);
+        if (templateString != null) {
+            writer.comment(templateString);
         }
+        return writer.startNode(Constants.JCR_ROOT_NODE)
+                .namespace("sling", "http://sling.apache.org/jcr/sling/1.0")
+                .namespace("granite", "http://www.adobe.com/jcr/granite/1.0")
+                .namespace("cq", "http://www.day.com/jcr/cq/1.0")
+                .namespace("jcr", "http://www.jcp.org/jcr/1.0")
+                .namespace("nt", "http://www.jcp.org/jcr/nt/1.0");
     }
-
-    /**
-     * Method will transform Document structure by prettify xml elements to writer. Can be handled with writer.toString()
-     *
-     * @param document The {@link Document} object
-     * @return
-     */
-    public static StringWriter transformDomToWriter(Document document) {
-        StringWriter writer = null;
-        try {
-            writer = new StringWriter();
-            DOMSource domSource = new DOMSource(document);
-            StreamResult result = new StreamResult(writer);
-            TransformerFactory tf = TransformerFactory.newInstance();
-            Transformer transformer = tf.newTransformer();
-            transformer.transform(domSource, result);
-        } catch (Exception e) {
-            throw new GeneratorException("Exception while DOM conversion to writer", e);
-        }
-        return writer;
-    }
-
 }
@@ -0,0 +1,51 @@
+package com.adobe.aem.compgenerator;
+
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+class BatchGeneratorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testConfigsWithSameCompDirConflict() throws IOException {
+        File first = copyConfig("/component-generator/data-config-noTemplateTest.json", "first/data-config.json");
+        File second = copyConfig("/component-generator/data-config-noTemplateTest.json", "second/data-config.json");
+
+        List<GenerationResult> results;
+        try (FileSystem outputFileSystem = Jimfs.newFileSystem(Configuration.unix())) {
+            GeneratorArguments arguments = GeneratorArguments.parse(new String[]{"--jobs", "2"});
+            results = new BatchGenerator(arguments, outputFileSystem).generate(Arrays.asList(first, second));
+        }
+
+        Assertions.assertEquals(2, results.size());
+        for (GenerationResult result : results) {
+            Assertions.assertTrue(result.isFailed(), result.toString());
+            Assertions.assertTrue(result.getMessage().contains("Output conflict on compDir"), result.getMessage());
+            Assertions.assertTrue(result.getMessage().contains(first.getPath()), result.getMessage());
+            Assertions.assertTrue(result.getMessage().contains(second.getPath()), result.getMessage());
+        }
+    }
+
+    private File copyConfig(String resource, String target) throws IOException {
+        Path configFile = tempDir.resolve(target);
+        Files.createDirectories(configFile.getParent());
+        try (InputStream in = getClass().getResourceAsStream(resource)) {
+            Files.copy(in, configFile);
+        }
+        return configFile.toFile();
+    }
+}
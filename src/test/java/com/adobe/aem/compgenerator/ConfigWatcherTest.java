@@ -0,0 +1,55 @@
+package com.adobe.aem.compgenerator;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+
+class ConfigWatcherTest {
+    private final Path configPath = Paths.get("/project/components/teaser/data-config.json");
+
+    @Test
+    void testConfigChangeAffectsConfig() {
+        Assertions.assertTrue(isAffectedByChange(configPath));
+        Assertions.assertFalse(isAffectedByChange(Paths.get("/project/components/hero/data-config.json")));
+    }
+
+    @Test
+    void testAppsDataCopyChangeAffectsConfig() {
+        Assertions.assertTrue(isAffectedByChange(Paths.get("/project/components/teaser/apps-data-copy/teaser.html")));
+        Assertions.assertTrue(isAffectedByTree(Paths.get("/project/components/teaser/apps-data-copy/clientlibs")));
+        Assertions.assertFalse(isAffectedByChange(Paths.get("/project/components/hero/apps-data-copy/hero.html")));
+        Assertions.assertFalse(isAffectedByChange(Paths.get("/project/components/teaser/README.md")));
+    }
+
+    @Test
+    void testCustomAppsDataCopyFolder() {
+        List<Path> changedPaths = Collections.singletonList(Paths.get("/project/components/teaser/static/teaser.html"));
+        Assertions.assertTrue(ConfigWatcher.isAffected(configPath, changedPaths, Collections.emptyList(), "static"));
+        Assertions.assertFalse(ConfigWatcher.isAffected(configPath, changedPaths, Collections.emptyList(),
+                Constants.FOLDER_APPS_DATA_COPY));
+    }
+
+    @Test
+    void testParentDirectoryChangeAffectsConfig() {
+        Assertions.assertTrue(isAffectedByTree(Paths.get("/project/components")));
+    }
+
+    @Test
+    void testParentDirectoryModificationDoesNotAffectConfig() {
+        Assertions.assertFalse(isAffectedByChange(Paths.get("/project/components")));
+    }
+
+    private boolean isAffectedByChange(Path changedPath) {
+        return ConfigWatcher.isAffected(configPath, Collections.singletonList(changedPath), Collections.emptyList(),
+                Constants.FOLDER_APPS_DATA_COPY);
+    }
+
+    private boolean isAffectedByTree(Path changedTree) {
+        return ConfigWatcher.isAffected(configPath, Collections.emptyList(), Collections.singletonList(changedTree),
+                Constants.FOLDER_APPS_DATA_COPY);
+    }
+}
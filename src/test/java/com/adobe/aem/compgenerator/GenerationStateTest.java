@@ -0,0 +1,95 @@
+package com.adobe.aem.compgenerator;
+
+import com.adobe.aem.compgenerator.models.GenerationConfig;
+import com.adobe.aem.compgenerator.utils.CommonUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Collections;
+
+class GenerationStateTest {
+    private static final String KEY = "data-config.json";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testUnchangedComponentIsSkipped() throws IOException {
+        Path output = write(tempDir.resolve("teaser.html"), "<div/>");
+        GenerationState state = GenerationState.load(tempDir.resolve("state.json"));
+        state.update(KEY, "fingerprint", Collections.singletonList(output));
+        state.save();
+
+        GenerationState reloadedState = GenerationState.load(tempDir.resolve("state.json"));
+        Assertions.assertTrue(reloadedState.isUpToDate(KEY, "fingerprint"));
+    }
+
+    @Test
+    void testChangedConfigIsRegenerated() throws IOException {
+        Path configFile = tempDir.resolve("data-config.json");
+        try (InputStream in = getClass().getResourceAsStream("/component-generator/data-config-noTemplateTest.json")) {
+            Files.copy(in, configFile);
+        }
+        GenerationConfig config = AemCompGenerator.prepareGenerationConfig(configFile.toFile());
+        Assertions.assertEquals(config.getFingerprint(),
+                AemCompGenerator.prepareGenerationConfig(configFile.toFile()).getFingerprint());
+
+        Path output = write(tempDir.resolve("teaser.html"), "<div/>");
+        GenerationState state = GenerationState.load(tempDir.resolve("state.json"));
+        state.update(KEY, config.getFingerprint(), Collections.singletonList(output));
+
+        String content = new String(Files.readAllBytes(configFile), StandardCharsets.UTF_8);
+        write(configFile, content.replace("\"Demo Component\"", "\"Teaser\""));
+        String changedFingerprint = AemCompGenerator.prepareGenerationConfig(configFile.toFile()).getFingerprint();
+        Assertions.assertNotEquals(config.getFingerprint(), changedFingerprint);
+        Assertions.assertFalse(state.isUpToDate(KEY, changedFingerprint));
+    }
+
+    @Test
+    void testModifiedOutputIsRegenerated() throws IOException {
+        Path output = write(tempDir.resolve("teaser.html"), "<div/>");
+        GenerationState state = GenerationState.load(tempDir.resolve("state.json"));
+        state.update(KEY, "fingerprint", Collections.singletonList(output));
+
+        write(output, "<div>modified</div>");
+        Assertions.assertFalse(state.isUpToDate(KEY, "fingerprint"));
+    }
+
+    @Test
+    void testDeletedOutputIsRegenerated() throws IOException {
+        Path output = write(tempDir.resolve("teaser.html"), "<div/>");
+        GenerationState state = GenerationState.load(tempDir.resolve("state.json"));
+        state.update(KEY, "fingerprint", Collections.singletonList(output));
+
+        Files.delete(output);
+        Assertions.assertFalse(state.isUpToDate(KEY, "fingerprint"));
+    }
+
+    @Test
+    void testClassesFolderFingerprintChangesWithCode() throws IOException {
+        Path classes = tempDir.resolve("classes");
+        Path classFile = write(Files.createDirectories(classes.resolve("com/adobe")).resolve("Generator.class"), "v1");
+        String fingerprint = digestCodeSource(classes);
+        Assertions.assertEquals(fingerprint, digestCodeSource(classes));
+
+        write(classFile, "v2");
+        Assertions.assertNotEquals(fingerprint, digestCodeSource(classes));
+    }
+
+    private static String digestCodeSource(Path codeSource) throws IOException {
+        MessageDigest digest = CommonUtils.newSha256Digest();
+        GenerationState.digestCodeSource(digest, codeSource);
+        return CommonUtils.toHex(digest.digest());
+    }
+
+    private static Path write(Path file, String content) throws IOException {
+        return Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
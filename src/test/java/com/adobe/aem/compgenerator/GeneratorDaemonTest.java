@@ -0,0 +1,81 @@
+package com.adobe.aem.compgenerator;
+
+import com.adobe.aem.compgenerator.exceptions.GeneratorException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Map;
+
+class GeneratorDaemonTest {
+
+    @TempDir
+    Path tempDir;
+
+    private GeneratorDaemon daemon;
+
+    @BeforeEach
+    void setUp() {
+        daemon = new GeneratorDaemon(GeneratorArguments.parse(new String[]{"--daemon"}));
+    }
+
+    @Test
+    void testPing() {
+        Map<String, Object> response = handleRequest("{\"command\":\"ping\"}");
+        Assertions.assertEquals(GeneratorDaemon.STATUS_OK, response.get("status"));
+        Assertions.assertTrue(response.containsKey("jsonPathCache"));
+        Assertions.assertTrue(daemon.isRunning());
+    }
+
+    @Test
+    void testShutdown() {
+        Map<String, Object> response = handleRequest("{\"command\":\"shutdown\"}");
+        Assertions.assertEquals(GeneratorDaemon.STATUS_OK, response.get("status"));
+        Assertions.assertFalse(daemon.isRunning());
+    }
+
+    @Test
+    void testUnknownCommand() {
+        Map<String, Object> response = handleRequest("{\"command\":\"delete\"}");
+        Assertions.assertEquals(GeneratorDaemon.STATUS_ERROR, response.get("status"));
+        Assertions.assertEquals("Unknown command delete", response.get("message"));
+        Assertions.assertTrue(daemon.isRunning());
+    }
+
+    @Test
+    void testBadJson() {
+        Assertions.assertThrows(GeneratorException.class, () -> daemon.parseRequest("POST / HTTP/1.1"));
+        Assertions.assertThrows(GeneratorException.class,
+                () -> daemon.parseRequest("{\"token\":\"" + daemon.getToken() + "\",\"command\":"));
+    }
+
+    @Test
+    void testMissingOrInvalidToken() {
+        Assertions.assertThrows(GeneratorException.class, () -> daemon.parseRequest("{\"command\":\"shutdown\"}"));
+        Assertions.assertThrows(GeneratorException.class,
+                () -> daemon.parseRequest("{\"token\":\"0123\",\"command\":\"shutdown\"}"));
+        Assertions.assertTrue(daemon.isRunning());
+    }
+
+    @Test
+    void testTokenFileReadableByOwnerOnly() throws IOException {
+        Assumptions.assumeTrue(tempDir.getFileSystem().supportedFileAttributeViews().contains("posix"));
+        Path tokenFile = tempDir.resolve("target").resolve(".generator-daemon.token");
+        GeneratorDaemon.writeTokenFile(tokenFile, daemon.getToken());
+
+        Assertions.assertEquals(daemon.getToken(), new String(Files.readAllBytes(tokenFile), StandardCharsets.UTF_8));
+        Assertions.assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(tokenFile)));
+    }
+
+    private Map<String, Object> handleRequest(String json) {
+        String requestLine = "{\"token\":\"" + daemon.getToken() + "\"," + json.substring(1);
+        return daemon.handleRequest(daemon.parseRequest(requestLine));
+    }
+}
@@ -1,35 +1,72 @@
 package com.adobe.aem.compgenerator.javacodemodel;
 
+import com.adobe.aem.compgenerator.exceptions.GeneratorException;
 import com.adobe.aem.compgenerator.models.GenerationConfig;
+import com.adobe.aem.compgenerator.models.Options;
+import com.adobe.aem.compgenerator.models.Property;
 import com.adobe.aem.compgenerator.utils.CommonUtils;
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
 import com.sun.codemodel.JAnnotationUse;
 import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JFormatter;
+import com.sun.codemodel.JGenerable;
 import com.sun.codemodel.JMethod;
 import com.sun.codemodel.JPackage;
+import com.sun.codemodel.JType;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 class JCodeModelTest {
+    private static final String CONTAINER_CONFIG = "/component-generator/data-config-containerTest.json";
+    private static final String CONTAINER_IMPL =
+            "com.newco.aem.base.core.models.container.impl.DemoCompContainertestImpl";
+
+    private FileSystem outputFileSystem;
     private String configFilePath;
     private File configFile;
     private GenerationConfig generationConfig;
 
+    @BeforeEach
+    void setUp() {
+        outputFileSystem = Jimfs.newFileSystem(Configuration.unix());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        outputFileSystem.close();
+    }
+
     List<JDefinedClass> setUpTestAndGenerate(String configFilePathParam) throws IOException {
         configFilePath = configFilePathParam;
         configFile = new File(this.getClass().getResource(configFilePath).getFile());
         generationConfig = CommonUtils.getComponentData(configFile);
-        final File file = new File(generationConfig.getProjectSettings().getBundlePath());
-        file.delete();
-        file.mkdirs();
+        // the sources are written to memory instead of target/generated-sources
+        generationConfig.setOutputFileSystem(outputFileSystem);
 
         final JavaCodeModel codeModel = new JavaCodeModel();
         codeModel.buildSlingModel(generationConfig);
+        for (Path sourceFile : codeModel.getSourceFiles()) {
+            Assertions.assertTrue(Files.isRegularFile(sourceFile), sourceFile.toString());
+        }
 
         List<JDefinedClass> generatedClasses = new ArrayList<>();
         final Iterator<JPackage> packages = codeModel.getCodeModel().packages();
@@ -42,6 +79,88 @@ class JCodeModelTest {
         return generatedClasses;
     }
 
+    /**
+     * Builds the sling model of the data-config with customized options, the sources are written to memory.
+     */
+    private JavaCodeModel buildSlingModel(String configPath, Consumer<Options> optionsCustomizer) {
+        GenerationConfig config = CommonUtils.getComponentData(new File(getClass().getResource(configPath).getFile()));
+        config.setOutputFileSystem(outputFileSystem);
+        optionsCustomizer.accept(config.getOptions());
+        JavaCodeModel javaCodeModel = new JavaCodeModel();
+        javaCodeModel.buildSlingModel(config);
+        return javaCodeModel;
+    }
+
+    private static JAnnotationUse getAnnotation(Collection<JAnnotationUse> annotations, String name) {
+        return annotations.stream().filter(annotation -> name.equals(annotation.getAnnotationClass().name()))
+                .findFirst().orElseThrow(() -> new AssertionError("Missing annotation @" + name));
+    }
+
+    /**
+     * @return the source of the method without whitespace
+     */
+    private static String render(JMethod method) {
+        StringWriter source = new StringWriter();
+        new JFormatter(source).d(method);
+        return source.toString().replaceAll("\\s+", "");
+    }
+
+    private static String render(JGenerable generable) {
+        StringWriter source = new StringWriter();
+        generable.generate(new JFormatter(source));
+        return source.toString();
+    }
+
+    @Test
+    void testDuplicateClassInSharedModel() throws IOException {
+        File dataConfig =
+                new File(getClass().getResource("/component-generator/data-config-containerTest.json").getFile());
+        SharedCodeModel sharedModel = new SharedCodeModel();
+        GenerationConfig first = CommonUtils.getComponentData(dataConfig);
+        first.setOutputFileSystem(outputFileSystem);
+        GenerationConfig second = CommonUtils.getComponentData(dataConfig);
+        second.setOutputFileSystem(outputFileSystem);
+
+        JavaCodeModel firstModel = new JavaCodeModel(sharedModel);
+        firstModel.buildSlingModel(first);
+        Assertions.assertThrows(GeneratorException.class, () -> new JavaCodeModel(sharedModel).buildSlingModel(second));
+        sharedModel.discard(second);
+
+        // nothing is written before the shared model is emitted
+        Assertions.assertFalse(Files.exists(firstModel.getSourceFiles().get(0)));
+        sharedModel.emit();
+        for (Path sourceFile : firstModel.getSourceFiles()) {
+            Assertions.assertTrue(Files.isRegularFile(sourceFile), sourceFile.toString());
+        }
+    }
+
+    @Test
+    void testEmitFailsOnlyOwningComponent() throws IOException {
+        SharedCodeModel sharedModel = new SharedCodeModel();
+        GenerationConfig written = CommonUtils.getComponentData(
+                new File(getClass().getResource("/component-generator/data-config-containerTest.json").getFile()));
+        written.setOutputFileSystem(outputFileSystem);
+        GenerationConfig failed = CommonUtils.getComponentData(new File(
+                getClass().getResource("/component-generator/data-config-hiddenMultifieldTest.json").getFile()));
+        failed.setOutputFileSystem(outputFileSystem);
+        // the sources of the second component can not be written below a regular file
+        Files.createFile(outputFileSystem.getPath("blocked"));
+        failed.getProjectSettings().setBundlePath("blocked/java");
+
+        JavaCodeModel writtenModel = new JavaCodeModel(sharedModel);
+        writtenModel.buildSlingModel(written);
+        new JavaCodeModel(sharedModel).buildSlingModel(failed);
+        Map<String, Exception> errors = Collections.synchronizedMap(new HashMap<>());
+        sharedModel.emit((config, error) -> errors.put(config.getName(), error));
+
+        Assertions.assertEquals(2, errors.size());
+        Assertions.assertNull(errors.get(written.getName()));
+        Assertions.assertNotNull(errors.get(failed.getName()));
+        for (Path sourceFile : writtenModel.getSourceFiles()) {
+            Assertions.assertTrue(Files.isRegularFile(sourceFile), sourceFile.toString());
+        }
+    }
+
     @Test
     void testBuildJavaCodeModelContainer() throws IOException {
         List<JDefinedClass> generatedClasses = setUpTestAndGenerate("/component-generator/data-config-containerTest.json");
@@ -72,6 +191,114 @@ class JCodeModelTest {
         Assertions.assertEquals("ExistingModelFalse", demoApi.name());
     }
 
+    @Test
+    void testModelCache() {
+        JavaCodeModel javaCodeModel = buildSlingModel(CONTAINER_CONFIG, options -> options.setModelCache(true));
+
+        JDefinedClass demoImpl = javaCodeModel.getCodeModel()._getClass(CONTAINER_IMPL);
+        JAnnotationUse model = getAnnotation(demoImpl.annotations(), "Model");
+        Assertions.assertEquals("true", render(model.getAnnotationMembers().get("cache")));
+        JAnnotationUse via = getAnnotation(demoImpl.fields().get("jcrContainerColors1").annotations(), "Via");
+        Assertions.assertEquals("\"resource\"", render(via.getAnnotationMembers().get("value")));
+    }
+
+    @Test
+    void testModelFastPath() {
+        Property sharedText = new Property();
+        sharedText.setField("sharedText");
+        sharedText.setType("textfield");
+        JavaCodeModel javaCodeModel = buildSlingModel(CONTAINER_CONFIG, options -> {
+            options.setModelFastPath(true);
+            options.setSharedProperties(new ArrayList<>(Collections.singletonList(sharedText)));
+        });
+
+        JDefinedClass demoImpl = javaCodeModel.getCodeModel()._getClass(CONTAINER_IMPL);
+        Assertions.assertTrue(demoImpl.fields().get("jcrContainerColors1").annotations().isEmpty());
+        Assertions.assertFalse(demoImpl.fields().get("sharedText").annotations().isEmpty());
+        Assertions.assertEquals("SlingObject",
+                demoImpl.fields().get("resource").annotations().iterator().next().getAnnotationClass().name());
+        Assertions.assertTrue(demoImpl.methods().stream().anyMatch(method -> "init".equals(method.name())));
+    }
+
+    @Test
+    void testExportedType() {
+        JavaCodeModel javaCodeModel = buildSlingModel(CONTAINER_CONFIG, options -> {
+            options.setAllowExporting(true);
+            options.setAllowExportingTypeField(true);
+        });
+
+        JDefinedClass demoImpl = javaCodeModel.getCodeModel()._getClass(CONTAINER_IMPL);
+        Assertions.assertNull(demoImpl.fields().get("RESOURCE_TYPE"));
+        Assertions.assertEquals("SlingObject",
+                demoImpl.fields().get("resource").annotations().iterator().next().getAnnotationClass().name());
+        Assertions.assertTrue(render(demoImpl.getMethod("getExportedType", new JType[0]))
+                .contains("returnresource.getResourceType();"));
+
+        javaCodeModel = buildSlingModel(CONTAINER_CONFIG, options -> {
+            options.setAllowExporting(true);
+            options.setAllowExportingTypeField(true);
+            options.setModelFastPath(true);
+        });
+
+        demoImpl = javaCodeModel.getCodeModel()._getClass(CONTAINER_IMPL);
+        Assertions.assertNotNull(demoImpl.fields().get("RESOURCE_TYPE"));
+        Assertions.assertTrue(render(demoImpl.getMethod("getExportedType", new JType[0]))
+                .contains("returnRESOURCE_TYPE;"));
+    }
+
+    @Test
+    void testModelFastPathReservedField() {
+        Property resource = new Property();
+        resource.setField("resource");
+        resource.setType("textfield");
+        Assertions.assertThrows(GeneratorException.class, () -> buildSlingModel(CONTAINER_CONFIG, options -> {
+            options.setModelFastPath(true);
+            options.getProperties().add(resource);
+        }));
+    }
+
+    @Test
+    void testPrimitiveType() {
+        Property count = new Property();
+        count.setField("count");
+        count.setType("numberfield");
+        count.setPrimitive(true);
+        count.setDefaultValue("5");
+        JavaCodeModel javaCodeModel = buildSlingModel(CONTAINER_CONFIG, options -> options.getProperties().add(count));
+
+        JDefinedClass demoImpl = javaCodeModel.getCodeModel()._getClass(CONTAINER_IMPL);
+        Assertions.assertEquals("long", demoImpl.fields().get("count").type().name());
+        Assertions.assertTrue(demoImpl.fields().get("count").annotations().stream()
+                .anyMatch(annotation -> "Default".equals(annotation.getAnnotationClass().name())));
+        JDefinedClass demoApi = javaCodeModel.getCodeModel()
+                ._getClass("com.newco.aem.base.core.models.container.DemoCompContainertest");
+        Assertions.assertEquals("long", demoApi.getMethod("getCount", new JType[0]).type().name());
+    }
+
+    @Test
+    void testLazyChildModels() {
+        JavaCodeModel javaCodeModel = buildSlingModel("/component-generator/data-config-hiddenMultifieldTest.json",
+                options -> options.setLazyChildModels(true));
+
+        JDefinedClass demoImpl = javaCodeModel.getCodeModel()
+                ._getClass("com.newco.aem.base.core.models.hiddenMultifield.impl.DemoCompHiddenmultifieldtestImpl");
+        Assertions.assertTrue(demoImpl.fields().values().stream().flatMap(field -> field.annotations().stream())
+                .noneMatch(annotation -> "ChildResourceFromRequest".equals(annotation.getAnnotationClass().name())));
+        Assertions.assertNotNull(demoImpl.fields().get("resource"));
+        Assertions.assertNotNull(demoImpl.fields().get("request"));
+        Assertions.assertEquals(3, demoImpl.methods().size());
+        for (String field : new String[]{"hiddenMultifield1Item", "hiddenMultifieldMoreThan1Items",
+                "hiddenMultifieldUseExsitingModelTrue"}) {
+            Assertions.assertTrue(demoImpl.fields().get(field).annotations().isEmpty(), field);
+            String getter = render(demoImpl.getMethod("get" + StringUtils.capitalize(field), new JType[0]));
+            // the child models are resolved once and kept in the field
+            Assertions.assertTrue(getter.contains("if(this." + field + "==null)"), getter);
+            Assertions.assertTrue(getter.contains("this." + field + "=java.util.Collections.unmodifiableList(models);"),
+                    getter);
+            Assertions.assertTrue(getter.contains("returnthis." + field + ";"), getter);
+        }
+    }
+
     @Test
     void testBuildJavaCodeModelHiddenMultifield() throws IOException {
         List<JDefinedClass> generatedClasses = setUpTestAndGenerate("/component-generator/data-config-hiddenMultifieldTest.json");
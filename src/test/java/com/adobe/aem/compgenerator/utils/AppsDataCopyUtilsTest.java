@@ -0,0 +1,89 @@
+package com.adobe.aem.compgenerator.utils;
+
+import com.adobe.aem.compgenerator.models.GenerationConfig;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+class AppsDataCopyUtilsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testNestedAppsDataCopyLayout() throws IOException {
+        Path dataConfigDir = tempDir.resolve("config");
+        write(dataConfigDir.resolve("apps-data-copy/teaser.html"), "<div/>");
+        write(dataConfigDir.resolve("apps-data-copy/.DS_Store"), "hidden");
+        write(dataConfigDir.resolve("apps-data-copy/clientlibs/apps-data-copy/nested.js"), "nested");
+        write(dataConfigDir.resolve("variants/apps-data-copy/variant.html"), "<p/>");
+        Path componentDir = tempDir.resolve("ui.apps/teaser");
+
+        Assertions.assertEquals(3, AppsDataCopyUtils.copyAppsData(createConfig(dataConfigDir, componentDir, null)));
+
+        Assertions.assertEquals("<div/>", read(componentDir.resolve("teaser.html")));
+        Assertions.assertEquals("nested", read(componentDir.resolve("clientlibs/apps-data-copy/nested.js")));
+        Assertions.assertEquals("<p/>", read(componentDir.resolve("variant.html")));
+        Assertions.assertFalse(Files.exists(componentDir.resolve(".DS_Store")));
+        Assertions.assertFalse(Files.exists(componentDir.resolve("nested.js")));
+        // unchanged files are not copied again
+        Assertions.assertEquals(0, AppsDataCopyUtils.copyAppsData(createConfig(dataConfigDir, componentDir, null)));
+    }
+
+    @Test
+    void testCustomAppsDataCopyFolder() throws IOException {
+        Path dataConfigDir = tempDir.resolve("config");
+        write(dataConfigDir.resolve("static/teaser.html"), "<div/>");
+        write(dataConfigDir.resolve("apps-data-copy/ignored.html"), "<p/>");
+        Path componentDir = tempDir.resolve("ui.apps/teaser");
+
+        Assertions.assertEquals(1, AppsDataCopyUtils.copyAppsData(createConfig(dataConfigDir, componentDir, "static")));
+        Assertions.assertTrue(Files.exists(componentDir.resolve("teaser.html")));
+        Assertions.assertFalse(Files.exists(componentDir.resolve("ignored.html")));
+    }
+
+    @Test
+    void testIsUpToDate() throws IOException {
+        Path source = write(tempDir.resolve("source.html"), "<div/>");
+        Path target = tempDir.resolve("target.html");
+        Assertions.assertFalse(AppsDataCopyUtils.isUpToDate(source, target));
+
+        AppsDataCopyUtils.copyFile(source, target);
+        Assertions.assertTrue(AppsDataCopyUtils.isUpToDate(source, target));
+
+        // same content with another modification time, the time of the source is taken over
+        Files.setLastModifiedTime(target, FileTime.fromMillis(0));
+        Assertions.assertTrue(AppsDataCopyUtils.isUpToDate(source, target));
+        Assertions.assertEquals(Files.getLastModifiedTime(source), Files.getLastModifiedTime(target));
+
+        write(target, "<dvi/>");
+        Files.setLastModifiedTime(target, FileTime.fromMillis(0));
+        Assertions.assertFalse(AppsDataCopyUtils.isUpToDate(source, target));
+        write(target, "<div></div>");
+        Files.setLastModifiedTime(target, Files.getLastModifiedTime(source));
+        Assertions.assertFalse(AppsDataCopyUtils.isUpToDate(source, target));
+    }
+
+    private static GenerationConfig createConfig(Path dataConfigDir, Path componentDir, String appsDataCopyFolder) {
+        GenerationConfig config = new GenerationConfig();
+        config.setDataConfigDir(dataConfigDir.toString());
+        config.setCompDir(componentDir.toString());
+        config.setAppsDataCopyFolder(appsDataCopyFolder);
+        return config;
+    }
+
+    private static Path write(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        return Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,122 @@
+package com.adobe.aem.compgenerator.utils;
+
+import com.adobe.aem.compgenerator.exceptions.GeneratorException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+class BackupStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testRestoreRollsBackGeneration() throws IOException {
+        Path root = tempDir.resolve("backups");
+        Path replaced = write(tempDir.resolve("replaced.html"), "old");
+        Path created = tempDir.resolve("created.html");
+
+        String generation;
+        try (BackupStore store = BackupStore.open(root, true, 0)) {
+            generation = store.getGeneration();
+            store.backup(replaced);
+            write(replaced, "new");
+            store.created(created);
+            write(created, "new");
+        }
+
+        Assertions.assertEquals(2, BackupStore.restore(root, generation));
+        Assertions.assertEquals("old", read(replaced));
+        Assertions.assertFalse(Files.exists(created));
+        Assertions.assertEquals(2, BackupStore.listGenerations(root).size());
+    }
+
+    @Test
+    void testEqualContentIsStoredOnce() throws IOException {
+        Path root = tempDir.resolve("backups");
+        try (BackupStore store = BackupStore.open(root, false, 0)) {
+            store.backup(write(tempDir.resolve("a.html"), "same"));
+            store.backup(write(tempDir.resolve("b.html"), "same"));
+        }
+        Assertions.assertEquals(1, countObjects(root));
+    }
+
+    @Test
+    void testRetentionDeletesOldGenerations() throws IOException {
+        Path root = tempDir.resolve("backups");
+        for (int i = 0; i < 3; i++) {
+            try (BackupStore store = BackupStore.open(root, false, 2)) {
+                store.backup(write(tempDir.resolve("file.html"), "content " + i));
+            }
+        }
+        List<String> generations = BackupStore.listGenerations(root);
+        Assertions.assertEquals(2, generations.size());
+        Assertions.assertEquals(2, countObjects(root));
+        Assertions.assertThrows(GeneratorException.class, () -> BackupStore.restore(root, "unknown"));
+    }
+
+    @Test
+    void testRetentionWithoutObjects() throws IOException {
+        Path root = tempDir.resolve("backups");
+        for (int i = 0; i < 3; i++) {
+            try (BackupStore store = BackupStore.open(root, false, 2)) {
+                store.created(tempDir.resolve("created" + i + ".html"));
+            }
+        }
+        Assertions.assertEquals(2, BackupStore.listGenerations(root).size());
+        Assertions.assertFalse(Files.exists(root.resolve("objects")));
+    }
+
+    @Test
+    void testGenerationsAreSortedByCounter() throws IOException {
+        Path root = tempDir.resolve("backups");
+        Path generationsDir = Files.createDirectories(root.resolve("generations"));
+        for (String generation : new String[]{"20260101000000-10", "20260101000000", "20260101000001",
+                "20260101000000-2"}) {
+            write(generationsDir.resolve(generation + ".json"), "{}");
+        }
+        Assertions.assertEquals(Arrays.asList("20260101000000", "20260101000000-2", "20260101000000-10",
+                "20260101000001"), BackupStore.listGenerations(root));
+    }
+
+    @Test
+    void testRetentionKeepsObjectsOfRunningGeneration() throws IOException {
+        Path root = tempDir.resolve("backups");
+        Path file = write(tempDir.resolve("file.html"), "running");
+        String generation;
+        try (BackupStore running = BackupStore.open(root, false, 0)) {
+            generation = running.getGeneration();
+            running.backup(file);
+            write(file, "changed");
+            for (int i = 0; i < 3; i++) {
+                try (BackupStore store = BackupStore.open(root, false, 1)) {
+                    store.backup(write(tempDir.resolve("other.html"), "content " + i));
+                }
+            }
+        }
+        Assertions.assertEquals(1, BackupStore.restore(root, generation));
+        Assertions.assertEquals("running", read(file));
+    }
+
+    private static Path write(Path file, String content) throws IOException {
+        return Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+
+    private static long countObjects(Path root) throws IOException {
+        try (Stream<Path> objects = Files.walk(root.resolve("objects"))) {
+            return objects.filter(Files::isRegularFile).count();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.adobe.aem.compgenerator.utils;
+
+import com.adobe.aem.compgenerator.exceptions.GeneratorException;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+class ContentPackageTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testComponentIsWrittenIntoPackage() throws IOException {
+        Path componentDir = tempDir.resolve("ui.apps/src/main/content/jcr_root/apps/newco/components/demo");
+        Path packageFile = tempDir.resolve("target/components.zip");
+        try (ContentPackage contentPackage = ContentPackage.create(packageFile)) {
+            contentPackage.addFilterRoot(componentDir);
+            contentPackage.addContent(componentDir.resolve(".content.xml"), bytes("<jcr:root/>"));
+            contentPackage.addSource("com/newco/Demo.java", bytes("interface Demo {}"));
+        }
+
+        try (ZipFile zip = new ZipFile(packageFile.toFile())) {
+            Assertions.assertEquals("<jcr:root/>",
+                    read(zip, "jcr_root/apps/newco/components/demo/.content.xml"));
+            Assertions.assertTrue(read(zip, ContentPackage.FILTER_XML)
+                    .contains("<filter root=\"/apps/newco/components/demo\"/>"));
+            Assertions.assertTrue(read(zip, ContentPackage.PROPERTIES_XML)
+                    .contains("<entry key=\"name\">components</entry>"));
+            Assertions.assertNull(zip.getEntry("com/newco/Demo.java"));
+        }
+        try (ZipFile sources = new ZipFile(tempDir.resolve("target/components-sources.jar").toFile())) {
+            Assertions.assertEquals("interface Demo {}", read(sources, "com/newco/Demo.java"));
+        }
+    }
+
+    @Test
+    void testFileOutsideJcrRootIsRejected() {
+        Assertions.assertThrows(GeneratorException.class,
+                () -> ContentPackage.getEntryName(Paths.get("ui.apps/components/demo/.content.xml")));
+    }
+
+    @Test
+    void testNoSourcesJarWithoutSources() throws IOException {
+        ContentPackage.create(tempDir.resolve("components.zip")).close();
+        Assertions.assertTrue(Files.exists(tempDir.resolve("components.zip")));
+        Assertions.assertFalse(Files.exists(tempDir.resolve("components-sources.jar")));
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String read(ZipFile zip, String entryName) throws IOException {
+        ZipEntry entry = zip.getEntry(entryName);
+        Assertions.assertNotNull(entry, entryName);
+        return IOUtils.toString(zip.getInputStream(entry), StandardCharsets.UTF_8);
+    }
+}
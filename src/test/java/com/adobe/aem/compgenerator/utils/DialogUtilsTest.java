@@ -0,0 +1,106 @@
+package com.adobe.aem.compgenerator.utils;
+
+import com.adobe.aem.compgenerator.Constants;
+import com.adobe.aem.compgenerator.models.GenerationConfig;
+import com.adobe.aem.compgenerator.models.Property;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.File;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+class DialogUtilsTest {
+    private GenerationConfig generationConfig;
+
+    @BeforeEach
+    void setUp() {
+        File configFile = new File(this.getClass().getResource("/component-generator/data-config.json").getFile());
+        generationConfig = CommonUtils.getComponentData(configFile);
+    }
+
+    @Test
+    void testFlatSingleItemMultifield() throws Exception {
+        generationConfig.getOptions().setFlatMultifields(true);
+        Element multifield = writeSingleItemMultifield();
+
+        List<Element> children = getChildElements(multifield);
+        Assertions.assertEquals(1, children.size());
+        Element field = children.get(0);
+        Assertions.assertEquals("field", field.getTagName());
+        Assertions.assertEquals("./colors", field.getAttribute(Constants.PROPERTY_NAME));
+        Assertions.assertEquals("./colors", field.getAttribute(Constants.PROPERTY_CQ_MSM_LOCKABLE));
+        Assertions.assertEquals(Constants.RESOURCE_TYPE_TEXTFIELD,
+                field.getAttribute(Constants.PROPERTY_SLING_RESOURCETYPE));
+        Assertions.assertTrue(getChildElements(field).isEmpty());
+        Assertions.assertEquals(0, multifield.getElementsByTagName("layout").getLength());
+        Assertions.assertEquals(0, multifield.getElementsByTagName("column").getLength());
+    }
+
+    @Test
+    void testSingleItemMultifieldKeepsFieldset() throws Exception {
+        generationConfig.getOptions().setFlatMultifields(false);
+        Element multifield = writeSingleItemMultifield();
+
+        List<Element> children = getChildElements(multifield);
+        Assertions.assertEquals(1, children.size());
+        Element field = children.get(0);
+        Assertions.assertEquals("field", field.getTagName());
+        Assertions.assertEquals("./colors", field.getAttribute(Constants.PROPERTY_NAME));
+        Assertions.assertEquals(Constants.RESOURCE_TYPE_FIELDSET,
+                field.getAttribute(Constants.PROPERTY_SLING_RESOURCETYPE));
+        Assertions.assertEquals(1, field.getElementsByTagName("layout").getLength());
+        Assertions.assertEquals(1, field.getElementsByTagName("column").getLength());
+
+        Element column = (Element) field.getElementsByTagName("column").item(0);
+        Element innerField = (Element) column.getElementsByTagName("field").item(0);
+        Assertions.assertNotNull(innerField);
+        Assertions.assertEquals("./colors", innerField.getAttribute(Constants.PROPERTY_NAME));
+    }
+
+    private Element writeSingleItemMultifield() throws Exception {
+        Property item = new Property();
+        item.setField("color");
+        item.setType("textfield");
+        item.setLabel("Color");
+
+        Property multifield = new Property();
+        multifield.setField("colors");
+        multifield.setName("colors");
+        multifield.setType("multifield");
+        multifield.setLabel("Colors");
+        multifield.setItems(Collections.singletonList(item));
+
+        StringWriter xml = new StringWriter();
+        try (DocViewWriter writer = new DocViewWriter(xml)) {
+            writer.startNode("items").unstructured();
+            DialogUtils.writePropertyNode(writer, generationConfig, multifield);
+            writer.endNode();
+        }
+        Element items = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                .parse(new InputSource(new StringReader(xml.toString())))
+                .getDocumentElement();
+        List<Element> properties = getChildElements(items);
+        Assertions.assertEquals(1, properties.size());
+        Assertions.assertEquals("colors", properties.get(0).getTagName());
+        return properties.get(0);
+    }
+
+    private static List<Element> getChildElements(Element parent) {
+        List<Element> children = new ArrayList<>();
+        for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE) {
+                children.add((Element) child);
+            }
+        }
+        return children;
+    }
+}
@@ -0,0 +1,149 @@
+package com.adobe.aem.compgenerator.utils;
+
+import com.adobe.aem.compgenerator.exceptions.GeneratorException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+class DocViewWriterTest {
+    private static final Logger LOG = LogManager.getLogger(DocViewWriterTest.class);
+
+    private static final int BENCHMARK_FIELDS = 2000;
+    private static final int BENCHMARK_RUNS = 50;
+
+    @Test
+    void testDocViewFormatting() throws Exception {
+        StringWriter xml = new StringWriter();
+        try (DocViewWriter writer = new DocViewWriter(xml)) {
+            writer.comment(" copyright ");
+            writer.startNode("jcr:root")
+                    .namespace("sling", "http://sling.apache.org/jcr/sling/1.0")
+                    .namespace("jcr", "http://www.jcp.org/jcr/1.0")
+                    .attribute("sling:resourceType", "dialog")
+                    .attribute("jcr:title", "replaced")
+                    .unstructured()
+                    .attribute("jcr:title", "Demo & <Title>");
+            writer.startNode("items").unstructured();
+            writer.startNode("field").attribute("name", "./field").unstructured().endNode();
+        }
+        Assertions.assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<!-- copyright -->\n" +
+                "<jcr:root xmlns:sling=\"http://sling.apache.org/jcr/sling/1.0\" xmlns:jcr=\"http://www.jcp.org/jcr/1.0\"\n" +
+                "    jcr:primaryType=\"nt:unstructured\"\n" +
+                "    jcr:title=\"Demo &amp; &lt;Title&gt;\"\n" +
+                "    sling:resourceType=\"dialog\">\n" +
+                "    <items\n" +
+                "        jcr:primaryType=\"nt:unstructured\">\n" +
+                "        <field\n" +
+                "            jcr:primaryType=\"nt:unstructured\"\n" +
+                "            name=\"./field\"/>\n" +
+                "    </items>\n" +
+                "</jcr:root>\n", xml.toString());
+    }
+
+    @Test
+    void testAttributeAfterChildNodeIsRejected() {
+        DocViewWriter writer = new DocViewWriter(new StringWriter());
+        writer.startNode("jcr:root").unstructured();
+        writer.startNode("items");
+        writer.endNode();
+        Assertions.assertThrows(GeneratorException.class, () -> writer.attribute("jcr:title", "late"));
+    }
+
+    /**
+     * Compares the streaming writer with the DOM and Transformer serialization used before on a large dialog.
+     * Run with <code>mvn test -Dtest=DocViewWriterTest -Dcompgenerator.benchmark=true</code>.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "compgenerator.benchmark", matches = "true")
+    void benchmarkAgainstDomTransformer() throws Exception {
+        int docViewElements = countElements(writeDocView());
+        int domElements = countElements(writeDom());
+        Assertions.assertEquals(domElements, docViewElements);
+
+        long docViewNanos = 0;
+        long domNanos = 0;
+        for (int run = 0; run < BENCHMARK_RUNS * 2; run++) {
+            long start = System.nanoTime();
+            writeDocView();
+            long docViewEnd = System.nanoTime();
+            writeDom();
+            long domEnd = System.nanoTime();
+            // the first half warms up
+            if (run >= BENCHMARK_RUNS) {
+                docViewNanos += docViewEnd - start;
+                domNanos += domEnd - docViewEnd;
+            }
+        }
+        LOG.info("Dialog with {} fields: DocViewWriter {} ms, DOM + Transformer {} ms per file", BENCHMARK_FIELDS,
+                docViewNanos / BENCHMARK_RUNS / 1_000_000.0, domNanos / BENCHMARK_RUNS / 1_000_000.0);
+    }
+
+    private static String writeDocView() throws Exception {
+        StringWriter xml = new StringWriter();
+        try (DocViewWriter writer = new DocViewWriter(xml)) {
+            writer.startNode("jcr:root").namespace("jcr", "http://www.jcp.org/jcr/1.0").unstructured();
+            writer.startNode("items").unstructured();
+            for (int i = 0; i < BENCHMARK_FIELDS; i++) {
+                writer.startNode("field" + i).unstructured();
+                for (int a = 0; a < 8; a++) {
+                    writer.attribute("attribute" + a, "value " + i + " & " + a);
+                }
+                writer.startNode("granite:data").unstructured().attribute("index", String.valueOf(i)).endNode();
+                writer.endNode();
+            }
+        }
+        return xml.toString();
+    }
+
+    private static String writeDom() throws Exception {
+        Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        Element root = doc.createElement("jcr:root");
+        root.setAttribute("xmlns:jcr", "http://www.jcp.org/jcr/1.0");
+        root.setAttribute("jcr:primaryType", "nt:unstructured");
+        Element items = doc.createElement("items");
+        items.setAttribute("jcr:primaryType", "nt:unstructured");
+        root.appendChild(items);
+        for (int i = 0; i < BENCHMARK_FIELDS; i++) {
+            Element field = doc.createElement("field" + i);
+            field.setAttribute("jcr:primaryType", "nt:unstructured");
+            for (int a = 0; a < 8; a++) {
+                field.setAttribute("attribute" + a, "value " + i + " & " + a);
+            }
+            Element graniteData = doc.createElement("granite:data");
+            graniteData.setAttribute("jcr:primaryType", "nt:unstructured");
+            graniteData.setAttribute("index", String.valueOf(i));
+            field.appendChild(graniteData);
+            items.appendChild(field);
+        }
+        doc.appendChild(root);
+
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+        transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
+        StringWriter xml = new StringWriter();
+        transformer.transform(new DOMSource(doc), new StreamResult(xml));
+        return xml.toString();
+    }
+
+    private static int countElements(String xml) throws Exception {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                .parse(new InputSource(new StringReader(xml)))
+                .getElementsByTagName("*").getLength();
+    }
+}
@@ -6,12 +6,17 @@ import org.apache.commons.lang3.StringUtils;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
 
 import javax.xml.parsers.DocumentBuilderFactory;
 import java.io.File;
 import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 class EditConfigUtilsTest {
     private String configFilePath;
@@ -29,10 +34,10 @@ class EditConfigUtilsTest {
     @Test
     void testCreateEditConfigXml() throws Exception {
         final CqEditConfig editConfigType = generationConfig.getOptions().getEditorConfig().getCqEditConfig();
-        final Document doc = EditConfigUtils
+        final Path file = EditConfigUtils
                 .createEditConfigXml(generationConfig, editConfigType, EditConfigUtils.DIALOG_EDIT_CONFIG_NAME,
                         EditConfigUtils.DIALOG_EDIT_CONFIG_TYPE);
-        String stringFromFile = XMLUtils.transformDomToWriter(doc).toString();
+        String stringFromFile = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
         Assertions.assertTrue(StringUtils
                         .contains(stringFromFile, "jcr:primaryType=\"" + EditConfigUtils.DIALOG_EDIT_CONFIG_TYPE + "\""),
                 stringFromFile);
@@ -50,11 +55,11 @@ class EditConfigUtilsTest {
     @Test
     void testCreateChildEditConfigXml() throws Exception {
         final CqEditConfig editConfigType = generationConfig.getOptions().getEditorConfig().getCqChildEditConfig();
-        final Document doc = EditConfigUtils
+        final Path file = EditConfigUtils
                 .createEditConfigXml(generationConfig, editConfigType, EditConfigUtils.DIALOG_CHILD_EDIT_CONFIG_NAME,
                         EditConfigUtils.DIALOG_CHILD_EDIT_CONFIG_TYPE);
 
-        String stringFromFile = XMLUtils.transformDomToWriter(doc).toString();
+        String stringFromFile = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
         Assertions.assertTrue(StringUtils
                         .contains(stringFromFile, "jcr:primaryType=\"" + EditConfigUtils.DIALOG_CHILD_EDIT_CONFIG_TYPE + "\""),
                 stringFromFile);
@@ -71,19 +76,35 @@ class EditConfigUtilsTest {
 
     @Test
     void testGetCreateEditorConfig() throws Exception {
-        Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
-        Element rootElement = XMLUtils.createRootElement(doc, generationConfig);
-        final int rootElementsCount = rootElement.getAttributes().getLength();
+        StringWriter rootXml = new StringWriter();
+        try (DocViewWriter writer = new DocViewWriter(rootXml)) {
+            XMLUtils.startRootNode(writer, generationConfig);
+        }
+        final int rootElementsCount = parseRootElement(rootXml.toString()).getAttributes().getLength();
         final int expectedELementsCountFromEditConfig = 3 + rootElementsCount;
 
-        final Element cqEditorRoot = EditConfigUtils.createCqEditorRoot(doc, generationConfig,
-                generationConfig.getOptions().getEditorConfig().getCqEditConfig(),
-                EditConfigUtils.DIALOG_EDIT_CONFIG_TYPE);
+        StringWriter editConfigXml = new StringWriter();
+        try (DocViewWriter writer = new DocViewWriter(editConfigXml)) {
+            EditConfigUtils.writeCqEditorRoot(writer, generationConfig,
+                    generationConfig.getOptions().getEditorConfig().getCqEditConfig(),
+                    EditConfigUtils.DIALOG_EDIT_CONFIG_TYPE);
+        }
+        final Element cqEditorRoot = parseRootElement(editConfigXml.toString());
         Assertions.assertEquals(expectedELementsCountFromEditConfig, cqEditorRoot.getAttributes().getLength());
 
-        final Element cqChildEditorRoot = EditConfigUtils.createCqEditorRoot(doc, generationConfig,
-                generationConfig.getOptions().getEditorConfig().getCqChildEditConfig(),
-                EditConfigUtils.DIALOG_CHILD_EDIT_CONFIG_TYPE);
+        StringWriter childEditConfigXml = new StringWriter();
+        try (DocViewWriter writer = new DocViewWriter(childEditConfigXml)) {
+            EditConfigUtils.writeCqEditorRoot(writer, generationConfig,
+                    generationConfig.getOptions().getEditorConfig().getCqChildEditConfig(),
+                    EditConfigUtils.DIALOG_CHILD_EDIT_CONFIG_TYPE);
+        }
+        final Element cqChildEditorRoot = parseRootElement(childEditConfigXml.toString());
         Assertions.assertEquals(expectedELementsCountFromEditConfig, cqChildEditorRoot.getAttributes().getLength());
     }
+
+    private static Element parseRootElement(String xml) throws Exception {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                .parse(new InputSource(new StringReader(xml)))
+                .getDocumentElement();
+    }
 }
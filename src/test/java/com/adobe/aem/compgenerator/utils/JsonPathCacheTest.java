@@ -0,0 +1,35 @@
+package com.adobe.aem.compgenerator.utils;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class JsonPathCacheTest {
+
+    @Test
+    void testCompiledPathIsReused() {
+        JsonPathCache cache = new JsonPathCache(10);
+        JsonPath compiledPath = cache.get("['$.root']");
+        Assertions.assertEquals("$['root']", compiledPath.getPath());
+        Assertions.assertSame(compiledPath, cache.get("['$.root']"));
+        Assertions.assertEquals(1, cache.getHits());
+        Assertions.assertEquals(1, cache.getMisses());
+        Assertions.assertEquals(0.5, cache.getHitRate());
+    }
+
+    @Test
+    void testLeastRecentlyUsedPathIsEvicted() {
+        JsonPathCache cache = new JsonPathCache(2);
+        cache.get("$.a");
+        cache.get("$.b");
+        cache.get("$.a");
+        cache.get("$.c");
+        Assertions.assertEquals(2, cache.size());
+        Assertions.assertEquals(1, cache.getEvictions());
+
+        cache.get("$.a");
+        Assertions.assertEquals(2, cache.getHits());
+        cache.get("$.b");
+        Assertions.assertEquals(4, cache.getMisses());
+    }
+}
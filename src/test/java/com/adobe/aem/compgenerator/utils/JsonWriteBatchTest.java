@@ -0,0 +1,49 @@
+package com.adobe.aem.compgenerator.utils;
+
+import com.adobe.aem.compgenerator.exceptions.GeneratorException;
+import com.jayway.jsonpath.DocumentContext;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+class JsonWriteBatchTest {
+
+    @Test
+    void testApplyCreatesMissingNodes() {
+        DocumentContext dataConfig = TemplateUtils.parseDataConfig(
+                "{ \"options\" : { \"properties\" : [ { \"field\" : \"a\", \"template\" : [] } ], " +
+                        "\"replaceValueMap\" : {} } }");
+        JsonWriteBatch writeBatch = new JsonWriteBatch(dataConfig);
+        writeBatch.add("$['options']['properties'][0]", "@.template.html.content", "content");
+        writeBatch.add("$.['options'].['replaceValueMap']", "@template-name", "name");
+
+        Assertions.assertEquals(2, writeBatch.apply());
+        Assertions.assertTrue(writeBatch.isEmpty());
+        Assertions.assertEquals("content", dataConfig.read("$.options.properties[0].template.html.content"));
+        Assertions.assertEquals("name", dataConfig.read("$.options.replaceValueMap.template-name"));
+    }
+
+    @Test
+    void testLaterValueReplacesEarlierWrites() {
+        DocumentContext dataConfig = TemplateUtils.parseDataConfig("{ \"root\" : { \"node\" : {} } }");
+        Map<String, Object> node = new LinkedHashMap<>();
+        node.put("xml", "value");
+        JsonWriteBatch writeBatch = new JsonWriteBatch(dataConfig);
+        writeBatch.add("$.root.node", "@.html.content", "lost");
+        writeBatch.add("$.root", "@.node", node);
+        writeBatch.add("$.root.node", "@.html", "kept");
+        writeBatch.apply();
+
+        Assertions.assertEquals("kept", dataConfig.read("$.root.node.html"));
+        Assertions.assertEquals("value", dataConfig.read("$.root.node.xml"));
+    }
+
+    @Test
+    void testIndefinitePathIsRejected() {
+        JsonWriteBatch writeBatch = new JsonWriteBatch(TemplateUtils.parseDataConfig("{ \"root\" : [] }"));
+        Assertions.assertThrows(GeneratorException.class, () -> writeBatch.add("$.root[*]", "@.html", "value"));
+        Assertions.assertThrows(GeneratorException.class, () -> writeBatch.add("$", "@", "value"));
+    }
+}
@@ -0,0 +1,84 @@
+package com.adobe.aem.compgenerator.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.stream.Stream;
+
+class OutputTransactionTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testFilesAreWrittenOnCommit() throws IOException {
+        OutputTransaction transaction = new OutputTransaction("demo", Collections.singletonList(tempDir));
+        Path file = tempDir.resolve("components/demo/.content.xml");
+        write(transaction, file, "<jcr:root/>");
+        Assertions.assertFalse(Files.exists(file));
+
+        Assertions.assertEquals(1, transaction.commit());
+        Assertions.assertEquals("<jcr:root/>", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        Assertions.assertFalse(hasStagingDir());
+    }
+
+    @Test
+    void testRollbackKeepsTarget() throws IOException {
+        Path file = tempDir.resolve(".content.xml");
+        Files.write(file, "<jcr:root a=\"1\"/>".getBytes(StandardCharsets.UTF_8));
+        OutputTransaction transaction = new OutputTransaction("demo", Collections.singletonList(tempDir));
+        write(transaction, file, "<jcr:root a=\"2\"/>");
+
+        transaction.rollback();
+        Assertions.assertEquals("<jcr:root a=\"1\"/>", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        Assertions.assertFalse(hasStagingDir());
+    }
+
+    @Test
+    void testUnchangedFileIsNotTouched() throws IOException {
+        Path file = tempDir.resolve(".content.xml");
+        Files.write(file, "<jcr:root/>".getBytes(StandardCharsets.UTF_8));
+        FileTime modified = FileTime.fromMillis(1_000_000_000_000L);
+        Files.setLastModifiedTime(file, modified);
+
+        OutputTransaction transaction = new OutputTransaction("demo", Collections.singletonList(tempDir));
+        write(transaction, file, "<jcr:root/>");
+        Assertions.assertFalse(hasStagingDir());
+        Assertions.assertEquals(Collections.singletonList(file.toAbsolutePath().normalize()),
+                transaction.getTargets());
+        Assertions.assertEquals(0, transaction.commit());
+        Assertions.assertEquals(modified, Files.getLastModifiedTime(file));
+    }
+
+    @Test
+    void testLeftoverStagingDirIsDeleted() throws IOException {
+        Path leftover = tempDir.resolve(OutputTransaction.STAGING_DIR_PREFIX + "demo-1");
+        Files.createDirectories(leftover.resolve("core"));
+        Files.write(leftover.resolve("core/DemoModel.java"), "class DemoModel {}".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(leftover, FileTime.fromMillis(0));
+
+        new OutputTransaction("demo", Collections.singletonList(tempDir));
+        Assertions.assertFalse(Files.exists(leftover));
+    }
+
+    private static void write(OutputTransaction transaction, Path file, String content) throws IOException {
+        try (OutputStream out = transaction.newOutputStream(file)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private boolean hasStagingDir() throws IOException {
+        try (Stream<Path> paths = Files.list(tempDir)) {
+            return paths.map(path -> path.getFileName().toString())
+                    .anyMatch(name -> name.startsWith(OutputTransaction.STAGING_DIR_PREFIX));
+        }
+    }
+}
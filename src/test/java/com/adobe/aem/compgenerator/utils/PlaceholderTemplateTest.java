@@ -0,0 +1,59 @@
+package com.adobe.aem.compgenerator.utils;
+
+import org.apache.commons.text.StringSubstitutor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+class PlaceholderTemplateTest {
+
+    private static final String[] TEMPLATES = {
+            "",
+            "plain text",
+            "<p>${name}: ${title}</p>",
+            "$${${sightly}Model.field}",
+            "$$${name}",
+            "${unknown} ${name",
+            "${${sightly}} ${missing:-fallback} ${content}",
+            "${dollar}${name}",
+            "@{label}: ${${sightly}Model.@{field}} $@{field}"
+    };
+
+    @Test
+    void testRenderMatchesStringSubstitutor() {
+        Map<String, String> variables = new HashMap<>();
+        variables.put("name", "demo-comp");
+        variables.put("title", "Demo");
+        variables.put("sightly", "demoComp");
+        variables.put("content", "<div>${title}</div>");
+        variables.put("dollar", "costs $");
+        variables.put("label", "Label");
+        variables.put("field", "text");
+
+        for (String template : TEMPLATES) {
+            Assertions.assertEquals(new StringSubstitutor(variables).replace(template),
+                    PlaceholderTemplate.compile(template, PlaceholderTemplate.PREFIX).render(variables), template);
+            Assertions.assertEquals(new StringSubstitutor(variables, "@{", "}").replace(template),
+                    PlaceholderTemplate.compile(template, PlaceholderTemplate.RELATIVE_PREFIX).render(variables),
+                    template);
+        }
+    }
+
+    @Test
+    void testCyclicValuesAreRejected() {
+        Map<String, String> variables = new HashMap<>();
+        variables.put("a", "${b}");
+        variables.put("b", "${a}");
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> PlaceholderTemplate.compile("${a}", PlaceholderTemplate.PREFIX).render(variables));
+    }
+
+    @Test
+    void testResourceTemplateIsCached() {
+        String resource = "template-copyright.txt";
+        Assertions.assertSame(PlaceholderTemplate.forResource(resource), PlaceholderTemplate.forResource(resource));
+        Assertions.assertNull(PlaceholderTemplate.forResource("not-existing-template.txt"));
+    }
+}
@@ -4,6 +4,7 @@ import com.adobe.aem.compgenerator.exceptions.GeneratorException;
 import com.adobe.aem.compgenerator.models.GenerationConfig;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.DocumentContext;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.junit.jupiter.api.Assertions;
@@ -48,6 +49,54 @@ class TemplateUtilsTest {
         Assertions.assertEquals(dataConfigJson, dataConfigJsonNew);
     }
 
+    @Test
+    void testInitConfigTemplatesOnSingleTree() {
+        DocumentContext dataConfig = TemplateUtils.parseDataConfig(dataConfigJson);
+        Assertions.assertTrue(TemplateUtils.initConfigTemplates(dataConfig));
+        Assertions.assertTrue(TemplateUtils.readPathsFromJsonPath(dataConfig, "$..['_comment_']", null, false).isEmpty());
+        List<TemplateUtils.PathValueHolder<Object>> contents = TemplateUtils
+                .readValuesFromJsonPath(dataConfig, "$.options.properties[*].template.html.content", null, true);
+        Assertions.assertFalse(contents.isEmpty());
+        for (TemplateUtils.PathValueHolder<Object> content : contents) {
+            Assertions.assertFalse(StringUtils.contains((String) content.getValue(), "@{"), content.getPath());
+        }
+        Assertions.assertEquals(TemplateUtils.getIntendedStringFromJson(dataConfig.jsonString()),
+                TemplateUtils.getIntendedStringFromJson(TemplateUtils.initConfigTemplates(dataConfigJson)));
+    }
+
+    @Test
+    void testSingleTraversalMatchesDefinitionByDefinition() {
+        String copyPatterns = "$['template-definitions']['copy-patterns']";
+        DocumentContext singleTraversal = TemplateUtils.parseDataConfig(dataConfigJson);
+        DocumentContext definitionByDefinition = TemplateUtils.parseDataConfig(dataConfigJson);
+        List<TemplateUtils.TemplateDefinition> definitions =
+                TemplateUtils.readTemplateDefinition(singleTraversal, copyPatterns);
+
+        Assertions.assertTrue(TemplatePatternEvaluator.apply(singleTraversal, definitions));
+        TemplateUtils.applyTemplateDefinitions(definitionByDefinition, definitions);
+        Assertions.assertEquals(definitionByDefinition.jsonString(), singleTraversal.jsonString());
+    }
+
+    @Test
+    void testSingleTraversalFirstMatchingDefinitionWins() {
+        //@formatter:off
+        String testJson = "{ \"options\" : { \"properties\" : [" +
+                "{ \"field\" : \"a\", \"type\" : \"image\", \"label\" : \"A\" }," +
+                "{ \"field\" : \"b\", \"label\" : \"B\", \"template\" : { \"html\" : { \"content\" : \"own\" } } }," +
+                "{ \"field\" : \"c\", \"label\" : \"C\" } ] }," +
+            "\"patterns\" : [" +
+                "{ \"baseJsonPath\" : \"$.options.properties[?(!(@.template.html.content))]..[?((@.type == 'image') && !(@.template.html.content))]\"," +
+                  "\"targetAttributes\" : { \"@.template.html.content\" : \"image\" } }," +
+                "{ \"baseJsonPath\" : \"$.options.properties[?(!(@.template.html.content))]..[?((@.label) && !(@.template.html.content))]\"," +
+                  "\"targetAttributes\" : { \"@.template.html.content\" : \"label\" } } ] }";
+        //@formatter:on
+        DocumentContext dataConfig = TemplateUtils.parseDataConfig(testJson);
+        Assertions.assertTrue(TemplatePatternEvaluator
+                .apply(dataConfig, TemplateUtils.readTemplateDefinition(dataConfig, "$['patterns']")));
+        Assertions.assertEquals(Arrays.asList("image", "own", "label"),
+                dataConfig.read("$.options.properties[*].template.html.content"));
+    }
+
     @Test
     void testReadValuesFromJsonPath() {
         String testJson = "{ \"root\" : { \"node1\" : \"zui\" ,  \"node2\" : \"asd\" ,  \"node3\" : \"rtz}\" } }";
@@ -56,6 +105,28 @@ class TemplateUtilsTest {
         Assertions.assertEquals("zui", copySourceBefore.get(0).getValue());
     }
 
+    @Test
+    void testReadValuesFromConcretePathSkipsCache() {
+        DocumentContext dataConfig = TemplateUtils.parseDataConfig(
+                "{ \"root\" : { \"items\" : [ { \"label\" : \"zui\" }, { \"label\" : \"asd\" } ] } }");
+        long misses = JsonPathCache.getInstance().getMisses();
+
+        List<TemplateUtils.PathValueHolder<String>> values =
+                TemplateUtils.readValuesFromConcretePath(dataConfig, "$['root']items[1].label", true);
+        Assertions.assertEquals(1, values.size());
+        Assertions.assertEquals("$['root']items[1].label", values.get(0).getPath());
+        Assertions.assertEquals("asd", values.get(0).getValue());
+        Assertions.assertTrue(TemplateUtils.readValuesFromConcretePath(dataConfig, "$['root']items[2].label", false)
+                .isEmpty());
+        Assertions.assertTrue(TemplateUtils.readValuesFromConcretePath(dataConfig, "$['root']['nodeNotThere']", false)
+                .isEmpty());
+
+        List<TemplateUtils.PathValueHolder<String>> indefinite =
+                TemplateUtils.readValuesFromConcretePath(dataConfig, "$['root']..label", true);
+        Assertions.assertEquals(2, indefinite.size());
+        Assertions.assertEquals(misses, JsonPathCache.getInstance().getMisses());
+    }
+
     @Test
     void testReadPathListFromJsonPath() throws IOException {
         String testJson = "{ \"root\" : { \"node1\" : \"zui\" ,  \"node2\" : \"asd\" ,  \"node3\" : \"rtz}\" } }";
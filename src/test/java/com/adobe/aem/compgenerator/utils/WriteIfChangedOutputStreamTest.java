@@ -0,0 +1,61 @@
+package com.adobe.aem.compgenerator.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.stream.Stream;
+
+class WriteIfChangedOutputStreamTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testUnchangedFileIsNotTouched() throws IOException {
+        Path file = tempDir.resolve("component/.content.xml");
+        write(file, "<jcr:root/>");
+        FileTime modified = FileTime.fromMillis(1_000_000_000_000L);
+        Files.setLastModifiedTime(file, modified);
+
+        write(file, "<jcr:root/>");
+        Assertions.assertEquals(modified, Files.getLastModifiedTime(file));
+        Assertions.assertEquals(1, countFiles(file.getParent()));
+    }
+
+    @Test
+    void testChangedFileIsReplacedWithoutBackupFile() throws IOException {
+        Path file = tempDir.resolve(".content.xml");
+        write(file, "<jcr:root a=\"1\"/>");
+        write(file, "<jcr:root a=\"2\"/>");
+        Assertions.assertEquals("<jcr:root a=\"2\"/>", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        Assertions.assertEquals(1, countFiles(tempDir));
+    }
+
+    @Test
+    void testContentEquals() throws IOException {
+        Path file = tempDir.resolve("file.txt");
+        Files.write(file, "abc".getBytes(StandardCharsets.UTF_8));
+        Assertions.assertTrue(WriteIfChangedOutputStream.contentEquals(file, "abcd".getBytes(StandardCharsets.UTF_8), 3));
+        Assertions.assertFalse(WriteIfChangedOutputStream.contentEquals(file, "abd".getBytes(StandardCharsets.UTF_8), 3));
+        Assertions.assertFalse(WriteIfChangedOutputStream.contentEquals(file, "ab".getBytes(StandardCharsets.UTF_8), 2));
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        try (OutputStream out = new WriteIfChangedOutputStream(file)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static long countFiles(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.count();
+        }
+    }
+}